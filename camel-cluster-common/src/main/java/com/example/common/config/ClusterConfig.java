@@ -1,10 +1,26 @@
 package com.example.common.config;
 
+import com.example.common.model.ConsumerPressure;
+import com.example.common.model.CustomerOrderStats;
+import com.example.common.model.MetricSample;
+import com.example.common.model.NodeStatus;
+import com.example.common.model.OrderEvent;
+import com.example.common.model.OrderWindowStats;
+import com.example.common.model.ProducerThrottle;
+import com.example.common.model.RateLimitBucket;
+import com.example.common.model.WorkAssignment;
 import com.example.common.util.ClusterConstants;
 import com.example.common.discovery.ServiceDiscovery;
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.client.config.ClientNetworkConfig;
+import com.hazelcast.client.config.ClientReliableTopicConfig;
 import com.hazelcast.config.*;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.partition.strategy.StringPartitioningStrategy;
+import com.hazelcast.query.Predicates;
+import com.hazelcast.topic.TopicOverloadPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -12,19 +28,37 @@ import org.springframework.context.annotation.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 /**
  * Dynamic cluster configuration for Hazelcast.
- * Supports multiple discovery mechanisms for different deployment scenarios.
+ * Supports multiple discovery mechanisms for different deployment scenarios, and
+ * three roles: a full data member, a lite member that joins the cluster but owns no
+ * partitions, or a smart client that connects to the data members.
  */
 @Configuration
 public class ClusterConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(ClusterConfig.class);
 
+    public static final String ROLE_MEMBER = "member";
+    public static final String ROLE_LITE_MEMBER = "lite-member";
+    public static final String ROLE_CLIENT = "client";
+
+    public static final String STARTUP_BLOCKING = "blocking";
+    public static final String STARTUP_ASYNC = "async";
+
+    private static final int EVENT_BUS_READ_BATCH_SIZE = 50;
+
     @Value("${cluster.node.id:unknown}")
     private String nodeId;
 
@@ -34,6 +68,9 @@ public class ClusterConfig {
     @Value("${hazelcast.port:5701}")
     private int hazelcastPort;
 
+    @Value("${hazelcast.role:member}")
+    private String role;
+
     @Value("${hazelcast.discovery.mode:tcp-ip}")
     private String discoveryMode;
 
@@ -59,20 +96,138 @@ public class ClusterConfig {
     @Value("${hazelcast.multicast.port:54327}")
     private int multicastPort;
 
+    @Value("${hazelcast.failure-detector.type:phi-accrual}")
+    private String failureDetectorType;
+
+    @Value("${hazelcast.failure-detector.heartbeat-interval-seconds:1}")
+    private int memberHeartbeatIntervalSeconds;
+
+    @Value("${hazelcast.failure-detector.max-no-heartbeat-seconds:5}")
+    private int maxNoHeartbeatSeconds;
+
+    @Value("${hazelcast.failure-detector.phi-threshold:10}")
+    private double memberPhiThreshold;
+
+    // blocking: the context waits for the join; async: Hazelcast joins in the background
+    @Value("${hazelcast.startup.mode:blocking}")
+    private String startupMode;
+
+    @Value("${hazelcast.join.wait-seconds:1}")
+    private int waitSecondsBeforeJoin;
+
+    @Value("${hazelcast.join.connection-timeout-seconds:1}")
+    private int joinConnectionTimeoutSeconds;
+
+    @Value("${hazelcast.join.max-join-seconds:30}")
+    private int maxJoinSeconds;
+
+    @Value("${hazelcast.join.merge-delay-seconds:10}")
+    private int mergeDelaySeconds;
+
+    @Value("${hazelcast.join.probe-timeout:200}")
+    private int fallbackProbeTimeout;
+
+    @Value("${hazelcast.jet.enabled:true}")
+    private boolean jetEnabled;
+
     @Autowired
     private ServiceDiscovery serviceDiscovery;
 
+    private final CompletableFuture<HazelcastInstance> joined = new CompletableFuture<>();
+    private volatile long startupMillis = -1;
+
     /**
      * Configure Hazelcast instance with dynamic discovery
      */
     @Bean
     public HazelcastInstance hazelcastInstance() {
+        role = resolveRole();
+        if (!STARTUP_ASYNC.equalsIgnoreCase(startupMode)) {
+            return startInstance();
+        }
+
+        // The context, HTTP and actuator come up while the instance joins; until then the
+        // bean is a placeholder whose calls fail fast, and cluster work waits for whenJoined()
+        Thread joiner = new Thread(() -> {
+            try {
+                startInstance();
+            } catch (Exception e) {
+                logger.error("Hazelcast {} of node {} failed to start", role, nodeId, e);
+            }
+        }, "hazelcast-join");
+        joiner.setDaemon(true);
+        joiner.start();
+        logger.info("Hazelcast {} of node {} joining the cluster in the background", role, nodeId);
+        return joiningInstance();
+    }
+
+    private HazelcastInstance startInstance() {
+        long startNanos = System.nanoTime();
+        try {
+            HazelcastInstance instance = ROLE_CLIENT.equals(role) ? newClient() : newMember();
+
+            startupMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            logger.info("Hazelcast {} of node {} ready in {} ms", role, nodeId, startupMillis);
+            joined.complete(instance);
+            return instance;
+        } catch (RuntimeException e) {
+            joined.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Stand-in for the instance while it joins; delegates once the join has completed
+     */
+    private HazelcastInstance joiningInstance() {
+        return (HazelcastInstance) Proxy.newProxyInstance(HazelcastInstance.class.getClassLoader(),
+            new Class<?>[] {HazelcastInstance.class}, (proxy, method, args) -> {
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return "HazelcastInstance[" + nodeId + ", joining: " + !joined.isDone() + "]";
+                    }
+                }
+
+                HazelcastInstance instance = joined.getNow(null);
+                if (instance == null) {
+                    if ("shutdown".equals(method.getName())) {
+                        joined.thenAccept(HazelcastInstance::shutdown);
+                        return null;
+                    }
+                    throw new IllegalStateException("Hazelcast " + role + " of node " + nodeId + " is still joining the cluster");
+                }
+                try {
+                    return method.invoke(instance, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    /**
+     * Full or lite member of the cluster
+     */
+    private HazelcastInstance newMember() {
         Config config = new Config();
         
         // Cluster configuration
         config.setClusterName(ClusterConstants.CLUSTER_NAME);
         config.setInstanceName(nodeId + "-" + nodeType);
 
+        // Lite members take part in the cluster but own no partitions or backups,
+        // so they never trigger migrations when they join or leave
+        config.setLiteMember(ROLE_LITE_MEMBER.equals(role));
+
+        // Member attributes let listeners map Hazelcast members to logical nodes
+        config.getMemberAttributeConfig()
+            .setAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_ID, nodeId)
+            .setAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_TYPE, nodeType);
+
         // Network configuration
         NetworkConfig networkConfig = config.getNetworkConfig();
         networkConfig.setPort(hazelcastPort);
@@ -85,6 +240,9 @@ public class ClusterConfig {
         // Map configurations for better performance
         configureHazelcastMaps(config);
 
+        // Typed map values are Compact-serialized instead of Java-serialized maps
+        configureSerialization(config.getSerializationConfig());
+
         // Security and performance settings
         configureAdvancedSettings(config);
 
@@ -95,6 +253,81 @@ public class ClusterConfig {
         return Hazelcast.newHazelcastInstance(config);
     }
 
+    /**
+     * Smart client connected to every data member; map and ringbuffer settings come from the members
+     */
+    private HazelcastInstance newClient() {
+        ClientConfig clientConfig = new ClientConfig();
+        clientConfig.setClusterName(ClusterConstants.CLUSTER_NAME);
+        clientConfig.setInstanceName(nodeId + "-" + nodeType);
+        clientConfig.addLabel(ClusterConstants.MEMBER_ATTRIBUTE_NODE_ID + "=" + nodeId);
+        clientConfig.addLabel(ClusterConstants.MEMBER_ATTRIBUTE_NODE_TYPE + "=" + nodeType);
+
+        ClientNetworkConfig networkConfig = clientConfig.getNetworkConfig();
+        networkConfig.setSmartRouting(true);
+        if ("kubernetes".equalsIgnoreCase(discoveryMode)) {
+            networkConfig.getKubernetesConfig().setEnabled(kubernetesEnabled)
+                .setProperty("namespace", kubernetesNamespace)
+                .setProperty("service-name", kubernetesServiceName);
+        } else {
+            // Clients cannot join by multicast, so both tcp-ip and multicast use the member list
+            List<String> members = getDiscoveredMembers();
+            if (members.isEmpty()) {
+                members = getFallbackMembers();
+            }
+            members.forEach(member -> networkConfig.addAddress(member.trim()));
+        }
+
+        clientConfig.addQueryCacheConfig(ClusterConstants.NODE_STATUS_MAP, nodeStatusViewConfig());
+        clientConfig.addReliableTopicConfig(new ClientReliableTopicConfig(ClusterConstants.CLUSTER_EVENTS_TOPIC)
+            .setTopicOverloadPolicy(TopicOverloadPolicy.BLOCK)
+            .setReadBatchSize(EVENT_BUS_READ_BATCH_SIZE));
+        configureSerialization(clientConfig.getSerializationConfig());
+
+        logger.info("Connecting Hazelcast client to cluster: {} with discovery mode: {}",
+                   ClusterConstants.CLUSTER_NAME, discoveryMode);
+        return HazelcastClient.newHazelcastClient(clientConfig);
+    }
+
+    /**
+     * The configured role; only producers can run as clients, because consumers and
+     * coordinators rely on being cluster members (partition assignment, leader lease)
+     */
+    private String resolveRole() {
+        String configured = role == null ? ROLE_MEMBER : role.trim().toLowerCase();
+        switch (configured) {
+            case ROLE_MEMBER:
+            case ROLE_LITE_MEMBER:
+                return configured;
+            case ROLE_CLIENT:
+                if (ClusterConstants.NODE_TYPE_PRODUCER.equals(nodeType)) {
+                    return configured;
+                }
+                logger.warn("Hazelcast role client is only supported for producers, starting {} node {} as a lite member",
+                           nodeType, nodeId);
+                return ROLE_LITE_MEMBER;
+            default:
+                logger.warn("Unknown Hazelcast role '{}', starting node {} as a member", role, nodeId);
+                return ROLE_MEMBER;
+        }
+    }
+
+    /**
+     * Register Compact serializers for the typed cluster records
+     */
+    private void configureSerialization(SerializationConfig serializationConfig) {
+        serializationConfig.getCompactSerializationConfig()
+            .addSerializer(new NodeStatus.Serializer())
+            .addSerializer(new MetricSample.Serializer())
+            .addSerializer(new CustomerOrderStats.Serializer())
+            .addSerializer(new RateLimitBucket.Serializer())
+            .addSerializer(new WorkAssignment.Serializer())
+            .addSerializer(new ConsumerPressure.Serializer())
+            .addSerializer(new ProducerThrottle.Serializer())
+            .addSerializer(new OrderEvent.Serializer())
+            .addSerializer(new OrderWindowStats.Serializer());
+    }
+
     /**
      * Configure discovery mechanism based on deployment environment
      */
@@ -154,6 +387,7 @@ public class ClusterConfig {
         
         TcpIpConfig tcpIpConfig = joinConfig.getTcpIpConfig();
         tcpIpConfig.setEnabled(true);
+        tcpIpConfig.setConnectionTimeoutSeconds(joinConnectionTimeoutSeconds);
 
         // Dynamic member discovery
         List<String> members = getDiscoveredMembers();
@@ -191,25 +425,53 @@ public class ClusterConfig {
     }
 
     /**
-     * Integrate with external service discovery
-     * TODO: Implement Consul/Eureka/Zookeeper integration
+     * Members from the external service registry (Consul or the cluster_state table);
+     * empty when service discovery is disabled, which selects the fallback members
      */
     private List<String> discoverMembersFromServiceRegistry() {
-        // Integration with ServiceDiscovery component would go here
-        // For now, return empty list to use fallback discovery
-        logger.debug("Service registry discovery not configured, using fallback");
-        return List.of();
+        List<String> members = serviceDiscovery.discoverClusterMembers();
+        if (members.isEmpty()) {
+            logger.debug("Service registry returned no members, using fallback");
+        } else {
+            logger.info("Discovered {} cluster members from service registry", members.size());
+        }
+        return members;
     }
 
     /**
-     * Fallback members for development/local testing
+     * Fallback members for development/local testing, limited to the addresses that accept
+     * a connection; the candidates are probed in parallel, so the unreachable ones cost one
+     * short probe instead of a join connection timeout each
      */
     private List<String> getFallbackMembers() {
-        return Arrays.asList(
+        List<String> candidates = Arrays.asList(
             "localhost:" + hazelcastPort,
             "127.0.0.1:" + (hazelcastPort + 1),
             "127.0.0.1:" + (hazelcastPort + 2)
         );
+        List<CompletableFuture<Boolean>> probes = candidates.stream()
+            .map(candidate -> CompletableFuture.supplyAsync(() -> isReachable(candidate)))
+            .collect(Collectors.toList());
+
+        List<String> reachable = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (probes.get(i).join()) {
+                reachable.add(candidates.get(i));
+            }
+        }
+        logger.info("Reachable fallback members: {} of {}", reachable, candidates);
+        return reachable;
+    }
+
+    private boolean isReachable(String address) {
+        int separator = address.lastIndexOf(':');
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(address.substring(0, separator),
+                Integer.parseInt(address.substring(separator + 1))), fallbackProbeTimeout);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
     }
 
     /**
@@ -227,13 +489,103 @@ public class ClusterConfig {
         MapConfig metricsMap = new MapConfig(ClusterConstants.CLUSTER_METRICS_MAP);
         metricsMap.setTimeToLiveSeconds(1800); // 30 minutes TTL
         metricsMap.setBackupCount(1);
+        // Partition-side metric queries filter on these attributes
+        metricsMap.addIndexConfig(new IndexConfig(IndexType.HASH, "metricName"));
+        metricsMap.addIndexConfig(new IndexConfig(IndexType.HASH, "nodeId"));
         config.addMapConfig(metricsMap);
 
         // Node status map
         MapConfig nodeStatusMap = new MapConfig(ClusterConstants.NODE_STATUS_MAP);
         nodeStatusMap.setTimeToLiveSeconds(300); // 5 minutes TTL
         nodeStatusMap.setBackupCount(2); // More backups for critical data
+        // Live local view of every status, kept current by map events, so full reads
+        // iterate local memory instead of scanning every partition remotely
+        nodeStatusMap.addQueryCacheConfig(nodeStatusViewConfig());
         config.addMapConfig(nodeStatusMap);
+
+        // Leader lease map - no TTL, the entry keeps the fencing token sequence
+        MapConfig leaderLeaseMap = new MapConfig(ClusterConstants.LEADER_LEASE_MAP);
+        leaderLeaseMap.setBackupCount(2);
+        config.addMapConfig(leaderLeaseMap);
+
+        // Node heartbeats - overwritten every interval, entries of departed nodes expire
+        MapConfig heartbeatsMap = new MapConfig(ClusterConstants.NODE_HEARTBEATS_MAP);
+        heartbeatsMap.setTimeToLiveSeconds(60);
+        heartbeatsMap.setBackupCount(0);
+        config.addMapConfig(heartbeatsMap);
+
+        // Customer order totals and their benchmark copy - keys "customer@orders.p" are placed
+        // by the part after '@', so a customer's state shares the partition of its order
+        // queue; the backup is async so an update on the owning member does not wait for a
+        // remote ack
+        MapConfig customerStatsMap = new MapConfig(ClusterConstants.CUSTOMER_ORDER_STATS_MAP + "*");
+        customerStatsMap.setPartitioningStrategyConfig(
+            new PartitioningStrategyConfig(StringPartitioningStrategy.class.getName()));
+        customerStatsMap.setBackupCount(0);
+        customerStatsMap.setAsyncBackupCount(1);
+        config.addMapConfig(customerStatsMap);
+
+        // Rate limit buckets - few entries, changed by every lease
+        MapConfig rateLimitMap = new MapConfig(ClusterConstants.RATE_LIMIT_BUCKETS_MAP);
+        rateLimitMap.setBackupCount(1);
+        config.addMapConfig(rateLimitMap);
+
+        // Work assignments - one entry per consumer, rewritten by each rebalance
+        MapConfig workAssignmentsMap = new MapConfig(ClusterConstants.WORK_ASSIGNMENTS_MAP);
+        workAssignmentsMap.setBackupCount(1);
+        config.addMapConfig(workAssignmentsMap);
+
+        // Backpressure signals - republished every second, so no backup; the TTL drops
+        // the entries of nodes that stopped
+        MapConfig consumerPressureMap = new MapConfig(ClusterConstants.CONSUMER_PRESSURE_MAP);
+        consumerPressureMap.setTimeToLiveSeconds(30);
+        consumerPressureMap.setBackupCount(0);
+        config.addMapConfig(consumerPressureMap);
+
+        MapConfig producerThrottleMap = new MapConfig(ClusterConstants.PRODUCER_THROTTLE_MAP);
+        producerThrottleMap.setTimeToLiveSeconds(30);
+        producerThrottleMap.setBackupCount(0);
+        config.addMapConfig(producerThrottleMap);
+
+        // Processed-order events - read by the order statistics job from the event journal,
+        // so the entries themselves are only kept briefly and not backed up
+        MapConfig orderEventsMap = new MapConfig(ClusterConstants.ORDER_EVENTS_MAP);
+        orderEventsMap.setTimeToLiveSeconds(60);
+        orderEventsMap.setBackupCount(0);
+        orderEventsMap.setEventJournalConfig(new EventJournalConfig().setEnabled(true).setCapacity(100_000));
+        config.addMapConfig(orderEventsMap);
+
+        // Window results of the order statistics job - one entry per minute, kept a day
+        MapConfig orderStatsMap = new MapConfig(ClusterConstants.ORDER_STATS_MAP);
+        orderStatsMap.setTimeToLiveSeconds(86400);
+        orderStatsMap.setBackupCount(1);
+        config.addMapConfig(orderStatsMap);
+
+        // Metric time series - fixed size, the oldest samples are overwritten
+        RingbufferConfig metricSeries = new RingbufferConfig(ClusterConstants.METRIC_SERIES_PREFIX + "*");
+        metricSeries.setCapacity(ClusterConstants.METRIC_SERIES_CAPACITY);
+        metricSeries.setBackupCount(1);
+        config.addRingBufferConfig(metricSeries);
+
+        // Cluster event bus - publishers wait for space rather than overwrite batches a slow
+        // subscriber has not read yet; batches older than the TTL free their slot
+        config.addReliableTopicConfig(new ReliableTopicConfig(ClusterConstants.CLUSTER_EVENTS_TOPIC)
+            .setTopicOverloadPolicy(TopicOverloadPolicy.BLOCK)
+            .setReadBatchSize(EVENT_BUS_READ_BATCH_SIZE));
+        RingbufferConfig clusterEvents = new RingbufferConfig(ClusterConstants.CLUSTER_EVENTS_RINGBUFFER);
+        clusterEvents.setCapacity(10000);
+        clusterEvents.setTimeToLiveSeconds(120);
+        clusterEvents.setBackupCount(1);
+        config.addRingBufferConfig(clusterEvents);
+    }
+
+    private QueryCacheConfig nodeStatusViewConfig() {
+        return new QueryCacheConfig(ClusterConstants.NODE_STATUS_VIEW)
+            .setPredicateConfig(new PredicateConfig(Predicates.alwaysTrue()))
+            .setIncludeValue(true)
+            .setPopulate(true)
+            .setInMemoryFormat(InMemoryFormat.OBJECT)
+            .setDelaySeconds(0);
     }
 
     /**
@@ -247,10 +599,30 @@ public class ClusterConfig {
         // Split brain protection
         config.getCPSubsystemConfig().setCPMemberCount(3);
         
+        // Stream processing engine, runs the order statistics job; jobs use classes on the
+        // members' classpath, so uploading resources stays off
+        config.getJetConfig()
+            .setEnabled(jetEnabled)
+            .setResourceUploadEnabled(false);
+        
         // Performance tuning
         config.setProperty("hazelcast.operation.call.timeout.millis", "60000");
         config.setProperty("hazelcast.operation.backup.timeout.millis", "5000");
         config.setProperty("hazelcast.partition.count", "271");
+
+        // Join fast: a short pause before joining and a bounded join attempt. Members that
+        // started at the same moment and formed separate clusters merge within seconds.
+        config.setProperty("hazelcast.wait.seconds.before.join", String.valueOf(waitSecondsBeforeJoin));
+        config.setProperty("hazelcast.max.join.seconds", String.valueOf(maxJoinSeconds));
+        config.setProperty("hazelcast.merge.first.run.delay.seconds", String.valueOf(mergeDelaySeconds));
+        config.setProperty("hazelcast.merge.next.run.delay.seconds", String.valueOf(mergeDelaySeconds));
+
+        // Member failure detection: frequent member heartbeats judged by a phi-accrual
+        // detector, so a crashed member is removed within seconds instead of after 60 s
+        config.setProperty("hazelcast.heartbeat.failuredetector.type", failureDetectorType);
+        config.setProperty("hazelcast.heartbeat.interval.seconds", String.valueOf(memberHeartbeatIntervalSeconds));
+        config.setProperty("hazelcast.max.no.heartbeat.seconds", String.valueOf(maxNoHeartbeatSeconds));
+        config.setProperty("hazelcast.heartbeat.phiaccrual.failuredetector.threshold", String.valueOf(memberPhiThreshold));
     }
 
     // Getters for injected values
@@ -269,4 +641,37 @@ public class ClusterConfig {
     public String getDiscoveryMode() {
         return discoveryMode;
     }
+
+    /**
+     * Effective Hazelcast role: member, lite-member or client
+     */
+    public String getRole() {
+        return role;
+    }
+
+    public boolean isClient() {
+        return ROLE_CLIENT.equals(role);
+    }
+
+    public String getStartupMode() {
+        return startupMode;
+    }
+
+    /**
+     * Completes with the instance once it has joined the cluster; already complete in blocking mode
+     */
+    public CompletionStage<HazelcastInstance> whenJoined() {
+        return joined.minimalCompletionStage();
+    }
+
+    public boolean isJoined() {
+        return joined.isDone() && !joined.isCompletedExceptionally();
+    }
+
+    /**
+     * Time taken to create the Hazelcast instance, -1 before it exists
+     */
+    public long getStartupMillis() {
+        return startupMillis;
+    }
 } 
\ No newline at end of file
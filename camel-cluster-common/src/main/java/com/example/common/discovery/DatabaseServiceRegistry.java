@@ -0,0 +1,125 @@
+package com.example.common.discovery;
+
+import com.example.common.discovery.ServiceDiscovery.ServiceInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service registry on the cluster_state table.
+ * Every node upserts its one row with its Hazelcast address each heartbeat interval,
+ * a single-row statement on the unique node_id index. A node is alive while its last
+ * heartbeat, stamped with the database clock, is within the TTL, so the live members
+ * come from one query on the heartbeat index. A starting node registers and reads the
+ * live members in a single statement.
+ */
+@Service
+public class DatabaseServiceRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseServiceRegistry.class);
+
+    private static final String UPSERT_HEARTBEAT =
+        "INSERT INTO cluster_state (node_id, node_type, host, port, last_heartbeat) VALUES (?, ?, ?, ?, NOW()) " +
+        "ON CONFLICT (node_id) DO UPDATE SET node_type = EXCLUDED.node_type, host = EXCLUDED.host, " +
+        "port = EXCLUDED.port, last_heartbeat = EXCLUDED.last_heartbeat";
+
+    private static final String LIVE_INSTANCES =
+        "SELECT node_id, node_type, host, port FROM cluster_state " +
+        "WHERE last_heartbeat > NOW() - ? * INTERVAL '1 millisecond' AND host IS NOT NULL";
+
+    // The upsert's own row is returned by RETURNING, the select still sees the table as it was
+    private static final String REGISTER_AND_LIST =
+        "WITH self AS (" + UPSERT_HEARTBEAT + " RETURNING node_id, node_type, host, port) " +
+        "SELECT node_id, node_type, host, port FROM self " +
+        "UNION ALL " + LIVE_INSTANCES + " AND node_id <> ?";
+
+    private static final RowMapper<ServiceInstance> INSTANCE_MAPPER = (rs, rowNum) -> new ServiceInstance(
+        rs.getString("node_id"), rs.getString("node_type"), rs.getString("host"), rs.getInt("port"), Map.of());
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${service.discovery.database.heartbeat-interval:5000}")
+    private long heartbeatInterval;
+
+    // Heartbeat age after which a node no longer counts as a member
+    @Value("${service.discovery.database.ttl:30000}")
+    private long ttl;
+
+    private ScheduledExecutorService heartbeatWriter;
+    private volatile ServiceInstance self;
+
+    /**
+     * Register this node, start its heartbeats and return the live instances, in one round-trip
+     */
+    public synchronized List<ServiceInstance> register(ServiceInstance instance) {
+        self = instance;
+        List<ServiceInstance> instances = jdbcTemplate.query(REGISTER_AND_LIST, INSTANCE_MAPPER,
+            instance.getId(), instance.getServiceType(), instance.getHost(), instance.getPort(), ttl, instance.getId());
+
+        if (heartbeatWriter == null) {
+            heartbeatWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "database-registry-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+            heartbeatWriter.scheduleWithFixedDelay(this::writeHeartbeat, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+            logger.info("Registered node {} in cluster_state, heartbeat every {} ms, {} live instances",
+                       instance.getId(), heartbeatInterval, instances.size());
+        }
+        return instances;
+    }
+
+    /**
+     * Instances whose last heartbeat is within the TTL
+     */
+    public List<ServiceInstance> findLiveInstances() {
+        return jdbcTemplate.query(LIVE_INSTANCES, INSTANCE_MAPPER, ttl);
+    }
+
+    /**
+     * Stop heartbeats and remove this node's row
+     */
+    @PreDestroy
+    public synchronized void unregister() {
+        if (heartbeatWriter != null) {
+            heartbeatWriter.shutdown();
+            heartbeatWriter = null;
+        }
+        ServiceInstance registered = self;
+        if (registered != null) {
+            self = null;
+            try {
+                jdbcTemplate.update("DELETE FROM cluster_state WHERE node_id = ?", registered.getId());
+                logger.info("Removed node {} from cluster_state", registered.getId());
+            } catch (Exception e) {
+                logger.error("Failed to remove node {} from cluster_state", registered.getId(), e);
+            }
+        }
+    }
+
+    private void writeHeartbeat() {
+        ServiceInstance registered = self;
+        if (registered == null) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(UPSERT_HEARTBEAT, registered.getId(), registered.getServiceType(),
+                registered.getHost(), registered.getPort());
+        } catch (Exception e) {
+            // The next interval writes a fresh heartbeat; the TTL spans several of them
+            logger.error("Failed to write heartbeat of node {} to cluster_state: {}", registered.getId(), e.getMessage());
+        }
+    }
+}
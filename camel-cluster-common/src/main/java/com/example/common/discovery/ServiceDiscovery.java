@@ -2,24 +2,43 @@ package com.example.common.discovery;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
 import org.springframework.core.ParameterizedTypeReference;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
  * Service discovery implementation for dynamic cluster member detection.
  * Supports multiple backends: Consul, Eureka, Database, REST API.
+ * The members are refreshed by a non-blocking pipeline into an immutable snapshot that
+ * is swapped atomically, so readers never wait on the registry. Consul is watched with
+ * blocking queries and delivers changes as they happen; the other backends are polled.
+ * Failed refreshes are retried with jittered exponential backoff and keep the last
+ * good snapshot.
  */
 @Service
 public class ServiceDiscovery {
 
     private static final Logger logger = LoggerFactory.getLogger(ServiceDiscovery.class);
 
+    private static final String CONSUL_INDEX_HEADER = "X-Consul-Index";
+
     @Value("${service.discovery.enabled:false}")
     private boolean enabled;
 
@@ -32,12 +51,32 @@ public class ServiceDiscovery {
     @Value("${service.discovery.consul.service:camel-cluster}")
     private String consulService;
 
+    // How long Consul holds a blocking query open when nothing changes
+    @Value("${service.discovery.consul.wait:55000}")
+    private long consulWait;
+
+    // Pause between consecutive blocking queries, bounds the query rate during churn
+    @Value("${service.discovery.consul.min-query-interval:500}")
+    private long consulMinQueryInterval;
+
     @Value("${service.discovery.eureka.url:http://localhost:8761}")
     private String eurekaUrl;
 
     @Value("${service.discovery.refresh.interval:30000}")
     private long refreshInterval;
 
+    @Value("${service.discovery.request-timeout:5000}")
+    private long requestTimeout;
+
+    @Value("${service.discovery.initial-timeout:10000}")
+    private long initialTimeout;
+
+    @Value("${service.discovery.backoff.min:500}")
+    private long minBackoff;
+
+    @Value("${service.discovery.backoff.max:30000}")
+    private long maxBackoff;
+
     @Value("${cluster.node.id:unknown}")
     private String nodeId;
 
@@ -47,161 +86,273 @@ public class ServiceDiscovery {
     @Value("${hazelcast.port:5701}")
     private int hazelcastPort;
 
-    private final WebClient webClient = WebClient.builder()
-        .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024))
-        .build();
-    private final Map<String, ServiceInstance> cachedServices = new HashMap<>();
-    private Timer refreshTimer;
+    @Autowired
+    private DatabaseServiceRegistry databaseRegistry;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+    private final AtomicLong refreshes = new AtomicLong(0);
+    private final AtomicLong refreshFailures = new AtomicLong(0);
+    private WebClient webClient;
+    private volatile boolean running;
 
     @PostConstruct
     public void initialize() {
         if (enabled) {
             logger.info("Initializing service discovery with type: {}", discoveryType);
+            webClient = WebClient.builder()
+                .clientConnector(new JdkClientHttpConnector(HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofMillis(requestTimeout))
+                    .build()))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024))
+                .build();
+            running = true;
             
-            // Register this node
-            registerSelf();
+            // Register this node; the database registers and lists the members in one round-trip
+            boolean database = "database".equalsIgnoreCase(discoveryType);
+            Mono<Snapshot> firstSnapshot;
+            if (database) {
+                firstSnapshot = registerWithDatabase(selfInstance());
+            } else {
+                registerSelf();
+                firstSnapshot = refreshOnce();
+            }
             
-            // Start periodic refresh
-            startPeriodicRefresh();
+            // Hazelcast reads the members once while it starts, so wait a bounded time
+            // for the first snapshot before handing over to the background refresh
+            try {
+                firstSnapshot.timeout(Duration.ofMillis(initialTimeout)).block();
+            } catch (Exception e) {
+                logger.warn("Initial service discovery did not complete within {} ms: {}", initialTimeout, e.getMessage());
+                if (database) {
+                    registerSelf();
+                }
+            }
+
+            // Start background refresh
+            startRefreshPipeline();
         } else {
             logger.debug("Service discovery is disabled");
         }
     }
 
     /**
-     * Register current node with service discovery
+     * Register current node with service discovery; completes in the background
      */
     public void registerSelf() {
         if (!enabled) return;
 
-        try {
-            ServiceInstance instance = new ServiceInstance(
-                nodeId,
-                nodeType,
-                getCurrentHostname(),
-                hazelcastPort,
-                Map.of("version", "1.0", "environment", getEnvironment())
-            );
-
-            switch (discoveryType.toLowerCase()) {
-                case "consul":
-                    registerWithConsul(instance);
-                    break;
-                case "eureka":
-                    registerWithEureka(instance);
-                    break;
-                case "database":
-                    registerWithDatabase(instance);
-                    break;
-                default:
-                    logger.warn("Unknown discovery type: {}", discoveryType);
-            }
+        ServiceInstance instance = selfInstance();
+        Mono<Void> registration;
+        switch (discoveryType.toLowerCase()) {
+            case "consul":
+                registration = registerWithConsul(instance);
+                break;
+            case "eureka":
+                registration = Mono.fromRunnable(() -> registerWithEureka(instance));
+                break;
+            case "database":
+                registration = registerWithDatabase(instance).then();
+                break;
+            default:
+                logger.warn("Unknown discovery type: {}", discoveryType);
+                return;
+        }
 
-            logger.info("Successfully registered node: {} with service discovery", nodeId);
+        registration
+            .timeout(Duration.ofMillis(requestTimeout))
+            .retryWhen(backoff("registration"))
+            .subscribe(
+                ignored -> { },
+                e -> logger.error("Failed to register with service discovery", e),
+                () -> logger.info("Successfully registered node: {} with service discovery", nodeId));
+    }
 
-        } catch (Exception e) {
-            logger.error("Failed to register with service discovery", e);
-        }
+    private ServiceInstance selfInstance() {
+        return new ServiceInstance(
+            nodeId,
+            nodeType,
+            getCurrentHostname(),
+            hazelcastPort,
+            Map.of("version", "1.0", "environment", getEnvironment())
+        );
     }
 
     /**
-     * Discover all cluster members from service registry
+     * Current cluster members from the latest snapshot; never blocks
      */
     public List<String> discoverClusterMembers() {
         if (!enabled) {
             return Collections.emptyList();
         }
+        return snapshot.get().members();
+    }
 
-        try {
-            List<ServiceInstance> instances = null;
+    /**
+     * Current service instances from the latest snapshot; never blocks
+     */
+    public List<ServiceInstance> getInstances() {
+        return snapshot.get().instances();
+    }
 
-            switch (discoveryType.toLowerCase()) {
-                case "consul":
-                    instances = discoverFromConsul();
-                    break;
-                case "eureka":
-                    instances = discoverFromEureka();
-                    break;
-                case "database":
-                    instances = discoverFromDatabase();
-                    break;
-                default:
-                    logger.warn("Unknown discovery type: {}", discoveryType);
-                    return Collections.emptyList();
-            }
+    /**
+     * Snapshot age and refresh statistics for monitoring
+     */
+    public Map<String, Object> getStatus() {
+        Snapshot current = snapshot.get();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("type", discoveryType);
+        status.put("members", current.members());
+        status.put("index", current.index());
+        status.put("snapshotAgeMs", current.refreshedAt() > 0 ? System.currentTimeMillis() - current.refreshedAt() : -1);
+        status.put("refreshes", refreshes.get());
+        status.put("refreshFailures", refreshFailures.get());
+        return status;
+    }
 
-            if (instances != null) {
-                updateCache(instances);
-                return instances.stream()
-                    .map(instance -> instance.getHost() + ":" + instance.getPort())
-                    .collect(Collectors.toList());
-            }
+    /**
+     * One refresh from the configured registry; Consul answers at once for index 0
+     */
+    private Mono<Snapshot> refreshOnce() {
+        switch (discoveryType.toLowerCase()) {
+            case "consul":
+                return queryConsul(0, Duration.ZERO).doOnNext(this::publish);
+            case "eureka":
+            case "database":
+                return pollRegistry().doOnNext(this::publish);
+            default:
+                logger.warn("Unknown discovery type: {}", discoveryType);
+                return Mono.empty();
+        }
+    }
 
-        } catch (Exception e) {
-            logger.error("Failed to discover cluster members", e);
+    /**
+     * Consul: an endless chain of blocking queries, each waiting for the index to move past
+     * the previous one. Other registries: a poll every refresh interval.
+     */
+    private void startRefreshPipeline() {
+        Flux<Snapshot> refresh;
+        if ("consul".equalsIgnoreCase(discoveryType)) {
+            refresh = Mono.defer(() -> queryConsul(snapshot.get().index(), Duration.ofMillis(consulWait)))
+                .retryWhen(backoff("refresh"))
+                .repeatWhen(completed -> completed
+                    .takeWhile(ignored -> running)
+                    .delayElements(Duration.ofMillis(consulMinQueryInterval)));
+            logger.info("Started Consul blocking-query watch on service {} (wait {} ms)", consulService, consulWait);
+        } else {
+            refresh = Flux.interval(Duration.ofMillis(refreshInterval))
+                .takeWhile(tick -> running)
+                .concatMap(tick -> pollRegistry().retryWhen(backoff("refresh")));
+            logger.info("Started periodic service discovery refresh every {} ms", refreshInterval);
         }
 
-        // Return cached results if discovery fails
-        return getCachedMembers();
+        refresh.subscribe(
+            this::publish,
+            e -> {
+                if (running) {
+                    logger.error("Service discovery refresh stopped", e);
+                }
+            });
     }
 
     /**
-     * Register with Consul service registry
+     * Swap in a new snapshot; readers see either the old or the new one, never a mix
      */
-    private void registerWithConsul(ServiceInstance instance) {
-        try {
-            Map<String, Object> registration = Map.of(
-                "ID", instance.getId(),
-                "Name", consulService,
-                "Tags", Arrays.asList(instance.getServiceType(), "hazelcast"),
-                "Address", instance.getHost(),
-                "Port", instance.getPort(),
-                "Check", Map.of(
-                    "HTTP", "http://" + instance.getHost() + ":" + (instance.getPort() + 1000) + "/actuator/health",
-                    "Interval", "30s"
-                )
-            );
-
-            String url = consulUrl + "/v1/agent/service/register";
-            webClient.put()
-                .uri(url)
-                .bodyValue(registration)
-                .retrieve()
-                .toBodilessEntity()
-                .block();
-            
-            logger.debug("Registered with Consul: {}", registration);
-
-        } catch (Exception e) {
-            logger.error("Failed to register with Consul", e);
+    private void publish(Snapshot next) {
+        refreshes.incrementAndGet();
+        Snapshot previous = snapshot.getAndSet(next);
+        if (!previous.members().equals(next.members())) {
+            logger.info("Service discovery members changed: {} -> {}", previous.members(), next.members());
+        } else {
+            logger.debug("Service discovery refreshed, {} members unchanged", next.members().size());
         }
     }
 
     /**
-     * Discover services from Consul
+     * Exponential backoff with jitter so nodes that lost the registry together do not retry in step
      */
-    private List<ServiceInstance> discoverFromConsul() {
-        try {
-            String url = consulUrl + "/v1/health/service/" + consulService + "?passing=true";
-            
-            List<Map<String, Object>> response = webClient.get()
-                .uri(url)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<List<Map<String, Object>>>() {})
-                .block();
-            
-            if (response != null) {
-                return response.stream()
-                    .map(this::parseConsulService)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-            }
+    private Retry backoff(String operation) {
+        return Retry.backoff(Long.MAX_VALUE, Duration.ofMillis(minBackoff))
+            .maxBackoff(Duration.ofMillis(maxBackoff))
+            .jitter(0.5)
+            .filter(e -> running)
+            .doBeforeRetry(signal -> {
+                refreshFailures.incrementAndGet();
+                logger.warn("Service discovery {} failed (attempt {}): {}",
+                           operation, signal.totalRetries() + 1, signal.failure().toString());
+            });
+    }
 
-        } catch (Exception e) {
-            logger.error("Failed to discover from Consul", e);
+    /**
+     * Register with Consul service registry
+     */
+    private Mono<Void> registerWithConsul(ServiceInstance instance) {
+        Map<String, Object> registration = Map.of(
+            "ID", instance.getId(),
+            "Name", consulService,
+            "Tags", Arrays.asList(instance.getServiceType(), "hazelcast"),
+            "Address", instance.getHost(),
+            "Port", instance.getPort(),
+            "Check", Map.of(
+                "HTTP", "http://" + instance.getHost() + ":" + (instance.getPort() + 1000) + "/actuator/health",
+                "Interval", "30s"
+            )
+        );
+
+        return webClient.put()
+            .uri(consulUrl + "/v1/agent/service/register")
+            .bodyValue(registration)
+            .retrieve()
+            .toBodilessEntity()
+            .doOnSuccess(response -> logger.debug("Registered with Consul: {}", registration))
+            .then();
+    }
+
+    /**
+     * Query healthy instances from Consul; with a non-zero index Consul holds the request
+     * until the service changes or the wait expires
+     */
+    private Mono<Snapshot> queryConsul(long index, Duration wait) {
+        String url = consulUrl + "/v1/health/service/" + consulService + "?passing=true";
+        if (index > 0) {
+            url += "&index=" + index + "&wait=" + wait.toMillis() + "ms";
         }
+        // Consul adds up to wait/16 of jitter to a blocking query
+        Duration timeout = wait.plus(wait.dividedBy(16)).plusMillis(requestTimeout);
 
-        return Collections.emptyList();
+        return webClient.get()
+            .uri(url)
+            .exchangeToMono(response -> readConsulResponse(response, index))
+            .timeout(timeout);
+    }
+
+    private Mono<Snapshot> readConsulResponse(ClientResponse response, long previousIndex) {
+        if (!response.statusCode().is2xxSuccessful()) {
+            return response.createError();
+        }
+        long index = response.headers().header(CONSUL_INDEX_HEADER).stream()
+            .findFirst()
+            .map(Long::parseLong)
+            .orElse(0L);
+        // The index can go backwards when Consul's state is restored; start over then
+        long nextIndex = index < previousIndex ? 0 : Math.max(index, 1);
+
+        return response.bodyToMono(new ParameterizedTypeReference<List<Map<String, Object>>>() {})
+            .defaultIfEmpty(List.of())
+            .map(body -> Snapshot.of(body.stream()
+                .map(this::parseConsulService)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()), nextIndex));
+    }
+
+    /**
+     * Poll a registry without blocking queries, off the caller's thread
+     */
+    private Mono<Snapshot> pollRegistry() {
+        return Mono.fromCallable(() -> "eureka".equalsIgnoreCase(discoveryType) ? discoverFromEureka() : discoverFromDatabase())
+            .subscribeOn(Schedulers.boundedElastic())
+            .timeout(Duration.ofMillis(requestTimeout))
+            .map(instances -> Snapshot.of(instances, 0));
     }
 
     /**
@@ -222,20 +373,20 @@ public class ServiceDiscovery {
     }
 
     /**
-     * Register with database
+     * Register with database; the registration also returns the live instances
      */
-    private void registerWithDatabase(ServiceInstance instance) {
-        // TODO: Implement database registration
-        logger.debug("Database registration not yet implemented");
+    private Mono<Snapshot> registerWithDatabase(ServiceInstance instance) {
+        return Mono.fromCallable(() -> databaseRegistry.register(instance))
+            .subscribeOn(Schedulers.boundedElastic())
+            .map(instances -> Snapshot.of(instances, 0))
+            .doOnNext(this::publish);
     }
 
     /**
      * Discover services from database
      */
     private List<ServiceInstance> discoverFromDatabase() {
-        // TODO: Implement database discovery
-        logger.debug("Database discovery not yet implemented");
-        return Collections.emptyList();
+        return databaseRegistry.findLiveInstances();
     }
 
     /**
@@ -264,51 +415,16 @@ public class ServiceDiscovery {
         }
     }
 
-    /**
-     * Update cached services
-     */
-    private void updateCache(List<ServiceInstance> instances) {
-        cachedServices.clear();
-        for (ServiceInstance instance : instances) {
-            cachedServices.put(instance.getId(), instance);
-        }
-        logger.debug("Updated service cache with {} instances", instances.size());
-    }
-
-    /**
-     * Get cached cluster members
-     */
-    private List<String> getCachedMembers() {
-        return cachedServices.values().stream()
-            .map(instance -> instance.getHost() + ":" + instance.getPort())
-            .collect(Collectors.toList());
-    }
-
-    /**
-     * Start periodic refresh of service discovery
-     */
-    private void startPeriodicRefresh() {
-        refreshTimer = new Timer("ServiceDiscoveryRefresh", true);
-        refreshTimer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    discoverClusterMembers();
-                } catch (Exception e) {
-                    logger.error("Error during periodic service discovery refresh", e);
-                }
-            }
-        }, refreshInterval, refreshInterval);
-
-        logger.info("Started periodic service discovery refresh every {} ms", refreshInterval);
-    }
-
     /**
      * Unregister from service discovery on shutdown
      */
+    @PreDestroy
     public void unregister() {
         if (!enabled) return;
 
+        // Stop after the query in flight instead of cancelling it
+        running = false;
+
         try {
             switch (discoveryType.toLowerCase()) {
                 case "consul":
@@ -322,10 +438,6 @@ public class ServiceDiscovery {
                     break;
             }
 
-            if (refreshTimer != null) {
-                refreshTimer.cancel();
-            }
-
             logger.info("Successfully unregistered from service discovery");
 
         } catch (Exception e) {
@@ -336,11 +448,12 @@ public class ServiceDiscovery {
     private void unregisterFromConsul() {
         try {
             String url = consulUrl + "/v1/agent/service/deregister/" + nodeId;
+            // Shutdown waits, bounded, so the node is gone from Consul before it stops
             webClient.put()
                 .uri(url)
                 .retrieve()
                 .toBodilessEntity()
-                .block();
+                .block(Duration.ofMillis(requestTimeout));
         } catch (Exception e) {
             logger.error("Failed to unregister from Consul", e);
         }
@@ -351,7 +464,7 @@ public class ServiceDiscovery {
     }
 
     private void unregisterFromDatabase() {
-        // TODO: Implement database unregistration
+        databaseRegistry.unregister();
     }
 
     private String getCurrentHostname() {
@@ -366,6 +479,22 @@ public class ServiceDiscovery {
         return System.getProperty("spring.profiles.active", "development");
     }
 
+    /**
+     * Immutable result of one refresh; the Consul index is the position to watch from
+     */
+    private record Snapshot(List<ServiceInstance> instances, List<String> members, long index, long refreshedAt) {
+
+        static final Snapshot EMPTY = new Snapshot(List.of(), List.of(), 0, 0);
+
+        static Snapshot of(List<ServiceInstance> instances, long index) {
+            List<String> members = instances.stream()
+                .map(instance -> instance.getHost() + ":" + instance.getPort())
+                .sorted()
+                .collect(Collectors.toUnmodifiableList());
+            return new Snapshot(List.copyOf(instances), members, index, System.currentTimeMillis());
+        }
+    }
+
     /**
      * Service instance representation
      */
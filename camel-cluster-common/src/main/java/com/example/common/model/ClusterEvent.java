@@ -0,0 +1,85 @@
+package com.example.common.model;
+
+import com.example.common.util.ClusterConstants;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed events published on the cluster event bus.
+ * Every event names the node that published it and when it happened (epoch millis).
+ * Events with a coalesce key replace an earlier, still unpublished event with the same
+ * key, so only the latest of a burst is delivered.
+ */
+public sealed interface ClusterEvent extends Serializable {
+
+    String sourceNode();
+
+    long timestamp();
+
+    /**
+     * Event type name as used in logs and the pre-typed event maps
+     */
+    String eventType();
+
+    /**
+     * Key under which a newer event supersedes an unpublished older one, or null to keep every event
+     */
+    default String coalesceKey() {
+        return null;
+    }
+
+    /**
+     * A node was declared failed and its cluster state removed
+     */
+    record NodeFailed(String sourceNode, long timestamp, String failedNode, String reason,
+                      long detectionDelayMs, Map<String, Object> details) implements ClusterEvent {
+        public String eventType() { return ClusterConstants.EVENT_NODE_FAILED; }
+    }
+
+    /**
+     * A node's heartbeats are late enough to suspect it
+     */
+    record NodeSuspected(String sourceNode, long timestamp, String node, double phi) implements ClusterEvent {
+        public String eventType() { return ClusterConstants.EVENT_NODE_SUSPECTED; }
+        public String coalesceKey() { return eventType() + ":" + node; }
+    }
+
+    /**
+     * A suspected or failed node is sending heartbeats again
+     */
+    record NodeRecovered(String sourceNode, long timestamp, String node) implements ClusterEvent {
+        public String eventType() { return ClusterConstants.EVENT_NODE_RECOVERED; }
+    }
+
+    /**
+     * A new leader took the leader lease
+     */
+    record LeaderChanged(String sourceNode, long timestamp, String previousLeader, String newLeader,
+                         long fencingToken, long takeoverMillis) implements ClusterEvent {
+        public String eventType() { return ClusterConstants.EVENT_LEADER_CHANGED; }
+        public String coalesceKey() { return eventType(); }
+    }
+
+    /**
+     * The leader asked the cluster to rebalance
+     */
+    record RebalanceTriggered(String sourceNode, long timestamp, String reason) implements ClusterEvent {
+        public String eventType() { return ClusterConstants.EVENT_REBALANCE_TRIGGERED; }
+        public String coalesceKey() { return eventType(); }
+    }
+
+    /**
+     * A coordinator generated and shared a report
+     */
+    record ReportGenerated(String sourceNode, long timestamp, String reportId, String period) implements ClusterEvent {
+        public String eventType() { return ClusterConstants.EVENT_REPORT_GENERATED; }
+    }
+
+    /**
+     * Events published together by one node; the unit carried by the reliable topic
+     */
+    record Batch(String sourceNode, long publishedAt, List<ClusterEvent> events) implements Serializable {
+    }
+}
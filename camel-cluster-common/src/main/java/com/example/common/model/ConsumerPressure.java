@@ -0,0 +1,64 @@
+package com.example.common.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+/**
+ * Pressure of one consumer in the consumer-pressure map, keyed by node id.
+ * Each component is relative to its configured limit, so 1.0 means at the limit:
+ * processing latency per order, database pool use (busy plus waiting threads over the
+ * pool size) and orders in flight. The score is the highest of them, as one exhausted
+ * resource is enough to slow the node down. Stored with Hazelcast Compact serialization.
+ */
+public record ConsumerPressure(String nodeId,
+                               double score,
+                               double latencyMillis,
+                               double latencyPressure,
+                               double poolPressure,
+                               double inFlightPressure,
+                               int inFlight,
+                               long updatedAt) {
+
+    /**
+     * Compact serializer; field names double as query attributes
+     */
+    public static final class Serializer implements CompactSerializer<ConsumerPressure> {
+
+        @Override
+        public ConsumerPressure read(CompactReader reader) {
+            return new ConsumerPressure(
+                reader.readString("nodeId"),
+                reader.readFloat64("score"),
+                reader.readFloat64("latencyMillis"),
+                reader.readFloat64("latencyPressure"),
+                reader.readFloat64("poolPressure"),
+                reader.readFloat64("inFlightPressure"),
+                reader.readInt32("inFlight"),
+                reader.readInt64("updatedAt")
+            );
+        }
+
+        @Override
+        public void write(CompactWriter writer, ConsumerPressure pressure) {
+            writer.writeString("nodeId", pressure.nodeId());
+            writer.writeFloat64("score", pressure.score());
+            writer.writeFloat64("latencyMillis", pressure.latencyMillis());
+            writer.writeFloat64("latencyPressure", pressure.latencyPressure());
+            writer.writeFloat64("poolPressure", pressure.poolPressure());
+            writer.writeFloat64("inFlightPressure", pressure.inFlightPressure());
+            writer.writeInt32("inFlight", pressure.inFlight());
+            writer.writeInt64("updatedAt", pressure.updatedAt());
+        }
+
+        @Override
+        public String getTypeName() {
+            return "ConsumerPressure";
+        }
+
+        @Override
+        public Class<ConsumerPressure> getCompactClass() {
+            return ConsumerPressure.class;
+        }
+    }
+}
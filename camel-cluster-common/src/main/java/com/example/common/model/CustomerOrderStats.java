@@ -0,0 +1,71 @@
+package com.example.common.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+/**
+ * Running order totals of one customer in the customer-order-stats map.
+ * Stored with Hazelcast Compact serialization; lastOrderAt is epoch millis.
+ */
+public record CustomerOrderStats(String customerName,
+                                 long orders,
+                                 long quantity,
+                                 double amount,
+                                 String lastOrderId,
+                                 long lastOrderAt,
+                                 String lastProcessedBy) {
+
+    public static CustomerOrderStats empty(String customerName) {
+        return new CustomerOrderStats(customerName, 0, 0, 0.0, null, 0, null);
+    }
+
+    /**
+     * Totals with one more order added
+     */
+    public CustomerOrderStats add(String orderId, long orderQuantity, double orderAmount,
+                                  long orderedAt, String processedBy) {
+        return new CustomerOrderStats(customerName, orders + 1, quantity + orderQuantity, amount + orderAmount,
+                                      orderId, Math.max(lastOrderAt, orderedAt), processedBy);
+    }
+
+    /**
+     * Compact serializer; field names double as query attributes
+     */
+    public static final class Serializer implements CompactSerializer<CustomerOrderStats> {
+
+        @Override
+        public CustomerOrderStats read(CompactReader reader) {
+            return new CustomerOrderStats(
+                reader.readString("customerName"),
+                reader.readInt64("orders"),
+                reader.readInt64("quantity"),
+                reader.readFloat64("amount"),
+                reader.readString("lastOrderId"),
+                reader.readInt64("lastOrderAt"),
+                reader.readString("lastProcessedBy")
+            );
+        }
+
+        @Override
+        public void write(CompactWriter writer, CustomerOrderStats stats) {
+            writer.writeString("customerName", stats.customerName());
+            writer.writeInt64("orders", stats.orders());
+            writer.writeInt64("quantity", stats.quantity());
+            writer.writeFloat64("amount", stats.amount());
+            writer.writeString("lastOrderId", stats.lastOrderId());
+            writer.writeInt64("lastOrderAt", stats.lastOrderAt());
+            writer.writeString("lastProcessedBy", stats.lastProcessedBy());
+        }
+
+        @Override
+        public String getTypeName() {
+            return "CustomerOrderStats";
+        }
+
+        @Override
+        public Class<CustomerOrderStats> getCompactClass() {
+            return CustomerOrderStats.class;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.common.model;
+
+import java.io.Serializable;
+
+/**
+ * Leader lease stored in the Hazelcast leader-lease map.
+ * Timestamps are epoch millis taken on the partition owner of the lease entry,
+ * so every candidate is judged against the same clock.
+ */
+public class LeaderLease implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String holderNodeId;
+    private final String holderMemberUuid;
+    private final long fencingToken;
+    private final long acquiredAt;
+    private final long renewedAt;
+    private final long expiresAt;
+    private final long takeoverMillis;
+
+    public LeaderLease(String holderNodeId, String holderMemberUuid, long fencingToken,
+                       long acquiredAt, long renewedAt, long expiresAt, long takeoverMillis) {
+        this.holderNodeId = holderNodeId;
+        this.holderMemberUuid = holderMemberUuid;
+        this.fencingToken = fencingToken;
+        this.acquiredAt = acquiredAt;
+        this.renewedAt = renewedAt;
+        this.expiresAt = expiresAt;
+        this.takeoverMillis = takeoverMillis;
+    }
+
+    /**
+     * Same holder and fencing token with a later expiry
+     */
+    public LeaderLease renew(long now, long leaseDuration) {
+        return new LeaderLease(holderNodeId, holderMemberUuid, fencingToken,
+                               acquiredAt, now, now + leaseDuration, takeoverMillis);
+    }
+
+    public String getHolderNodeId() {
+        return holderNodeId;
+    }
+
+    public String getHolderMemberUuid() {
+        return holderMemberUuid;
+    }
+
+    /**
+     * Incremented every time the lease changes hands; writes tagged with an older
+     * token come from a deposed leader
+     */
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public long getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public long getRenewedAt() {
+        return renewedAt;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Time between the previous holder's last renewal and this acquisition
+     */
+    public long getTakeoverMillis() {
+        return takeoverMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "LeaderLease{" +
+                "holderNodeId='" + holderNodeId + '\'' +
+                ", fencingToken=" + fencingToken +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
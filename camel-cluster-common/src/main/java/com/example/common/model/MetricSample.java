@@ -0,0 +1,83 @@
+package com.example.common.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * One metric value published by a node to the cluster-metrics map, keyed "nodeId:metricName".
+ * Stored with Hazelcast Compact serialization; timestamp is epoch millis.
+ */
+public record MetricSample(String nodeId,
+                           String metricName,
+                           double value,
+                           long timestamp) {
+
+    /**
+     * Read a cluster-metrics map value. Accepts both this record and the untyped maps
+     * written by earlier versions.
+     *
+     * @return the sample, or null if the value is neither
+     */
+    @SuppressWarnings("unchecked")
+    public static MetricSample from(Object value) {
+        if (value instanceof MetricSample sample) {
+            return sample;
+        }
+        if (!(value instanceof Map)) {
+            return null;
+        }
+
+        Map<String, Object> legacy = (Map<String, Object>) value;
+        if (!(legacy.get("value") instanceof Number number)) {
+            return null;
+        }
+        long timestamp;
+        try {
+            timestamp = LocalDateTime.parse(String.valueOf(legacy.get("timestamp")))
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            timestamp = 0L;
+        }
+        return new MetricSample(String.valueOf(legacy.get("nodeId")), String.valueOf(legacy.get("metricName")),
+                                number.doubleValue(), timestamp);
+    }
+
+    /**
+     * Compact serializer; field names double as query attributes
+     */
+    public static final class Serializer implements CompactSerializer<MetricSample> {
+
+        @Override
+        public MetricSample read(CompactReader reader) {
+            return new MetricSample(
+                reader.readString("nodeId"),
+                reader.readString("metricName"),
+                reader.readFloat64("value"),
+                reader.readInt64("timestamp")
+            );
+        }
+
+        @Override
+        public void write(CompactWriter writer, MetricSample sample) {
+            writer.writeString("nodeId", sample.nodeId());
+            writer.writeString("metricName", sample.metricName());
+            writer.writeFloat64("value", sample.value());
+            writer.writeInt64("timestamp", sample.timestamp());
+        }
+
+        @Override
+        public String getTypeName() {
+            return "MetricSample";
+        }
+
+        @Override
+        public Class<MetricSample> getCompactClass() {
+            return MetricSample.class;
+        }
+    }
+}
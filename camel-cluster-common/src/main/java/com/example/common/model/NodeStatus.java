@@ -0,0 +1,112 @@
+package com.example.common.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Status of one cluster node as stored in the node-status map.
+ * Stored with Hazelcast Compact serialization; lastUpdate is epoch millis.
+ *
+ * @param details free-form node details (processed counts, description, ...) as strings
+ */
+public record NodeStatus(String nodeId,
+                         String nodeType,
+                         String status,
+                         long lastUpdate,
+                         int clusterSize,
+                         Map<String, String> details) {
+
+    /**
+     * Read a node-status map value. Accepts both this record and the untyped maps
+     * written by earlier versions, so readers keep working while old entries expire.
+     *
+     * @return the status, or null if the value is neither
+     */
+    @SuppressWarnings("unchecked")
+    public static NodeStatus from(Object value) {
+        if (value instanceof NodeStatus nodeStatus) {
+            return nodeStatus;
+        }
+        if (!(value instanceof Map)) {
+            return null;
+        }
+
+        Map<String, Object> legacy = (Map<String, Object>) value;
+        Map<String, String> details = new LinkedHashMap<>();
+        if (legacy.get("additionalInfo") instanceof Map<?, ?> additionalInfo) {
+            additionalInfo.forEach((key, detail) -> details.put(String.valueOf(key), String.valueOf(detail)));
+        }
+        Object clusterSize = legacy.get("clusterSize");
+        return new NodeStatus(
+            String.valueOf(legacy.get("nodeId")),
+            String.valueOf(legacy.get("nodeType")),
+            String.valueOf(legacy.get("status")),
+            parseLegacyTimestamp(legacy.get("lastUpdate")),
+            clusterSize instanceof Number number ? number.intValue() : 0,
+            details
+        );
+    }
+
+    private static long parseLegacyTimestamp(Object lastUpdate) {
+        try {
+            return LocalDateTime.parse(String.valueOf(lastUpdate))
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Compact serializer; field names double as query attributes
+     */
+    public static final class Serializer implements CompactSerializer<NodeStatus> {
+
+        @Override
+        public NodeStatus read(CompactReader reader) {
+            String[] detailKeys = reader.readArrayOfString("detailKeys");
+            String[] detailValues = reader.readArrayOfString("detailValues");
+            Map<String, String> details = new LinkedHashMap<>();
+            if (detailKeys != null && detailValues != null) {
+                for (int i = 0; i < detailKeys.length && i < detailValues.length; i++) {
+                    details.put(detailKeys[i], detailValues[i]);
+                }
+            }
+            return new NodeStatus(
+                reader.readString("nodeId"),
+                reader.readString("nodeType"),
+                reader.readString("status"),
+                reader.readInt64("lastUpdate"),
+                reader.readInt32("clusterSize"),
+                details
+            );
+        }
+
+        @Override
+        public void write(CompactWriter writer, NodeStatus nodeStatus) {
+            writer.writeString("nodeId", nodeStatus.nodeId());
+            writer.writeString("nodeType", nodeStatus.nodeType());
+            writer.writeString("status", nodeStatus.status());
+            writer.writeInt64("lastUpdate", nodeStatus.lastUpdate());
+            writer.writeInt32("clusterSize", nodeStatus.clusterSize());
+            Map<String, String> details = nodeStatus.details() != null ? nodeStatus.details() : Map.of();
+            writer.writeArrayOfString("detailKeys", details.keySet().toArray(new String[0]));
+            writer.writeArrayOfString("detailValues", details.values().toArray(new String[0]));
+        }
+
+        @Override
+        public String getTypeName() {
+            return "NodeStatus";
+        }
+
+        @Override
+        public Class<NodeStatus> getCompactClass() {
+            return NodeStatus.class;
+        }
+    }
+}
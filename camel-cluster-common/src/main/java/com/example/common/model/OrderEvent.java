@@ -0,0 +1,65 @@
+package com.example.common.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+/**
+ * One processed order as fed to the order statistics job through the order-events map.
+ * Stored with Hazelcast Compact serialization; processedAt is epoch millis and is the
+ * event time the job windows by.
+ */
+public record OrderEvent(String orderId,
+                         String customerName,
+                         String productName,
+                         int quantity,
+                         double amount,
+                         String processedBy,
+                         long processedAt) {
+
+    public static OrderEvent of(Order order, String processedBy, long processedAt) {
+        return new OrderEvent(order.getOrderId(), order.getCustomerName(), order.getProductName(),
+                              order.getQuantity() != null ? order.getQuantity() : 0,
+                              order.getTotalAmount(), processedBy, processedAt);
+    }
+
+    /**
+     * Compact serializer; field names double as query attributes
+     */
+    public static final class Serializer implements CompactSerializer<OrderEvent> {
+
+        @Override
+        public OrderEvent read(CompactReader reader) {
+            return new OrderEvent(
+                reader.readString("orderId"),
+                reader.readString("customerName"),
+                reader.readString("productName"),
+                reader.readInt32("quantity"),
+                reader.readFloat64("amount"),
+                reader.readString("processedBy"),
+                reader.readInt64("processedAt")
+            );
+        }
+
+        @Override
+        public void write(CompactWriter writer, OrderEvent event) {
+            writer.writeString("orderId", event.orderId());
+            writer.writeString("customerName", event.customerName());
+            writer.writeString("productName", event.productName());
+            writer.writeInt32("quantity", event.quantity());
+            writer.writeFloat64("amount", event.amount());
+            writer.writeString("processedBy", event.processedBy());
+            writer.writeInt64("processedAt", event.processedAt());
+        }
+
+        @Override
+        public String getTypeName() {
+            return "OrderEvent";
+        }
+
+        @Override
+        public Class<OrderEvent> getCompactClass() {
+            return OrderEvent.class;
+        }
+    }
+}
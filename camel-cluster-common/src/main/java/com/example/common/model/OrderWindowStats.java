@@ -0,0 +1,114 @@
+package com.example.common.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order statistics of one event-time window, written by the order statistics job to
+ * the order-stats map. window is "tumbling" or "sliding"; start and end are epoch millis.
+ * Top products are ranked by quantity and top customers by revenue, each as parallel
+ * name and value arrays, best first. Stored with Hazelcast Compact serialization.
+ */
+public record OrderWindowStats(String window,
+                               long start,
+                               long end,
+                               long orders,
+                               long quantity,
+                               double revenue,
+                               String[] topProducts,
+                               long[] topProductQuantities,
+                               String[] topCustomers,
+                               double[] topCustomerRevenue) {
+
+    public static final String TUMBLING = "tumbling";
+    public static final String SLIDING = "sliding";
+
+    /**
+     * The same statistics placed in a window
+     */
+    public OrderWindowStats inWindow(String window, long start, long end) {
+        return new OrderWindowStats(window, start, end, orders, quantity, revenue, topProducts,
+                                    topProductQuantities, topCustomers, topCustomerRevenue);
+    }
+
+    /**
+     * Key of the window's entry in the order-stats map: tumbling windows by start, the
+     * sliding window as the one latest entry
+     */
+    public String key() {
+        return TUMBLING.equals(window) ? window + ":" + start : window + ":latest";
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("window", window);
+        map.put("start", start);
+        map.put("end", end);
+        map.put("orders", orders);
+        map.put("quantity", quantity);
+        map.put("revenue", revenue);
+        List<Map<String, Object>> products = new ArrayList<>();
+        for (int i = 0; i < topProducts.length; i++) {
+            products.add(Map.of("productName", topProducts[i], "quantity", topProductQuantities[i]));
+        }
+        map.put("topProducts", products);
+        List<Map<String, Object>> customers = new ArrayList<>();
+        for (int i = 0; i < topCustomers.length; i++) {
+            customers.add(Map.of("customerName", topCustomers[i], "revenue", topCustomerRevenue[i]));
+        }
+        map.put("topCustomers", customers);
+        return map;
+    }
+
+    /**
+     * Compact serializer; field names double as query attributes
+     */
+    public static final class Serializer implements CompactSerializer<OrderWindowStats> {
+
+        @Override
+        public OrderWindowStats read(CompactReader reader) {
+            return new OrderWindowStats(
+                reader.readString("window"),
+                reader.readInt64("start"),
+                reader.readInt64("end"),
+                reader.readInt64("orders"),
+                reader.readInt64("quantity"),
+                reader.readFloat64("revenue"),
+                reader.readArrayOfString("topProducts"),
+                reader.readArrayOfInt64("topProductQuantities"),
+                reader.readArrayOfString("topCustomers"),
+                reader.readArrayOfFloat64("topCustomerRevenue")
+            );
+        }
+
+        @Override
+        public void write(CompactWriter writer, OrderWindowStats stats) {
+            writer.writeString("window", stats.window());
+            writer.writeInt64("start", stats.start());
+            writer.writeInt64("end", stats.end());
+            writer.writeInt64("orders", stats.orders());
+            writer.writeInt64("quantity", stats.quantity());
+            writer.writeFloat64("revenue", stats.revenue());
+            writer.writeArrayOfString("topProducts", stats.topProducts());
+            writer.writeArrayOfInt64("topProductQuantities", stats.topProductQuantities());
+            writer.writeArrayOfString("topCustomers", stats.topCustomers());
+            writer.writeArrayOfFloat64("topCustomerRevenue", stats.topCustomerRevenue());
+        }
+
+        @Override
+        public String getTypeName() {
+            return "OrderWindowStats";
+        }
+
+        @Override
+        public Class<OrderWindowStats> getCompactClass() {
+            return OrderWindowStats.class;
+        }
+    }
+}
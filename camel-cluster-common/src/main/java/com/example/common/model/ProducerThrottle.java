@@ -0,0 +1,65 @@
+package com.example.common.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+/**
+ * How one producer reacts to consumer pressure, in the producer-throttle map keyed by
+ * node id. factor is the share of its normal generation and send rate the producer
+ * keeps (1.0 when not throttling); sendLimit is the resulting orders per second, 0 when
+ * unlimited; throttledBy names the consumers whose score was above the high watermark
+ * when throttling last tightened. Stored with Hazelcast Compact serialization.
+ */
+public record ProducerThrottle(String nodeId,
+                               double factor,
+                               double pressure,
+                               double sendLimit,
+                               String[] throttledBy,
+                               long throttlingSince,
+                               long updatedAt) {
+
+    public boolean isThrottling() {
+        return factor < 1.0;
+    }
+
+    /**
+     * Compact serializer; field names double as query attributes
+     */
+    public static final class Serializer implements CompactSerializer<ProducerThrottle> {
+
+        @Override
+        public ProducerThrottle read(CompactReader reader) {
+            return new ProducerThrottle(
+                reader.readString("nodeId"),
+                reader.readFloat64("factor"),
+                reader.readFloat64("pressure"),
+                reader.readFloat64("sendLimit"),
+                reader.readArrayOfString("throttledBy"),
+                reader.readInt64("throttlingSince"),
+                reader.readInt64("updatedAt")
+            );
+        }
+
+        @Override
+        public void write(CompactWriter writer, ProducerThrottle throttle) {
+            writer.writeString("nodeId", throttle.nodeId());
+            writer.writeFloat64("factor", throttle.factor());
+            writer.writeFloat64("pressure", throttle.pressure());
+            writer.writeFloat64("sendLimit", throttle.sendLimit());
+            writer.writeArrayOfString("throttledBy", throttle.throttledBy());
+            writer.writeInt64("throttlingSince", throttle.throttlingSince());
+            writer.writeInt64("updatedAt", throttle.updatedAt());
+        }
+
+        @Override
+        public String getTypeName() {
+            return "ProducerThrottle";
+        }
+
+        @Override
+        public Class<ProducerThrottle> getCompactClass() {
+            return ProducerThrottle.class;
+        }
+    }
+}
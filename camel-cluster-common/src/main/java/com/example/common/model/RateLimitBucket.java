@@ -0,0 +1,102 @@
+package com.example.common.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+/**
+ * Cluster-wide token bucket in the rate-limit-buckets map, keyed by limiter name.
+ * Tokens refill at permitsPerSecond up to capacity and may go negative when a lease
+ * larger than the balance is granted, which later leases pay back. A limit of 0 or
+ * less means unlimited. Stored with Hazelcast Compact serialization; refilledAt is
+ * epoch millis on the member owning the entry.
+ */
+public record RateLimitBucket(String name,
+                              double permitsPerSecond,
+                              double capacity,
+                              double tokens,
+                              long refilledAt,
+                              long leased,
+                              long leases) {
+
+    public static RateLimitBucket create(String name, double permitsPerSecond, double burstSeconds, long now) {
+        double capacity = capacityFor(permitsPerSecond, burstSeconds);
+        return new RateLimitBucket(name, permitsPerSecond, capacity, capacity, now, 0, 0);
+    }
+
+    public boolean isUnlimited() {
+        return permitsPerSecond <= 0;
+    }
+
+    /**
+     * The bucket with the tokens accrued since the last refill added
+     */
+    public RateLimitBucket refill(long now) {
+        if (isUnlimited() || now <= refilledAt) {
+            return this;
+        }
+        double refilled = Math.min(capacity, tokens + (now - refilledAt) * permitsPerSecond / 1000.0);
+        return new RateLimitBucket(name, permitsPerSecond, capacity, refilled, now, leased, leases);
+    }
+
+    /**
+     * The bucket after handing out the permits
+     */
+    public RateLimitBucket lease(long permits) {
+        return new RateLimitBucket(name, permitsPerSecond, capacity, isUnlimited() ? tokens : tokens - permits,
+                                   refilledAt, leased + permits, leases + 1);
+    }
+
+    /**
+     * The bucket with a new limit; the balance is capped at the new capacity
+     */
+    public RateLimitBucket withLimit(double newPermitsPerSecond, double burstSeconds, long now) {
+        double newCapacity = capacityFor(newPermitsPerSecond, burstSeconds);
+        double balance = isUnlimited() ? newCapacity : Math.min(tokens, newCapacity);
+        return new RateLimitBucket(name, newPermitsPerSecond, newCapacity, balance, now, leased, leases);
+    }
+
+    private static double capacityFor(double permitsPerSecond, double burstSeconds) {
+        return permitsPerSecond > 0 ? Math.max(1.0, permitsPerSecond * burstSeconds) : 0.0;
+    }
+
+    /**
+     * Compact serializer; field names double as query attributes
+     */
+    public static final class Serializer implements CompactSerializer<RateLimitBucket> {
+
+        @Override
+        public RateLimitBucket read(CompactReader reader) {
+            return new RateLimitBucket(
+                reader.readString("name"),
+                reader.readFloat64("permitsPerSecond"),
+                reader.readFloat64("capacity"),
+                reader.readFloat64("tokens"),
+                reader.readInt64("refilledAt"),
+                reader.readInt64("leased"),
+                reader.readInt64("leases")
+            );
+        }
+
+        @Override
+        public void write(CompactWriter writer, RateLimitBucket bucket) {
+            writer.writeString("name", bucket.name());
+            writer.writeFloat64("permitsPerSecond", bucket.permitsPerSecond());
+            writer.writeFloat64("capacity", bucket.capacity());
+            writer.writeFloat64("tokens", bucket.tokens());
+            writer.writeInt64("refilledAt", bucket.refilledAt());
+            writer.writeInt64("leased", bucket.leased());
+            writer.writeInt64("leases", bucket.leases());
+        }
+
+        @Override
+        public String getTypeName() {
+            return "RateLimitBucket";
+        }
+
+        @Override
+        public Class<RateLimitBucket> getCompactClass() {
+            return RateLimitBucket.class;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.common.model;
+
+import com.hazelcast.nio.serialization.compact.CompactReader;
+import com.hazelcast.nio.serialization.compact.CompactSerializer;
+import com.hazelcast.nio.serialization.compact.CompactWriter;
+
+/**
+ * Work share of one consumer in the work-assignments map, keyed by node id.
+ * The leader coordinator writes every consumer's assignment with the same generation;
+ * the consumer applies it and reports back by setting appliedGeneration. Partitions
+ * are only set with any-node order routing; fileSlots of 0 stops the node taking files.
+ * Stored with Hazelcast Compact serialization; times are epoch millis.
+ */
+public record WorkAssignment(String nodeId,
+                             long generation,
+                             int concurrency,
+                             int[] partitions,
+                             int fileSlots,
+                             String reason,
+                             long assignedAt,
+                             long appliedGeneration,
+                             long appliedAt) {
+
+    public boolean isApplied() {
+        return appliedGeneration >= generation;
+    }
+
+    /**
+     * The same assignment reported as applied
+     */
+    public WorkAssignment applied(long now) {
+        return new WorkAssignment(nodeId, generation, concurrency, partitions, fileSlots, reason, assignedAt,
+                                  generation, now);
+    }
+
+    /**
+     * Compact serializer; field names double as query attributes
+     */
+    public static final class Serializer implements CompactSerializer<WorkAssignment> {
+
+        @Override
+        public WorkAssignment read(CompactReader reader) {
+            return new WorkAssignment(
+                reader.readString("nodeId"),
+                reader.readInt64("generation"),
+                reader.readInt32("concurrency"),
+                reader.readArrayOfInt32("partitions"),
+                reader.readInt32("fileSlots"),
+                reader.readString("reason"),
+                reader.readInt64("assignedAt"),
+                reader.readInt64("appliedGeneration"),
+                reader.readInt64("appliedAt")
+            );
+        }
+
+        @Override
+        public void write(CompactWriter writer, WorkAssignment assignment) {
+            writer.writeString("nodeId", assignment.nodeId());
+            writer.writeInt64("generation", assignment.generation());
+            writer.writeInt32("concurrency", assignment.concurrency());
+            writer.writeArrayOfInt32("partitions", assignment.partitions());
+            writer.writeInt32("fileSlots", assignment.fileSlots());
+            writer.writeString("reason", assignment.reason());
+            writer.writeInt64("assignedAt", assignment.assignedAt());
+            writer.writeInt64("appliedGeneration", assignment.appliedGeneration());
+            writer.writeInt64("appliedAt", assignment.appliedAt());
+        }
+
+        @Override
+        public String getTypeName() {
+            return "WorkAssignment";
+        }
+
+        @Override
+        public Class<WorkAssignment> getCompactClass() {
+            return WorkAssignment.class;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.common.service;
+
+import com.example.common.model.ClusterEvent;
+import com.example.common.model.MetricSample;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.ringbuffer.Ringbuffer;
+import com.hazelcast.topic.ITopic;
+import com.hazelcast.topic.Message;
+import com.hazelcast.topic.ReliableMessageListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cluster event bus on a Hazelcast ReliableTopic.
+ * Published events are buffered for a short window, coalesced by key and sent as one
+ * batch, with at most one batch in flight so a full topic slows the flusher rather
+ * than the callers. A batch that fails to publish goes back to the front of the buffer
+ * for the next flush. Each node subscribes once, remembers the last sequence it read and
+ * dispatches the events of every batch to the handlers registered for their type.
+ * The subscriber's lag behind the topic is recorded as the event_bus_lag metric.
+ */
+@Service
+public class ClusterEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterEventBus.class);
+
+    public static final String LAG_METRIC = "event_bus_lag";
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ClusterStartup clusterStartup;
+
+    @Value("${cluster.node.id:unknown}")
+    private String nodeId;
+
+    @Value("${cluster.events.batch-window:100}")
+    private long batchWindow;
+
+    @Value("${cluster.events.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${cluster.events.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${cluster.events.lag-report-interval:5000}")
+    private long lagReportInterval;
+
+    private final Map<Class<?>, List<Consumer<ClusterEvent>>> handlers = new ConcurrentHashMap<>();
+    private final Map<Object, ClusterEvent> pending = new LinkedHashMap<>();
+    private final AtomicLong pendingSequence = new AtomicLong(0);
+    private final AtomicLong published = new AtomicLong(0);
+    private final AtomicLong coalesced = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong batchesPublished = new AtomicLong(0);
+    private final AtomicLong batchesReceived = new AtomicLong(0);
+    private final AtomicLong eventsReceived = new AtomicLong(0);
+    // Ringbuffer items skipped by the subscriber; each is a batch of up to max-batch-size events
+    private final AtomicLong batchesLost = new AtomicLong(0);
+    private final AtomicLong handlerFailures = new AtomicLong(0);
+    private final Map<String, AtomicLong> receivedByType = new ConcurrentHashMap<>();
+    private volatile long lastSequence = -1;
+    private volatile long lastDeliveryMillis = -1;
+    private volatile long maxDeliveryMillis = -1;
+    private ScheduledExecutorService flusher;
+    private ITopic<ClusterEvent.Batch> topic;
+    private UUID listenerId;
+
+    @PostConstruct
+    public void initialize() {
+        clusterStartup.onJoined("cluster-event-bus", this::start);
+    }
+
+    private void start() {
+        topic = hazelcastInstance.getReliableTopic(ClusterConstants.CLUSTER_EVENTS_TOPIC);
+        // Start with the next batch published
+        lastSequence = hazelcastInstance.getRingbuffer(ClusterConstants.CLUSTER_EVENTS_RINGBUFFER).tailSequence();
+        listenerId = topic.addMessageListener(new Subscriber());
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-event-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, batchWindow, batchWindow, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::reportLag, lagReportInterval, lagReportInterval, TimeUnit.MILLISECONDS);
+
+        logger.info("Cluster event bus started on node {} (batch window {} ms, max batch {})",
+                   nodeId, batchWindow, maxBatchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flush();
+        synchronized (pending) {
+            if (!pending.isEmpty()) {
+                dropped.addAndGet(pending.size());
+                logger.warn("Stopping with {} cluster events unpublished", pending.size());
+                pending.clear();
+            }
+        }
+        try {
+            topic.removeMessageListener(listenerId);
+        } catch (Exception e) {
+            logger.debug("Error removing cluster event listener: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Queue an event for the next batch; never blocks the caller
+     */
+    public void publish(ClusterEvent event) {
+        synchronized (pending) {
+            String coalesceKey = event.coalesceKey();
+            if (coalesceKey != null && pending.remove(coalesceKey) != null) {
+                coalesced.incrementAndGet();
+            } else if (pending.size() >= maxPending) {
+                dropped.incrementAndGet();
+                logger.warn("Cluster event buffer full ({} events), dropping {}", maxPending, event.eventType());
+                return;
+            }
+            pending.put(coalesceKey != null ? coalesceKey : pendingSequence.incrementAndGet(), event);
+        }
+        published.incrementAndGet();
+    }
+
+    /**
+     * Handle every event of the given type delivered to this node, including its own
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends ClusterEvent> void subscribe(Class<E> type, Consumer<? super E> handler) {
+        handlers.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>())
+            .add(event -> handler.accept((E) event));
+    }
+
+    /**
+     * Publisher and subscriber statistics of this node
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("published", published.get());
+        status.put("coalesced", coalesced.get());
+        status.put("dropped", dropped.get());
+        synchronized (pending) {
+            status.put("pending", pending.size());
+        }
+        status.put("batchesPublished", batchesPublished.get());
+        status.put("batchesReceived", batchesReceived.get());
+        status.put("eventsReceived", eventsReceived.get());
+        status.put("batchesLost", batchesLost.get());
+        status.put("handlerFailures", handlerFailures.get());
+        status.put("lastSequence", lastSequence);
+        status.put("lag", getLag());
+        status.put("lastDeliveryMs", lastDeliveryMillis);
+        status.put("maxDeliveryMs", maxDeliveryMillis);
+        Map<String, Long> byType = new TreeMap<>();
+        receivedByType.forEach((type, count) -> byType.put(type, count.get()));
+        status.put("receivedByType", byType);
+        return status;
+    }
+
+    /**
+     * Batches published to the topic that this node has not read yet
+     */
+    public long getLag() {
+        try {
+            Ringbuffer<Object> ringbuffer = hazelcastInstance.getRingbuffer(ClusterConstants.CLUSTER_EVENTS_RINGBUFFER);
+            return Math.max(0, ringbuffer.tailSequence() - lastSequence);
+        } catch (Exception e) {
+            logger.debug("Failed to read cluster event topic tail: {}", e.getMessage());
+            return -1;
+        }
+    }
+
+    private void flush() {
+        List<ClusterEvent> events = null;
+        try {
+            while (true) {
+                synchronized (pending) {
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                    events = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+                    var iterator = pending.values().iterator();
+                    while (iterator.hasNext() && events.size() < maxBatchSize) {
+                        events.add(iterator.next());
+                        iterator.remove();
+                    }
+                }
+
+                // Waiting for the publish keeps one batch in flight; a full topic blocks here
+                topic.publishAsync(new ClusterEvent.Batch(nodeId, System.currentTimeMillis(), events))
+                    .toCompletableFuture()
+                    .get();
+                events = null;
+                batchesPublished.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            requeue(events);
+        } catch (Exception e) {
+            logger.error("Failed to publish {} cluster events, retrying on the next flush: {}",
+                        events != null ? events.size() : 0, e.getMessage());
+            requeue(events);
+        }
+    }
+
+    /**
+     * Put an unpublished batch back ahead of the events queued meanwhile. An event whose
+     * key was published again while the batch was out is superseded by the newer one,
+     * and what no longer fits the buffer is counted as dropped.
+     */
+    private void requeue(List<ClusterEvent> events) {
+        if (events == null) {
+            return;
+        }
+        synchronized (pending) {
+            Map<Object, ClusterEvent> requeued = new LinkedHashMap<>();
+            for (ClusterEvent event : events) {
+                String coalesceKey = event.coalesceKey();
+                if (coalesceKey != null && pending.containsKey(coalesceKey)) {
+                    coalesced.incrementAndGet();
+                } else if (requeued.size() + pending.size() >= maxPending) {
+                    dropped.incrementAndGet();
+                } else {
+                    requeued.put(coalesceKey != null ? coalesceKey : pendingSequence.incrementAndGet(), event);
+                }
+            }
+            requeued.putAll(pending);
+            pending.clear();
+            pending.putAll(requeued);
+        }
+    }
+
+    private void reportLag() {
+        long lag = getLag();
+        if (lag < 0) {
+            return;
+        }
+        try {
+            hazelcastInstance.getMap(ClusterConstants.CLUSTER_METRICS_MAP).set(nodeId + ":" + LAG_METRIC,
+                new MetricSample(nodeId, LAG_METRIC, lag, System.currentTimeMillis()));
+        } catch (Exception e) {
+            logger.debug("Failed to record cluster event lag: {}", e.getMessage());
+        }
+    }
+
+    private void dispatch(ClusterEvent.Batch batch) {
+        batchesReceived.incrementAndGet();
+        long deliveryMillis = System.currentTimeMillis() - batch.publishedAt();
+        lastDeliveryMillis = deliveryMillis;
+        maxDeliveryMillis = Math.max(maxDeliveryMillis, deliveryMillis);
+
+        for (ClusterEvent event : batch.events()) {
+            eventsReceived.incrementAndGet();
+            receivedByType.computeIfAbsent(event.eventType(), type -> new AtomicLong()).incrementAndGet();
+            for (Consumer<ClusterEvent> handler : handlers.getOrDefault(event.getClass(), List.of())) {
+                try {
+                    handler.accept(event);
+                } catch (Exception e) {
+                    handlerFailures.incrementAndGet();
+                    logger.error("Cluster event handler failed for {} from {}", event.eventType(), event.sourceNode(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * This node's subscription; tolerates loss so a subscriber that falls behind the
+     * topic's capacity skips ahead instead of being cancelled, and counts what it skipped
+     */
+    private class Subscriber implements ReliableMessageListener<ClusterEvent.Batch> {
+
+        @Override
+        public long retrieveInitialSequence() {
+            return lastSequence + 1;
+        }
+
+        @Override
+        public void storeSequence(long sequence) {
+            long previous = lastSequence;
+            if (previous >= 0 && sequence > previous + 1) {
+                batchesLost.addAndGet(sequence - previous - 1);
+                logger.warn("Cluster event subscriber on node {} skipped {} batches", nodeId, sequence - previous - 1);
+            }
+            lastSequence = sequence;
+        }
+
+        @Override
+        public boolean isLossTolerant() {
+            return true;
+        }
+
+        @Override
+        public boolean isTerminal(Throwable failure) {
+            logger.error("Cluster event subscriber on node {} failed: {}", nodeId, failure.getMessage());
+            return false;
+        }
+
+        @Override
+        public void onMessage(Message<ClusterEvent.Batch> message) {
+            dispatch(message.getMessageObject());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.common.service;
+
+import com.example.common.model.MetricSample;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.aggregation.Aggregator;
+import com.hazelcast.aggregation.Aggregators;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.projection.Projections;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Queries over the cluster-metrics map that run on the owning partitions.
+ * Sums, maxima, per-node values and top-N are computed with Hazelcast aggregators,
+ * projections and paging predicates, so only results travel to the caller.
+ * The metricName and nodeId attributes are indexed (see ClusterConfig).
+ */
+@Service
+public class ClusterMetricsQuery {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMetricsQuery.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    /**
+     * Sum of a metric over all nodes
+     */
+    public double sum(String metricName) {
+        Double sum = metricsMap().aggregate(Aggregators.doubleSum("value"), byMetric(metricName));
+        return sum != null ? sum : 0.0;
+    }
+
+    /**
+     * Largest value of a metric over all nodes, or null if no node reported it
+     */
+    public Double max(String metricName) {
+        return metricsMap().aggregate(Aggregators.doubleMax("value"), byMetric(metricName));
+    }
+
+    /**
+     * Latest value of a metric per node
+     */
+    public Map<String, Double> latestByNode(String metricName) {
+        Collection<Object[]> rows = metricsMap().project(
+            Projections.multiAttribute("nodeId", "value"), byMetric(metricName));
+        Map<String, Double> values = new TreeMap<>();
+        for (Object[] row : rows) {
+            values.put((String) row[0], ((Number) row[1]).doubleValue());
+        }
+        return values;
+    }
+
+    /**
+     * The nodes with the highest values of a metric, highest first
+     */
+    public List<MetricSample> top(String metricName, int limit) {
+        PagingPredicate<String, Object> page = Predicates.pagingPredicate(
+            byMetric(metricName), new ByValueDescending(), limit);
+        List<MetricSample> samples = new ArrayList<>();
+        for (Object value : metricsMap().values(page)) {
+            MetricSample sample = MetricSample.from(value);
+            if (sample != null) {
+                samples.add(sample);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * All metrics of one node as metricName -> value
+     */
+    public Map<String, Double> nodeMetrics(String nodeId) {
+        Collection<Object[]> rows = metricsMap().project(
+            Projections.multiAttribute("metricName", "value"), Predicates.equal("nodeId", nodeId));
+        Map<String, Double> values = new TreeMap<>();
+        for (Object[] row : rows) {
+            values.put((String) row[0], ((Number) row[1]).doubleValue());
+        }
+        return values;
+    }
+
+    /**
+     * Largest value of each metric named prefix + suffix over all nodes, as suffix -> value
+     */
+    public Map<String, Double> maxByNameSuffix(String prefix) {
+        Collection<Object[]> rows = metricsMap().project(
+            Projections.multiAttribute("metricName", "value"), Predicates.like("metricName", prefix + "%"));
+        Map<String, Double> values = new TreeMap<>();
+        for (Object[] row : rows) {
+            values.merge(((String) row[0]).substring(prefix.length()), ((Number) row[1]).doubleValue(), Math::max);
+        }
+        return values;
+    }
+
+    /**
+     * Per-metric statistics (nodes, sum, min, max, latest timestamp) in a single
+     * partition-side pass over the map
+     */
+    public Map<String, Map<String, Object>> summarize() {
+        try {
+            Map<String, MetricStats> stats = metricsMap().aggregate(new MetricStatsAggregator());
+            Map<String, Map<String, Object>> summary = new TreeMap<>();
+            stats.forEach((metricName, metricStats) -> summary.put(metricName, metricStats.toMap()));
+            return summary;
+        } catch (Exception e) {
+            logger.error("Failed to summarize cluster metrics: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private Predicate<String, Object> byMetric(String metricName) {
+        return Predicates.equal("metricName", metricName);
+    }
+
+    private IMap<String, Object> metricsMap() {
+        return hazelcastInstance.getMap(ClusterConstants.CLUSTER_METRICS_MAP);
+    }
+
+    /**
+     * Orders metric entries by value, highest first; runs on the members
+     */
+    static class ByValueDescending implements Comparator<Map.Entry<String, Object>>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int compare(Map.Entry<String, Object> first, Map.Entry<String, Object> second) {
+            return Double.compare(value(second), value(first));
+        }
+
+        private double value(Map.Entry<String, Object> entry) {
+            MetricSample sample = MetricSample.from(entry.getValue());
+            return sample != null ? sample.value() : Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Running statistics of one metric
+     */
+    static class MetricStats implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private long nodes;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private long latestTimestamp;
+
+        void add(MetricSample sample) {
+            nodes++;
+            sum += sample.value();
+            min = Math.min(min, sample.value());
+            max = Math.max(max, sample.value());
+            latestTimestamp = Math.max(latestTimestamp, sample.timestamp());
+        }
+
+        void merge(MetricStats other) {
+            nodes += other.nodes;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            latestTimestamp = Math.max(latestTimestamp, other.latestTimestamp);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("nodes", nodes);
+            map.put("sum", sum);
+            map.put("min", min);
+            map.put("max", max);
+            map.put("latestTimestamp", latestTimestamp);
+            return map;
+        }
+    }
+
+    /**
+     * Groups samples by metric name on each partition and merges the groups
+     */
+    static class MetricStatsAggregator implements Aggregator<Map.Entry<String, Object>, Map<String, MetricStats>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, MetricStats> stats = new HashMap<>();
+
+        @Override
+        public void accumulate(Map.Entry<String, Object> entry) {
+            MetricSample sample = MetricSample.from(entry.getValue());
+            if (sample != null) {
+                stats.computeIfAbsent(sample.metricName(), name -> new MetricStats()).add(sample);
+            }
+        }
+
+        @Override
+        public void combine(Aggregator aggregator) {
+            MetricStatsAggregator other = (MetricStatsAggregator) aggregator;
+            other.stats.forEach((metricName, otherStats) ->
+                stats.computeIfAbsent(metricName, name -> new MetricStats()).merge(otherStats));
+        }
+
+        @Override
+        public Map<String, MetricStats> aggregate() {
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.common.service;
+
+import com.example.common.model.RateLimitBucket;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.map.IMap;
+import org.apache.camel.Processor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster-wide rate limits on token buckets in the rate-limit-buckets map.
+ * A node does not go to the bucket for every permit: it leases a batch, a fraction of
+ * a second's worth, and hands it out locally until it runs out or the lease expires.
+ * Expired permits are dropped rather than returned, so the cluster errs below the
+ * limit, never above it by more than one lease per node. A limit is seeded from
+ * cluster.rate-limit.limits.&lt;name&gt; when its bucket is created and can be changed at
+ * runtime with setLimit; nodes pick the change up with their next lease. Unlimited
+ * buckets are rechecked once per lease period. If the bucket cannot be reached the
+ * limiter lets work through rather than stall the node.
+ */
+@Service
+public class ClusterRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterRateLimiter.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${cluster.node.id:unknown}")
+    private String nodeId;
+
+    // Share of the per-second limit a node leases at a time
+    @Value("${cluster.rate-limit.lease-fraction:0.1}")
+    private double leaseFraction;
+
+    // How long leased permits stay usable
+    @Value("${cluster.rate-limit.lease-ttl:1000}")
+    private long leaseTtl;
+
+    // Seconds of permits a bucket can save up while idle
+    @Value("${cluster.rate-limit.burst-seconds:1.0}")
+    private double burstSeconds;
+
+    private final Map<String, LocalLease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * Camel step that takes one permit per exchange, or one per order of a batched envelope.
+     * An exchange interrupted while waiting fails, rather than going on without its permits.
+     */
+    public Processor throttle(String name) {
+        return exchange -> {
+            Integer batchSize = exchange.getIn().getHeader(ClusterConstants.ORDER_BATCH_SIZE_HEADER, Integer.class);
+            try {
+                acquire(name, batchSize != null && batchSize > 0 ? batchSize : 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Block until the permits are granted
+     *
+     * @throws InterruptedException if interrupted while waiting; no permits are taken then
+     */
+    public void acquire(String name, int permits) throws InterruptedException {
+        LocalLease lease = leases.computeIfAbsent(name, LocalLease::new);
+        long waitStartNanos = 0;
+        while (true) {
+            long waitMillis;
+            synchronized (lease) {
+                long now = System.currentTimeMillis();
+                if (now >= lease.expiresAt) {
+                    lease.permits = 0;
+                }
+                if (now < lease.expiresAt && (lease.unlimited || lease.permits >= permits)) {
+                    if (!lease.unlimited) {
+                        lease.permits -= permits;
+                    }
+                    lease.acquired.addAndGet(permits);
+                    break;
+                }
+                waitMillis = renew(lease, permits, now);
+                if (waitMillis <= 0) {
+                    continue;
+                }
+            }
+            if (waitStartNanos == 0) {
+                waitStartNanos = System.nanoTime();
+            }
+            Thread.sleep(waitMillis);
+        }
+        if (waitStartNanos != 0) {
+            lease.throttled.incrementAndGet();
+            lease.throttledNanos.addAndGet(System.nanoTime() - waitStartNanos);
+        }
+    }
+
+    /**
+     * Set the cluster-wide limit; 0 or less removes it
+     */
+    public RateLimitBucket setLimit(String name, double permitsPerSecond) {
+        RateLimitBucket bucket = buckets().executeOnKey(name, new LimitUpdate(name, permitsPerSecond, burstSeconds));
+        logger.info("Rate limit {} set to {} permits/s by node {}", name,
+                   permitsPerSecond > 0 ? permitsPerSecond : "unlimited", nodeId);
+        return bucket;
+    }
+
+    /**
+     * Every bucket in the cluster, refilled to now
+     */
+    public List<RateLimitBucket> getBuckets() {
+        long now = System.currentTimeMillis();
+        List<RateLimitBucket> result = new ArrayList<>();
+        for (RateLimitBucket bucket : buckets().values()) {
+            result.add(bucket.refill(now));
+        }
+        result.sort(Comparator.comparing(RateLimitBucket::name));
+        return result;
+    }
+
+    /**
+     * This node's use of each limiter
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        leases.forEach((name, lease) -> {
+            Map<String, Object> limiter = new LinkedHashMap<>();
+            synchronized (lease) {
+                limiter.put("permitsPerSecond", lease.unlimited ? "unlimited" : lease.permitsPerSecond);
+                limiter.put("leasedPermits", lease.permits);
+            }
+            limiter.put("acquired", lease.acquired.get());
+            limiter.put("leases", lease.leases.get());
+            limiter.put("throttled", lease.throttled.get());
+            limiter.put("throttledMs", lease.throttledNanos.get() / 1_000_000);
+            limiter.put("bucketFailures", lease.failures.get());
+            status.put(name, limiter);
+        });
+        return status;
+    }
+
+    /**
+     * Lease a new batch from the bucket
+     *
+     * @return how long to wait before asking again, 0 if the lease can be used now
+     */
+    private long renew(LocalLease lease, int permits, long now) {
+        long request = Math.max(permits, Math.round(lease.permitsPerSecond * leaseFraction));
+        Grant grant;
+        try {
+            grant = buckets().executeOnKey(lease.name,
+                new LeaseProcessor(lease.name, request, defaultLimit(lease.name), burstSeconds));
+        } catch (Exception e) {
+            lease.failures.incrementAndGet();
+            logger.warn("Rate limit bucket {} unavailable, not limiting for {} ms: {}", lease.name, leaseTtl, e.getMessage());
+            lease.unlimited = true;
+            lease.expiresAt = now + leaseTtl;
+            return 0;
+        }
+
+        lease.leases.incrementAndGet();
+        lease.permitsPerSecond = grant.permitsPerSecond();
+        lease.unlimited = grant.unlimited();
+        if (lease.unlimited || grant.granted() > 0) {
+            lease.permits += grant.granted();
+            lease.expiresAt = now + leaseTtl;
+            return 0;
+        }
+        return Math.max(1, grant.waitMillis());
+    }
+
+    private double defaultLimit(String name) {
+        return environment.getProperty("cluster.rate-limit.limits." + name, Double.class, 0.0);
+    }
+
+    private IMap<String, RateLimitBucket> buckets() {
+        return hazelcastInstance.getMap(ClusterConstants.RATE_LIMIT_BUCKETS_MAP);
+    }
+
+    /**
+     * Permits this node holds for one limiter; guarded by its own monitor
+     */
+    private static class LocalLease {
+
+        private final String name;
+        private final AtomicLong acquired = new AtomicLong(0);
+        private final AtomicLong leases = new AtomicLong(0);
+        private final AtomicLong throttled = new AtomicLong(0);
+        private final AtomicLong throttledNanos = new AtomicLong(0);
+        private final AtomicLong failures = new AtomicLong(0);
+        private long permits;
+        private long expiresAt;
+        private boolean unlimited;
+        private double permitsPerSecond;
+
+        LocalLease(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Outcome of a lease: the permits granted, or how long until the bucket can grant them
+     */
+    public record Grant(long granted, double permitsPerSecond, long waitMillis) implements Serializable {
+
+        public boolean unlimited() {
+            return permitsPerSecond <= 0;
+        }
+    }
+
+    /**
+     * Refills the bucket and grants the whole request once the balance covers it, up to
+     * the capacity, so requests above the capacity go through and leave a debt. Creates
+     * the bucket with the caller's default limit if it does not exist yet.
+     */
+    static class LeaseProcessor implements EntryProcessor<String, RateLimitBucket, Grant> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final long requested;
+        private final double defaultPermitsPerSecond;
+        private final double burstSeconds;
+
+        LeaseProcessor(String name, long requested, double defaultPermitsPerSecond, double burstSeconds) {
+            this.name = name;
+            this.requested = requested;
+            this.defaultPermitsPerSecond = defaultPermitsPerSecond;
+            this.burstSeconds = burstSeconds;
+        }
+
+        @Override
+        public Grant process(Map.Entry<String, RateLimitBucket> entry) {
+            long now = System.currentTimeMillis();
+            RateLimitBucket bucket = entry.getValue() != null
+                ? entry.getValue().refill(now)
+                : RateLimitBucket.create(name, defaultPermitsPerSecond, burstSeconds, now);
+
+            if (bucket.isUnlimited()) {
+                if (entry.getValue() == null) {
+                    entry.setValue(bucket);
+                }
+                return new Grant(0, bucket.permitsPerSecond(), 0);
+            }
+
+            double needed = Math.min(requested, bucket.capacity());
+            if (bucket.tokens() < needed) {
+                entry.setValue(bucket);
+                long waitMillis = (long) Math.ceil((needed - bucket.tokens()) * 1000.0 / bucket.permitsPerSecond());
+                return new Grant(0, bucket.permitsPerSecond(), waitMillis);
+            }
+            entry.setValue(bucket.lease(requested));
+            return new Grant(requested, bucket.permitsPerSecond(), 0);
+        }
+    }
+
+    /**
+     * Changes the limit of a bucket, creating it if needed
+     */
+    static class LimitUpdate implements EntryProcessor<String, RateLimitBucket, RateLimitBucket> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final double permitsPerSecond;
+        private final double burstSeconds;
+
+        LimitUpdate(String name, double permitsPerSecond, double burstSeconds) {
+            this.name = name;
+            this.permitsPerSecond = permitsPerSecond;
+            this.burstSeconds = burstSeconds;
+        }
+
+        @Override
+        public RateLimitBucket process(Map.Entry<String, RateLimitBucket> entry) {
+            long now = System.currentTimeMillis();
+            RateLimitBucket updated = entry.getValue() != null
+                ? entry.getValue().refill(now).withLimit(permitsPerSecond, burstSeconds, now)
+                : RateLimitBucket.create(name, permitsPerSecond, burstSeconds, now);
+            entry.setValue(updated);
+            return updated;
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.example.common.service;
 
+import com.example.common.model.MetricSample;
+import com.example.common.model.NodeStatus;
 import com.example.common.util.ClusterConstants;
+import com.hazelcast.core.ConsistencyLostException;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.crdt.pncounter.PNCounter;
 import com.hazelcast.map.IMap;
+import com.hazelcast.map.QueryCache;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,8 +16,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Service providing cluster operations and utilities.
@@ -31,6 +41,45 @@ public class ClusterService {
     @Value("${cluster.node.type:unknown}")
     private String nodeType;
 
+    @Autowired
+    private LeaderElection leaderElection;
+
+    @Autowired
+    private HazelcastFootprint hazelcastFootprint;
+
+    @Autowired
+    private ClusterStartup clusterStartup;
+
+    private volatile QueryCache<String, Object> nodeStatusView;
+
+    @PostConstruct
+    public void initialize() {
+        clusterStartup.onJoined("legacy-record-migration", this::migrateLegacyRecords);
+    }
+
+    /**
+     * Convert entries left in the pre-Compact format so field queries work on every entry
+     */
+    public void migrateLegacyRecords() {
+        try {
+            IMap<String, Object> nodeStatusMap = hazelcastInstance.getMap(ClusterConstants.NODE_STATUS_MAP);
+            IMap<String, Object> metricsMap = hazelcastInstance.getMap(ClusterConstants.CLUSTER_METRICS_MAP);
+            long nodeStatuses = countMigrated(nodeStatusMap.executeOnEntries(
+                new LegacyRecordMigrator(LegacyRecordMigrator.RecordType.NODE_STATUS)));
+            long metrics = countMigrated(metricsMap.executeOnEntries(
+                new LegacyRecordMigrator(LegacyRecordMigrator.RecordType.METRIC_SAMPLE)));
+            if (nodeStatuses > 0 || metrics > 0) {
+                logger.info("Migrated {} node statuses and {} metrics to Compact records", nodeStatuses, metrics);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to migrate legacy cluster records: {}", e.getMessage());
+        }
+    }
+
+    private long countMigrated(Map<String, Boolean> results) {
+        return results.values().stream().filter(Boolean.TRUE::equals).count();
+    }
+
     /**
      * Update node status in the cluster
      */
@@ -38,14 +87,12 @@ public class ClusterService {
         try {
             IMap<String, Object> nodeStatusMap = hazelcastInstance.getMap(ClusterConstants.NODE_STATUS_MAP);
             
-            Map<String, Object> nodeStatus = Map.of(
-                "nodeId", nodeId,
-                "nodeType", nodeType,
-                "status", status,
-                "lastUpdate", LocalDateTime.now().toString(),
-                "clusterSize", getClusterSize(),
-                "additionalInfo", additionalInfo != null ? additionalInfo : Map.of()
-            );
+            Map<String, String> details = new LinkedHashMap<>();
+            if (additionalInfo != null) {
+                additionalInfo.forEach((key, value) -> details.put(key, String.valueOf(value)));
+            }
+            NodeStatus nodeStatus = new NodeStatus(nodeId, nodeType, status,
+                System.currentTimeMillis(), getClusterSize(), details);
             
             nodeStatusMap.put(nodeId, nodeStatus);
             logger.debug("Updated node status for {}: {}", nodeId, status);
@@ -56,42 +103,18 @@ public class ClusterService {
     }
 
     /**
-     * Check if current node is the cluster leader (enhanced for multiple coordinators)
+     * Check if current node is the cluster leader.
+     * Backed by the leader lease, so this is a local read.
      */
     public boolean isLeader() {
-        if (!ClusterConstants.NODE_TYPE_COORDINATOR.equals(nodeType)) {
-            return false; // Only coordinators can be leaders
-        }
-        
-        try {
-            // For multiple coordinators, use a simple leader election:
-            // The coordinator with the lowest node ID becomes the leader
-            IMap<String, Object> nodeStatusMap = hazelcastInstance.getMap(ClusterConstants.NODE_STATUS_MAP);
-            
-            // Find all active coordinator nodes
-            String earliestCoordinator = nodeStatusMap.entrySet().stream()
-                .filter(entry -> {
-                    Object nodeStatus = entry.getValue();
-                    if (nodeStatus instanceof Map) {
-                        Map<String, Object> status = (Map<String, Object>) nodeStatus;
-                        return ClusterConstants.NODE_TYPE_COORDINATOR.equals(status.get("nodeType"));
-                    }
-                    return false;
-                })
-                .map(Map.Entry::getKey)
-                .sorted() // Lexicographic sort - coordinator-1 comes before coordinator-2
-                .findFirst()
-                .orElse(nodeId);
-                
-            boolean isLeader = nodeId.equals(earliestCoordinator);
-            logger.trace("Leadership check: {} is leader: {} (earliest coordinator: {})", 
-                        nodeId, isLeader, earliestCoordinator);
-            return isLeader;
-            
-        } catch (Exception e) {
-            logger.warn("Failed to determine leadership, defaulting to false: {}", e.getMessage());
-            return false;
-        }
+        return leaderElection.isLeader();
+    }
+
+    /**
+     * Node ID of the current leader, or null while no coordinator holds the lease
+     */
+    public String getLeaderNodeId() {
+        return leaderElection.getLeaderNodeId();
     }
 
     /**
@@ -124,19 +147,12 @@ public class ClusterService {
     /**
      * Store a metric in the cluster metrics map
      */
-    public void storeMetric(String metricName, Object value) {
+    public void storeMetric(String metricName, double value) {
         try {
             IMap<String, Object> metricsMap = hazelcastInstance.getMap(ClusterConstants.CLUSTER_METRICS_MAP);
             String key = nodeId + ":" + metricName;
             
-            Map<String, Object> metric = Map.of(
-                "nodeId", nodeId,
-                "metricName", metricName,
-                "value", value,
-                "timestamp", LocalDateTime.now().toString()
-            );
-            
-            metricsMap.put(key, metric);
+            metricsMap.put(key, new MetricSample(nodeId, metricName, value, System.currentTimeMillis()));
             logger.trace("Stored metric {}: {}", key, value);
             
         } catch (Exception e) {
@@ -144,24 +160,67 @@ public class ClusterService {
         }
     }
 
+    /**
+     * Add to a cluster-wide counter. Counters are PNCounters, so concurrent updates from
+     * different nodes merge without read-modify-write races, and unlike the metrics map
+     * the totals never expire.
+     */
+    public void incrementCounter(String counterName, long delta) {
+        try {
+            counter(counterName).addAndGet(delta);
+        } catch (Exception e) {
+            logger.error("Failed to add {} to counter {}: {}", delta, counterName, e.getMessage());
+        }
+    }
+
+    /**
+     * Current cluster-wide total of a counter
+     */
+    public long getCounter(String counterName) {
+        PNCounter counter = counter(counterName);
+        try {
+            return counter.get();
+        } catch (ConsistencyLostException e) {
+            // The replica this node last talked to has left; read from any other
+            counter.reset();
+            return counter.get();
+        }
+    }
+
+    /**
+     * All known cluster-wide counters by name; counters nothing has added to yet read 0
+     */
+    public Map<String, Long> getCounters() {
+        Map<String, Long> counters = new TreeMap<>();
+        for (String counterName : ClusterConstants.COUNTERS) {
+            try {
+                counters.put(counterName, getCounter(counterName));
+            } catch (Exception e) {
+                logger.warn("Failed to read counter {}: {}", counterName, e.getMessage());
+            }
+        }
+        return counters;
+    }
+
+    private PNCounter counter(String counterName) {
+        return hazelcastInstance.getPNCounter(ClusterConstants.COUNTER_PREFIX + counterName);
+    }
+
     /**
      * Get cluster-wide status information
      */
     public Map<String, Object> getClusterStatus() {
         try {
-            IMap<String, Object> nodeStatusMap = hazelcastInstance.getMap(ClusterConstants.NODE_STATUS_MAP);
-            
             return Map.of(
                 "currentNode", nodeId,
                 "nodeType", nodeType,
                 "isLeader", isLeader(),
+                "leaderNode", Objects.requireNonNullElse(getLeaderNodeId(), "none"),
                 "clusterSize", getClusterSize(),
                 "clusterMembers", getClusterMembers(),
-                "allNodeStatuses", nodeStatusMap.entrySet().stream()
-                        .collect(java.util.stream.Collectors.toMap(
-                                Map.Entry::getKey,
-                                Map.Entry::getValue
-                        ))
+                "allNodeStatuses", getNodeStatuses(),
+                "hazelcast", hazelcastFootprint.getStatus(),
+                "startup", clusterStartup.getStatus()
             );
             
         } catch (Exception e) {
@@ -174,6 +233,34 @@ public class ClusterService {
         }
     }
 
+    /**
+     * All node statuses keyed by node ID; entries in the pre-Compact map format are converted.
+     * Reads the local continuous query cache, so no remote calls are made.
+     */
+    public Map<String, NodeStatus> getNodeStatuses() {
+        Map<String, NodeStatus> statuses = new HashMap<>();
+        for (Map.Entry<String, Object> entry : getNodeStatusView().entrySet()) {
+            NodeStatus nodeStatus = NodeStatus.from(entry.getValue());
+            if (nodeStatus != null) {
+                statuses.put(entry.getKey(), nodeStatus);
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Locally held, incrementally updated copy of the node-status map
+     */
+    public QueryCache<String, Object> getNodeStatusView() {
+        QueryCache<String, Object> view = nodeStatusView;
+        if (view == null) {
+            IMap<String, Object> nodeStatusMap = hazelcastInstance.getMap(ClusterConstants.NODE_STATUS_MAP);
+            view = nodeStatusMap.getQueryCache(ClusterConstants.NODE_STATUS_VIEW);
+            nodeStatusView = view;
+        }
+        return view;
+    }
+
     /**
      * Publish a message to a cluster topic
      */
@@ -191,8 +278,8 @@ public class ClusterService {
      */
     public void initializeNodeStatus() {
         updateNodeStatus("STARTING", Map.of("startTime", LocalDateTime.now().toString()));
-        logger.info("Initialized cluster node: {} (type: {}, port: {})", 
-                   nodeId, nodeType, hazelcastInstance.getConfig().getNetworkConfig().getPort());
+        logger.info("Initialized cluster node: {} (type: {}, endpoint: {})", 
+                   nodeId, nodeType, hazelcastInstance.getLocalEndpoint().getSocketAddress());
     }
 
     /**
@@ -221,4 +308,23 @@ public class ClusterService {
     public HazelcastInstance getHazelcastInstance() {
         return hazelcastInstance;
     }
+
+    /**
+     * Local application event fired when the cluster leader changes
+     */
+    public static class LeadershipChangedEvent {
+        private final String previousLeader;
+        private final String newLeader;
+        private final boolean localNodeLeader;
+
+        public LeadershipChangedEvent(String previousLeader, String newLeader, boolean localNodeLeader) {
+            this.previousLeader = previousLeader;
+            this.newLeader = newLeader;
+            this.localNodeLeader = localNodeLeader;
+        }
+
+        public String getPreviousLeader() { return previousLeader; }
+        public String getNewLeader() { return newLeader; }
+        public boolean isLocalNodeLeader() { return localNodeLeader; }
+    }
 } 
\ No newline at end of file
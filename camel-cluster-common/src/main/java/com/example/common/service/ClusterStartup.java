@@ -0,0 +1,211 @@
+package com.example.common.service;
+
+import com.example.common.config.ClusterConfig;
+import com.example.common.util.ClusterConstants;
+import jakarta.annotation.PostConstruct;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Startup sequence of a node.
+ * With the async Hazelcast startup mode the context, HTTP and actuator come up while the
+ * instance joins the cluster; work that needs the cluster registers here and runs, in
+ * registration order, once the instance has joined. Routes in the cluster route group are
+ * created stopped; once the context is ready and the node has joined, the steps
+ * registered to run before them (such as a warm-up) run, the routes start and a
+ * ClusterReadyEvent follows. Each phase is recorded in milliseconds since JVM start.
+ */
+@Service
+public class ClusterStartup {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterStartup.class);
+
+    public static final String PHASE_HTTP_STARTED = "http-started";
+    public static final String PHASE_CONTEXT_READY = "context-ready";
+    public static final String PHASE_HAZELCAST_JOINED = "hazelcast-joined";
+    public static final String PHASE_ROUTES_STARTED = "routes-started";
+    public static final String PHASE_CLUSTER_READY = "cluster-ready";
+
+    @Autowired
+    private ClusterConfig clusterConfig;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${cluster.node.id:unknown}")
+    private String nodeId;
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Long> actionMillis = new LinkedHashMap<>();
+    private final List<Map.Entry<String, Runnable>> pendingActions = new ArrayList<>();
+    private final List<Map.Entry<String, Runnable>> beforeRoutesStart = new ArrayList<>();
+    private boolean actionsReleased;
+    private CompletableFuture<Void> actionsDone;
+
+    @PostConstruct
+    public void initialize() {
+        actionsDone = clusterConfig.whenJoined().toCompletableFuture()
+            .whenComplete((instance, failure) -> {
+                if (failure != null) {
+                    logger.error("Node {} did not join the cluster, cluster work stays pending: {}", nodeId, failure.getMessage());
+                }
+            })
+            .thenRun(() -> {
+                recordPhase(PHASE_HAZELCAST_JOINED);
+                releaseActions();
+            });
+    }
+
+    /**
+     * Run the action once Hazelcast has joined the cluster; straight away if it already has
+     */
+    public void onJoined(String name, Runnable action) {
+        synchronized (pendingActions) {
+            if (!actionsReleased) {
+                pendingActions.add(Map.entry(name, action));
+                return;
+            }
+        }
+        runAction(name, action);
+    }
+
+    /**
+     * Run the step after the join and before the cluster routes start; register it during
+     * context startup
+     */
+    public void beforeRoutesStart(String name, Runnable step) {
+        synchronized (beforeRoutesStart) {
+            beforeRoutesStart.add(Map.entry(name, step));
+        }
+    }
+
+    public boolean isJoined() {
+        return clusterConfig.isJoined();
+    }
+
+    @EventListener(WebServerInitializedEvent.class)
+    public void onWebServerInitialized() {
+        recordPhase(PHASE_HTTP_STARTED);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        recordPhase(PHASE_CONTEXT_READY);
+        CamelContext camelContext = event.getApplicationContext().getBeanProvider(CamelContext.class).getIfAvailable();
+        actionsDone.thenRun(() -> clusterReady(camelContext));
+    }
+
+    /**
+     * Startup phases in ms since JVM start, the Hazelcast instance's own start time and the
+     * time each deferred action took
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("mode", clusterConfig.getStartupMode());
+        status.put("joined", isJoined());
+        status.put("hazelcastStartupMs", clusterConfig.getStartupMillis());
+        synchronized (phases) {
+            status.put("phases", new LinkedHashMap<>(phases));
+            status.put("actionsMs", new LinkedHashMap<>(actionMillis));
+        }
+        return status;
+    }
+
+    private void releaseActions() {
+        // Actions registered while earlier ones run are queued behind them, keeping the order
+        while (true) {
+            List<Map.Entry<String, Runnable>> actions;
+            synchronized (pendingActions) {
+                if (pendingActions.isEmpty()) {
+                    actionsReleased = true;
+                    return;
+                }
+                actions = new ArrayList<>(pendingActions);
+                pendingActions.clear();
+            }
+            actions.forEach(action -> runAction(action.getKey(), action.getValue()));
+        }
+    }
+
+    private void runAction(String name, Runnable action) {
+        long startNanos = System.nanoTime();
+        try {
+            action.run();
+        } catch (Exception e) {
+            logger.error("Startup action {} failed on node {}", name, nodeId, e);
+        }
+        synchronized (phases) {
+            actionMillis.put(name, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    private void clusterReady(CamelContext camelContext) {
+        List<Map.Entry<String, Runnable>> steps;
+        synchronized (beforeRoutesStart) {
+            steps = new ArrayList<>(beforeRoutesStart);
+        }
+        steps.forEach(step -> runAction(step.getKey(), step.getValue()));
+
+        if (camelContext != null) {
+            startClusterRoutes(camelContext);
+        }
+        recordPhase(PHASE_CLUSTER_READY);
+        eventPublisher.publishEvent(new ClusterReadyEvent(nodeId, uptimeMillis()));
+
+        synchronized (phases) {
+            logger.info("Node {} cluster ready ({} startup, hazelcast {} ms): {}",
+                       nodeId, clusterConfig.getStartupMode(), clusterConfig.getStartupMillis(), phases);
+        }
+    }
+
+    private void startClusterRoutes(CamelContext camelContext) {
+        int started = 0;
+        for (Route route : camelContext.getRoutes()) {
+            if (!ClusterConstants.CLUSTER_ROUTE_GROUP.equals(route.getGroup())) {
+                continue;
+            }
+            try {
+                if (camelContext.getRouteController().getRouteStatus(route.getRouteId()).isStartable()) {
+                    camelContext.getRouteController().startRoute(route.getRouteId());
+                    started++;
+                }
+            } catch (Exception e) {
+                logger.error("Failed to start route {} on node {}", route.getRouteId(), nodeId, e);
+            }
+        }
+        recordPhase(PHASE_ROUTES_STARTED);
+        logger.info("Started {} cluster routes on node {}", started, nodeId);
+    }
+
+    private void recordPhase(String phase) {
+        synchronized (phases) {
+            phases.putIfAbsent(phase, uptimeMillis());
+        }
+    }
+
+    private static long uptimeMillis() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * Published once Hazelcast has joined and the cluster routes have started
+     */
+    public record ClusterReadyEvent(String nodeId, long uptimeMillis) {
+    }
+}
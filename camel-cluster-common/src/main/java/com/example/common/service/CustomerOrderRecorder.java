@@ -0,0 +1,44 @@
+package com.example.common.service;
+
+import com.example.common.model.CustomerOrderStats;
+import com.hazelcast.map.EntryProcessor;
+
+import java.util.Map;
+
+/**
+ * Adds one order to a customer's totals in the customer-order-stats map, in place on
+ * the partition that owns the key, so the update is a single operation without a
+ * read-modify-write round-trip.
+ */
+public class CustomerOrderRecorder implements EntryProcessor<String, CustomerOrderStats, Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String customerName;
+    private final String orderId;
+    private final long quantity;
+    private final double amount;
+    private final long orderedAt;
+    private final String processedBy;
+
+    public CustomerOrderRecorder(String customerName, String orderId, long quantity, double amount,
+                                 long orderedAt, String processedBy) {
+        this.customerName = customerName;
+        this.orderId = orderId;
+        this.quantity = quantity;
+        this.amount = amount;
+        this.orderedAt = orderedAt;
+        this.processedBy = processedBy;
+    }
+
+    /**
+     * @return the customer's order count including this order
+     */
+    @Override
+    public Long process(Map.Entry<String, CustomerOrderStats> entry) {
+        CustomerOrderStats stats = entry.getValue() != null ? entry.getValue() : CustomerOrderStats.empty(customerName);
+        CustomerOrderStats updated = stats.add(orderId, quantity, amount, orderedAt, processedBy);
+        entry.setValue(updated);
+        return updated.orders();
+    }
+}
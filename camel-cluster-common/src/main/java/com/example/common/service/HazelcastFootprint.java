@@ -0,0 +1,110 @@
+package com.example.common.service;
+
+import com.example.common.config.ClusterConfig;
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.partition.MigrationListener;
+import com.hazelcast.partition.MigrationState;
+import com.hazelcast.partition.Partition;
+import com.hazelcast.partition.ReplicaMigrationEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What this node's Hazelcast role costs: instance startup time, heap in use, partitions
+ * owned and the partition migrations seen since startup. Used to compare member,
+ * lite-member and client roles during scale-out.
+ */
+@Service
+public class HazelcastFootprint {
+
+    private static final Logger logger = LoggerFactory.getLogger(HazelcastFootprint.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ClusterConfig clusterConfig;
+
+    @Autowired
+    private ClusterStartup clusterStartup;
+
+    private final AtomicLong migrationProcesses = new AtomicLong(0);
+    private final AtomicLong replicaMigrations = new AtomicLong(0);
+    private final AtomicLong failedReplicaMigrations = new AtomicLong(0);
+    private final AtomicLong migrationMillis = new AtomicLong(0);
+    private volatile MigrationState lastMigration;
+
+    @PostConstruct
+    public void initialize() {
+        if (!clusterConfig.isClient()) {
+            clusterStartup.onJoined("migration-listener", this::registerMigrationListener);
+        }
+    }
+
+    private void registerMigrationListener() {
+        hazelcastInstance.getPartitionService().addMigrationListener(new MigrationListener() {
+            @Override
+            public void migrationStarted(MigrationState state) {
+                logger.debug("Partition migration started: {} planned", state.getPlannedMigrations());
+            }
+
+            @Override
+            public void migrationFinished(MigrationState state) {
+                migrationProcesses.incrementAndGet();
+                migrationMillis.addAndGet(state.getTotalElapsedTime());
+                lastMigration = state;
+                logger.info("Partition migration finished: {}/{} migrations in {} ms",
+                           state.getCompletedMigrations(), state.getPlannedMigrations(), state.getTotalElapsedTime());
+            }
+
+            @Override
+            public void replicaMigrationCompleted(ReplicaMigrationEvent event) {
+                replicaMigrations.incrementAndGet();
+            }
+
+            @Override
+            public void replicaMigrationFailed(ReplicaMigrationEvent event) {
+                failedReplicaMigrations.incrementAndGet();
+            }
+        });
+    }
+
+    public Map<String, Object> getStatus() {
+        Runtime runtime = Runtime.getRuntime();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("role", clusterConfig.getRole());
+        status.put("startupMs", clusterConfig.getStartupMillis());
+        status.put("heapUsedMb", (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+
+        if (!clusterConfig.isClient() && clusterConfig.isJoined()) {
+            Member localMember = hazelcastInstance.getCluster().getLocalMember();
+            long owned = hazelcastInstance.getPartitionService().getPartitions().stream()
+                .map(Partition::getOwner)
+                .filter(localMember::equals)
+                .count();
+            status.put("ownedPartitions", owned);
+
+            Map<String, Object> migrations = new LinkedHashMap<>();
+            migrations.put("processes", migrationProcesses.get());
+            migrations.put("replicaMigrations", replicaMigrations.get());
+            migrations.put("failedReplicaMigrations", failedReplicaMigrations.get());
+            migrations.put("totalMs", migrationMillis.get());
+            MigrationState last = lastMigration;
+            if (last != null) {
+                migrations.put("lastPlanned", last.getPlannedMigrations());
+                migrations.put("lastCompleted", last.getCompletedMigrations());
+                migrations.put("lastMs", last.getTotalElapsedTime());
+            }
+            status.put("migrations", migrations);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,453 @@
+package com.example.common.service;
+
+import com.example.common.model.ClusterEvent;
+import com.example.common.model.LeaderLease;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.cluster.Member;
+import com.hazelcast.cluster.MembershipEvent;
+import com.hazelcast.cluster.MembershipListener;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.map.IMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lease-based leader election shared by every leader-only task.
+ * Coordinators compete for a single lease entry that is granted and renewed by an
+ * entry processor on the entry's partition owner. The lease carries a fencing token
+ * that increases on every change of holder. A holder keeps leadership only while its
+ * lease is renewed within the lease duration, and a lease whose holder has left the
+ * cluster can be taken over immediately. Stores that outlive the lease entry, such as
+ * the database fence, register a fencing token floor: a new holder lifts its token
+ * above it before acting as leader, so tokens never go back after the entry is lost.
+ */
+@Service
+public class LeaderElection {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderElection.class);
+
+    private static final String LEASE_KEY = ClusterConstants.NODE_TYPE_COORDINATOR;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ClusterEventBus eventBus;
+
+    @Autowired
+    private ClusterStartup clusterStartup;
+
+    @Value("${cluster.node.id:unknown}")
+    private String nodeId;
+
+    @Value("${cluster.node.type:unknown}")
+    private String nodeType;
+
+    @Value("${cluster.leader.lease-duration:3000}")
+    private long leaseDuration;
+
+    @Value("${cluster.leader.renew-interval:1000}")
+    private long renewInterval;
+
+    private final List<Runnable> leadershipListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong takeoverCount = new AtomicLong(0);
+    private volatile boolean leader;
+    private volatile long leaseDeadlineNanos;
+    private volatile LeaderLease currentLease;
+    private volatile long lastTakeoverMillis = -1;
+    private volatile long maxTakeoverMillis = -1;
+    private volatile LongSupplier fencingTokenFloor;
+    // Set while the token of the held lease has not been checked against the floor
+    private boolean floorPending;
+    private ScheduledExecutorService leaseScheduler;
+    private UUID membershipListenerId;
+
+    @PostConstruct
+    public void initialize() {
+        clusterStartup.onJoined("leader-election", this::start);
+    }
+
+    private void start() {
+        leaseScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leader-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leaseScheduler.scheduleWithFixedDelay(this::renewLease, 0, renewInterval, TimeUnit.MILLISECONDS);
+
+        // Re-run the election straight away when a member leaves rather than at the next renewal
+        membershipListenerId = hazelcastInstance.getCluster().addMembershipListener(new MembershipListener() {
+            @Override
+            public void memberAdded(MembershipEvent membershipEvent) {
+            }
+
+            @Override
+            public void memberRemoved(MembershipEvent membershipEvent) {
+                leaseScheduler.execute(LeaderElection.this::renewLease);
+            }
+        });
+
+        logger.info("Leader election started on node {} (candidate: {}, lease {} ms, renewal every {} ms)",
+                   nodeId, isCandidate(), leaseDuration, renewInterval);
+    }
+
+    /**
+     * Whether this node holds an unexpired lease. A volatile read plus a clock check.
+     */
+    public boolean isLeader() {
+        return leader && System.nanoTime() < leaseDeadlineNanos;
+    }
+
+    /**
+     * Node ID of the current lease holder, or null if nobody holds it
+     */
+    public String getLeaderNodeId() {
+        LeaderLease lease = currentLease;
+        return lease != null ? lease.getHolderNodeId() : null;
+    }
+
+    /**
+     * Fencing token of this node's lease, or -1 when it is not the leader
+     */
+    public long getFencingToken() {
+        LeaderLease lease = currentLease;
+        return isLeader() && lease != null ? lease.getFencingToken() : -1;
+    }
+
+    /**
+     * Check against the lease entry itself that the token is still current.
+     * This is an early check only: the lease can change right after it, so writes
+     * to shared stores must be fenced by the store itself, comparing the token in
+     * the same operation as the write. Tokens keep increasing while the lease entry
+     * or its backup survives; losing both, e.g. a crash before backups migrated to
+     * a member that just joined, restarts them at 1 unless a fencing token floor is set.
+     */
+    public void validateFencingToken(long fencingToken) {
+        LeaderLease lease = leaseMap().get(LEASE_KEY);
+        if (fencingToken < 0 || lease == null || lease.getFencingToken() != fencingToken) {
+            throw new IllegalStateException("Fencing token " + fencingToken + " of node " + nodeId +
+                    " is stale, current lease: " + lease);
+        }
+    }
+
+    /**
+     * Source of the highest fencing token already used outside the lease entry, e.g. a
+     * store's fence. A new lease holder takes a token above it before it leads
+     */
+    public void setFencingTokenFloor(LongSupplier fencingTokenFloor) {
+        this.fencingTokenFloor = fencingTokenFloor;
+    }
+
+    /**
+     * Register a callback run whenever the leader changes
+     */
+    public void addLeadershipListener(Runnable listener) {
+        leadershipListeners.add(listener);
+    }
+
+    public void removeLeadershipListener(Runnable listener) {
+        leadershipListeners.remove(listener);
+    }
+
+    private void renewLease() {
+        long requestStartNanos = System.nanoTime();
+        try {
+            LeaderLease lease;
+            if (isCandidate()) {
+                UUID localUuid = hazelcastInstance.getCluster().getLocalMember().getUuid();
+                lease = leaseMap().submitToKey(LEASE_KEY, new AcquireLeaseProcessor(nodeId, localUuid.toString(), leaseDuration))
+                    .toCompletableFuture()
+                    .get(leaseDuration, TimeUnit.MILLISECONDS);
+            } else {
+                lease = leaseMap().get(LEASE_KEY);
+            }
+
+            boolean holder = isCandidate() && lease != null &&
+                hazelcastInstance.getCluster().getLocalMember().getUuid().toString().equals(lease.getHolderMemberUuid());
+            if (holder && (!leader || floorPending)) {
+                lease = aboveFencingTokenFloor(lease);
+                holder = lease != null &&
+                    hazelcastInstance.getCluster().getLocalMember().getUuid().toString().equals(lease.getHolderMemberUuid());
+            }
+            if (holder) {
+                // The lease cannot have started before the request was sent
+                leaseDeadlineNanos = requestStartNanos + TimeUnit.MILLISECONDS.toNanos(leaseDuration);
+            }
+            updateLeadership(lease, holder);
+
+        } catch (Exception e) {
+            logger.warn("Leader lease renewal failed on node {}: {}", nodeId, e.getMessage());
+            if (leader && System.nanoTime() >= leaseDeadlineNanos) {
+                updateLeadership(null, false);
+            }
+        }
+    }
+
+    /**
+     * Lift a newly held lease's token above the fencing token floor. A lease entry lost
+     * with its backup, or a whole cluster restart, starts tokens again at 1 while the
+     * stores keep the highest token they saw. If the floor cannot be read the lease is
+     * kept, its writes are refused by the stores, and the next renewal tries again.
+     */
+    private LeaderLease aboveFencingTokenFloor(LeaderLease lease) {
+        LongSupplier floorSupplier = fencingTokenFloor;
+        floorPending = false;
+        if (floorSupplier == null) {
+            return lease;
+        }
+        long floor;
+        try {
+            floor = floorSupplier.getAsLong();
+        } catch (Exception e) {
+            floorPending = true;
+            logger.warn("Could not read the fencing token floor on node {}: {}", nodeId, e.getMessage());
+            return lease;
+        }
+        if (lease.getFencingToken() > floor) {
+            return lease;
+        }
+        try {
+            LeaderLease raised = leaseMap().submitToKey(LEASE_KEY, new RaiseFencingTokenProcessor(lease.getHolderMemberUuid(), floor + 1))
+                .toCompletableFuture()
+                .get(leaseDuration, TimeUnit.MILLISECONDS);
+            logger.info("Fencing token of node {} raised from {} to {} above the stored fence",
+                       nodeId, lease.getFencingToken(), raised != null ? raised.getFencingToken() : -1);
+            return raised;
+        } catch (Exception e) {
+            floorPending = true;
+            logger.warn("Could not raise the fencing token of node {} above {}: {}", nodeId, floor, e.getMessage());
+            return lease;
+        }
+    }
+
+    private void updateLeadership(LeaderLease lease, boolean holder) {
+        String previousLeader = getLeaderNodeId();
+        boolean wasLeader = leader;
+        currentLease = lease;
+        leader = holder;
+
+        String newLeader = getLeaderNodeId();
+        if (Objects.equals(previousLeader, newLeader) && wasLeader == holder) {
+            return;
+        }
+
+        if (holder && !wasLeader && lease.getTakeoverMillis() > 0) {
+            lastTakeoverMillis = lease.getTakeoverMillis();
+            maxTakeoverMillis = Math.max(maxTakeoverMillis, lastTakeoverMillis);
+            takeoverCount.incrementAndGet();
+        }
+        logger.info("Cluster leader changed from {} to {} (this node {} leader: {}, fencing token: {}{})",
+                   previousLeader, newLeader, nodeId, holder, lease != null ? lease.getFencingToken() : -1,
+                   holder && !wasLeader && lease.getTakeoverMillis() > 0
+                       ? ", takeover " + lease.getTakeoverMillis() + " ms" : "");
+
+        leadershipListeners.forEach(listener -> {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                logger.error("Leadership listener failed on node {}", nodeId, e);
+            }
+        });
+        eventPublisher.publishEvent(new ClusterService.LeadershipChangedEvent(previousLeader, newLeader, holder));
+
+        // Only the new leader announces the change so it is published once
+        if (holder && !wasLeader) {
+            publishLeaderChanged(previousLeader, lease);
+        }
+    }
+
+    private void publishLeaderChanged(String previousLeader, LeaderLease lease) {
+        eventBus.publish(new ClusterEvent.LeaderChanged(nodeId, System.currentTimeMillis(),
+            previousLeader != null ? previousLeader : "none", nodeId,
+            lease.getFencingToken(), lease.getTakeoverMillis()));
+    }
+
+    /**
+     * Lease state and takeover measurements for monitoring
+     */
+    public Map<String, Object> getStatus() {
+        LeaderLease lease = currentLease;
+        Map<String, Object> status = new HashMap<>();
+        status.put("nodeId", nodeId);
+        status.put("candidate", isCandidate());
+        status.put("isLeader", isLeader());
+        status.put("leaderNode", lease != null ? lease.getHolderNodeId() : "none");
+        status.put("fencingToken", lease != null ? lease.getFencingToken() : -1);
+        status.put("leaseAcquiredAt", lease != null ? lease.getAcquiredAt() : -1);
+        status.put("leaseExpiresAt", lease != null ? lease.getExpiresAt() : -1);
+        status.put("leaseDurationMs", leaseDuration);
+        status.put("renewIntervalMs", renewInterval);
+        status.put("takeovers", takeoverCount.get());
+        status.put("lastTakeoverMs", lastTakeoverMillis);
+        status.put("maxTakeoverMs", maxTakeoverMillis);
+        status.put("currentLeaseTakeoverMs", lease != null ? lease.getTakeoverMillis() : -1);
+        return status;
+    }
+
+    private boolean isCandidate() {
+        return ClusterConstants.NODE_TYPE_COORDINATOR.equals(nodeType);
+    }
+
+    private IMap<String, LeaderLease> leaseMap() {
+        return hazelcastInstance.getMap(ClusterConstants.LEADER_LEASE_MAP);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (leaseScheduler == null) {
+            return;
+        }
+        leaseScheduler.shutdownNow();
+        try {
+            if (membershipListenerId != null) {
+                hazelcastInstance.getCluster().removeMembershipListener(membershipListenerId);
+            }
+            // Expire our lease so a successor does not have to wait out the lease duration
+            if (isLeader()) {
+                leaseMap().executeOnKey(LEASE_KEY, new ReleaseLeaseProcessor(
+                    hazelcastInstance.getCluster().getLocalMember().getUuid().toString()));
+            }
+        } catch (Exception e) {
+            logger.debug("Error releasing leader lease: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Grants, renews or refuses the lease on the partition owner of the lease entry
+     */
+    static class AcquireLeaseProcessor implements EntryProcessor<String, LeaderLease, LeaderLease>, HazelcastInstanceAware {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String candidateNodeId;
+        private final String candidateMemberUuid;
+        private final long leaseDuration;
+        private transient HazelcastInstance hazelcastInstance;
+
+        AcquireLeaseProcessor(String candidateNodeId, String candidateMemberUuid, long leaseDuration) {
+            this.candidateNodeId = candidateNodeId;
+            this.candidateMemberUuid = candidateMemberUuid;
+            this.leaseDuration = leaseDuration;
+        }
+
+        @Override
+        public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+            this.hazelcastInstance = hazelcastInstance;
+        }
+
+        @Override
+        public LeaderLease process(Map.Entry<String, LeaderLease> entry) {
+            long now = System.currentTimeMillis();
+            LeaderLease current = entry.getValue();
+
+            if (current != null && candidateMemberUuid.equals(current.getHolderMemberUuid())) {
+                LeaderLease renewed = current.renew(now, leaseDuration);
+                entry.setValue(renewed);
+                return renewed;
+            }
+
+            if (current == null || current.getExpiresAt() <= now || !isMember(current.getHolderMemberUuid())) {
+                LeaderLease granted = new LeaderLease(candidateNodeId, candidateMemberUuid,
+                    current != null ? current.getFencingToken() + 1 : 1,
+                    now, now, now + leaseDuration,
+                    current != null ? now - current.getRenewedAt() : 0);
+                entry.setValue(granted);
+                return granted;
+            }
+
+            return current;
+        }
+
+        private boolean isMember(String memberUuid) {
+            if (hazelcastInstance == null) {
+                return true;
+            }
+            for (Member member : hazelcastInstance.getCluster().getMembers()) {
+                if (member.getUuid().toString().equals(memberUuid)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Raises the lease's fencing token to at least the given one if it is still held by
+     * the given member
+     */
+    static class RaiseFencingTokenProcessor implements EntryProcessor<String, LeaderLease, LeaderLease> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String holderMemberUuid;
+        private final long minFencingToken;
+
+        RaiseFencingTokenProcessor(String holderMemberUuid, long minFencingToken) {
+            this.holderMemberUuid = holderMemberUuid;
+            this.minFencingToken = minFencingToken;
+        }
+
+        @Override
+        public LeaderLease process(Map.Entry<String, LeaderLease> entry) {
+            LeaderLease current = entry.getValue();
+            if (current == null || !holderMemberUuid.equals(current.getHolderMemberUuid()) ||
+                current.getFencingToken() >= minFencingToken) {
+                return current;
+            }
+            LeaderLease raised = new LeaderLease(current.getHolderNodeId(), current.getHolderMemberUuid(),
+                minFencingToken, current.getAcquiredAt(), current.getRenewedAt(),
+                current.getExpiresAt(), current.getTakeoverMillis());
+            entry.setValue(raised);
+            return raised;
+        }
+    }
+
+    /**
+     * Expires the lease if it is still held by the given member
+     */
+    static class ReleaseLeaseProcessor implements EntryProcessor<String, LeaderLease, Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String holderMemberUuid;
+
+        ReleaseLeaseProcessor(String holderMemberUuid) {
+            this.holderMemberUuid = holderMemberUuid;
+        }
+
+        @Override
+        public Boolean process(Map.Entry<String, LeaderLease> entry) {
+            LeaderLease current = entry.getValue();
+            if (current == null || !holderMemberUuid.equals(current.getHolderMemberUuid())) {
+                return false;
+            }
+            entry.setValue(new LeaderLease(current.getHolderNodeId(), current.getHolderMemberUuid(),
+                current.getFencingToken(), current.getAcquiredAt(), current.getRenewedAt(),
+                System.currentTimeMillis(), current.getTakeoverMillis()));
+            return true;
+        }
+    }
+}
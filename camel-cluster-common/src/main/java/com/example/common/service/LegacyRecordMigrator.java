@@ -0,0 +1,45 @@
+package com.example.common.service;
+
+import com.example.common.model.MetricSample;
+import com.example.common.model.NodeStatus;
+import com.hazelcast.map.EntryProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Rewrites node-status and cluster-metrics entries written by earlier versions
+ * (Java-serialized maps and raw values) as Compact records, in place on the
+ * owning partitions. Entries that cannot be converted are left as they are and
+ * logged on the member that owns them, so nothing is lost to a failed conversion.
+ * Queries on record fields fail on untyped values, so this runs at startup.
+ */
+public class LegacyRecordMigrator implements EntryProcessor<String, Object, Boolean> {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = LoggerFactory.getLogger(LegacyRecordMigrator.class);
+
+    public enum RecordType { NODE_STATUS, METRIC_SAMPLE }
+
+    private final RecordType recordType;
+
+    public LegacyRecordMigrator(RecordType recordType) {
+        this.recordType = recordType;
+    }
+
+    @Override
+    public Boolean process(Map.Entry<String, Object> entry) {
+        Object value = entry.getValue();
+        if (value instanceof NodeStatus || value instanceof MetricSample) {
+            return false;
+        }
+        Object converted = recordType == RecordType.NODE_STATUS ? NodeStatus.from(value) : MetricSample.from(value);
+        if (converted == null) {
+            logger.warn("Leaving unconvertible {} entry {} in place: {}", recordType, entry.getKey(), value);
+            return false;
+        }
+        entry.setValue(converted);
+        return true;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.common.service;
+
+import com.example.common.model.MetricSample;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.cluster.Member;
+import com.hazelcast.cluster.MembershipEvent;
+import com.hazelcast.cluster.MembershipListener;
+import com.hazelcast.core.DistributedObject;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.ringbuffer.OverflowPolicy;
+import com.hazelcast.ringbuffer.ReadResultSet;
+import com.hazelcast.ringbuffer.Ringbuffer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Fixed-size metric history per node and metric.
+ * Registered metrics are sampled at a fixed interval into a Hazelcast Ringbuffer named
+ * metric-series:&lt;nodeId&gt;:&lt;metricName&gt;, which overwrites its oldest samples once
+ * full. Any node can read any series to compute rates, deltas and percentiles over a
+ * sliding window. The series of a node that leaves the cluster are destroyed, so
+ * departed and renamed nodes do not keep their ringbuffers for good.
+ */
+@Service
+public class MetricTimeSeries {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricTimeSeries.class);
+
+    private static final String RINGBUFFER_SERVICE = "hz:impl:ringbufferService";
+    private static final int MAX_READ_COUNT = 1000;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ClusterStartup clusterStartup;
+
+    @Value("${cluster.node.id:unknown}")
+    private String nodeId;
+
+    @Value("${cluster.metrics.series.interval:5000}")
+    private long sampleInterval;
+
+    private final Map<String, DoubleSupplier> sources = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sampler;
+    private volatile UUID membershipListenerId;
+
+    @PostConstruct
+    public void start() {
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metric-series-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sampleAll, sampleInterval, sampleInterval, TimeUnit.MILLISECONDS);
+
+        clusterStartup.onJoined("metric-series", this::watchMembership);
+    }
+
+    private void watchMembership() {
+        membershipListenerId = hazelcastInstance.getCluster().addMembershipListener(new MembershipListener() {
+            @Override
+            public void memberAdded(MembershipEvent membershipEvent) {
+            }
+
+            @Override
+            public void memberRemoved(MembershipEvent membershipEvent) {
+                String departedNodeId = membershipEvent.getMember().getAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_ID);
+                if (departedNodeId != null) {
+                    // Off the event thread; destroying is a cluster call per series
+                    sampler.execute(() -> destroySeries(departedNodeId));
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        sampler.shutdownNow();
+        if (membershipListenerId == null) {
+            return;
+        }
+        try {
+            hazelcastInstance.getCluster().removeMembershipListener(membershipListenerId);
+        } catch (Exception e) {
+            logger.debug("Error removing metric series membership listener: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sample a metric of this node every interval
+     */
+    public void register(String metricName, DoubleSupplier source) {
+        sources.put(metricName, source);
+        logger.info("Recording time series {} of node {} every {} ms", metricName, nodeId, sampleInterval);
+    }
+
+    /**
+     * Append one sample of this node's metric
+     */
+    public void record(String metricName, double value) {
+        MetricSample sample = new MetricSample(nodeId, metricName, value, System.currentTimeMillis());
+        ringbuffer(nodeId, metricName).addAsync(sample, OverflowPolicy.OVERWRITE);
+    }
+
+    /**
+     * Samples of the last windowMillis, oldest first
+     */
+    public List<MetricSample> window(String nodeId, String metricName, long windowMillis) {
+        List<MetricSample> samples = new ArrayList<>();
+        try {
+            Ringbuffer<MetricSample> ringbuffer = ringbuffer(nodeId, metricName);
+            long tail = ringbuffer.tailSequence();
+            if (tail < 0) {
+                return samples;
+            }
+
+            // Read only as many samples as the window can hold, plus one either side
+            int count = (int) Math.min(MAX_READ_COUNT, Math.min(ringbuffer.size(), windowMillis / sampleInterval + 2));
+            long start = Math.max(ringbuffer.headSequence(), tail - count + 1);
+            ReadResultSet<MetricSample> result = ringbuffer.readManyAsync(start, 0, count, null)
+                .toCompletableFuture().get(sampleInterval, TimeUnit.MILLISECONDS);
+
+            long since = System.currentTimeMillis() - windowMillis;
+            for (MetricSample sample : result) {
+                if (sample.timestamp() >= since) {
+                    samples.add(sample);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read time series {} of node {}: {}", metricName, nodeId, e.getMessage());
+        }
+        return samples;
+    }
+
+    /**
+     * Change of the latest value over the window (last minus first sample)
+     */
+    public double delta(String nodeId, String metricName, long windowMillis) {
+        List<MetricSample> samples = window(nodeId, metricName, windowMillis);
+        if (samples.size() < 2) {
+            return 0.0;
+        }
+        return samples.get(samples.size() - 1).value() - samples.get(0).value();
+    }
+
+    /**
+     * Per-second increase of a counter over the window. A drop in value is taken as a
+     * counter reset (node restart or metrics reset) and counts as an increase from zero.
+     */
+    public double rate(String nodeId, String metricName, long windowMillis) {
+        List<MetricSample> samples = window(nodeId, metricName, windowMillis);
+        if (samples.size() < 2) {
+            return 0.0;
+        }
+
+        double increase = 0.0;
+        for (int i = 1; i < samples.size(); i++) {
+            double previous = samples.get(i - 1).value();
+            double current = samples.get(i).value();
+            increase += current >= previous ? current - previous : current;
+        }
+        long elapsed = samples.get(samples.size() - 1).timestamp() - samples.get(0).timestamp();
+        return elapsed > 0 ? increase * 1000.0 / elapsed : 0.0;
+    }
+
+    /**
+     * Nearest-rank percentiles (0-100) of the sampled values over the window, keyed p50, p99, p999 ...
+     */
+    public Map<String, Double> percentiles(String nodeId, String metricName, long windowMillis, double... percentiles) {
+        double[] values = window(nodeId, metricName, windowMillis).stream()
+            .mapToDouble(MetricSample::value)
+            .sorted()
+            .toArray();
+
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (double percentile : percentiles) {
+            String name = "p" + BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString().replace(".", "");
+            if (values.length == 0) {
+                result.put(name, 0.0);
+            } else {
+                int rank = (int) Math.ceil(percentile / 100.0 * values.length);
+                result.put(name, values[Math.max(0, Math.min(values.length, rank) - 1)]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Nodes that have recorded a series for the metric
+     */
+    public Set<String> nodesWithSeries(String metricName) {
+        Set<String> nodes = new TreeSet<>();
+        String suffix = ":" + metricName;
+        for (DistributedObject object : hazelcastInstance.getDistributedObjects()) {
+            String name = object.getName();
+            if (RINGBUFFER_SERVICE.equals(object.getServiceName()) &&
+                name.startsWith(ClusterConstants.METRIC_SERIES_PREFIX) && name.endsWith(suffix)) {
+                nodes.add(name.substring(ClusterConstants.METRIC_SERIES_PREFIX.length(), name.length() - suffix.length()));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Rate of a counter metric per node and for the whole cluster over the window
+     */
+    public Map<String, Object> clusterRate(String metricName, long windowMillis) {
+        Map<String, Double> byNode = new LinkedHashMap<>();
+        for (String node : nodesWithSeries(metricName)) {
+            byNode.put(node, rate(node, metricName, windowMillis));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("windowMs", windowMillis);
+        result.put("perSecond", byNode.values().stream().mapToDouble(Double::doubleValue).sum());
+        result.put("byNode", byNode);
+        return result;
+    }
+
+    /**
+     * Destroy all series of a node that has left, unless it has already rejoined.
+     * Every member gets the removal event; destroying a series twice is harmless.
+     */
+    void destroySeries(String departedNodeId) {
+        for (Member member : hazelcastInstance.getCluster().getMembers()) {
+            if (departedNodeId.equals(member.getAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_ID))) {
+                return;
+            }
+        }
+        String prefix = ClusterConstants.METRIC_SERIES_PREFIX + departedNodeId + ":";
+        int destroyed = 0;
+        for (DistributedObject object : hazelcastInstance.getDistributedObjects()) {
+            if (RINGBUFFER_SERVICE.equals(object.getServiceName()) && object.getName().startsWith(prefix)) {
+                try {
+                    object.destroy();
+                    destroyed++;
+                } catch (Exception e) {
+                    logger.warn("Failed to destroy time series {}: {}", object.getName(), e.getMessage());
+                }
+            }
+        }
+        if (destroyed > 0) {
+            logger.info("Destroyed {} time series of departed node {}", destroyed, departedNodeId);
+        }
+    }
+
+    public Set<String> getRegisteredMetrics() {
+        return new TreeSet<>(sources.keySet());
+    }
+
+    public long getSampleInterval() {
+        return sampleInterval;
+    }
+
+    private void sampleAll() {
+        sources.forEach((metricName, source) -> {
+            try {
+                record(metricName, source.getAsDouble());
+            } catch (Exception e) {
+                logger.warn("Failed to sample time series {}: {}", metricName, e.getMessage());
+            }
+        });
+    }
+
+    private Ringbuffer<MetricSample> ringbuffer(String nodeId, String metricName) {
+        return hazelcastInstance.getRingbuffer(ClusterConstants.METRIC_SERIES_PREFIX + nodeId + ":" + metricName);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.common.service;
+
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application-level heartbeat of this node.
+ * Every interval the node writes its clock into the node-heartbeats map; coordinators
+ * listen to those writes and feed the arrival times into their failure detector.
+ */
+@Service
+public class NodeHeartbeat {
+
+    private static final Logger logger = LoggerFactory.getLogger(NodeHeartbeat.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Value("${cluster.node.id:unknown}")
+    private String nodeId;
+
+    @Value("${cluster.heartbeat.interval:1000}")
+    private long heartbeatInterval;
+
+    private ScheduledExecutorService heartbeatScheduler;
+
+    @PostConstruct
+    public void start() {
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "node-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatScheduler.scheduleAtFixedRate(this::beat, 0, heartbeatInterval, TimeUnit.MILLISECONDS);
+        logger.info("Node {} sending heartbeats every {} ms", nodeId, heartbeatInterval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeatScheduler.shutdownNow();
+    }
+
+    private void beat() {
+        try {
+            IMap<String, Long> heartbeats = hazelcastInstance.getMap(ClusterConstants.NODE_HEARTBEATS_MAP);
+            heartbeats.setAsync(nodeId, System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.debug("Failed to send heartbeat of node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public long getHeartbeatInterval() {
+        return heartbeatInterval;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.common.service;
+
+import com.example.common.model.OrderEvent;
+import com.example.common.model.OrderWindowStats;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.Util;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
+import com.hazelcast.jet.pipeline.JournalInitialPosition;
+import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.Sinks;
+import com.hazelcast.jet.pipeline.Sources;
+import com.hazelcast.jet.pipeline.StreamSource;
+import com.hazelcast.jet.pipeline.StreamStage;
+import com.hazelcast.jet.pipeline.WindowDefinition;
+import com.hazelcast.map.EventJournalMapEvent;
+import com.hazelcast.map.IMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming order statistics on the Hazelcast stream processing engine.
+ * Consumers put every processed order into the order-events map; the order-statistics
+ * job reads the map's event journal and, by the time each order was processed, aggregates order count,
+ * quantity, revenue, top products and top customers in one-minute tumbling windows and
+ * in a one-minute window sliding every few seconds. Results go to the order-stats map,
+ * so live dashboards read them without querying the database. Coordinators submit the
+ * job once they are ready; it is named, so only the first submission creates it, and it
+ * survives member failures by restarting from its last snapshot.
+ */
+@Service
+public class OrderStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatistics.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Value("${cluster.node.type:unknown}")
+    private String nodeType;
+
+    @Value("${cluster.order-stats.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cluster.order-stats.window:60000}")
+    private long windowMillis;
+
+    @Value("${cluster.order-stats.slide:10000}")
+    private long slideMillis;
+
+    // Entries in each top list
+    @Value("${cluster.order-stats.top:5}")
+    private int top;
+
+    // How late an order may arrive and still count in its window
+    @Value("${cluster.order-stats.allowed-lag:2000}")
+    private long allowedLag;
+
+    @Value("${cluster.order-stats.snapshot-interval:10000}")
+    private long snapshotInterval;
+
+    @EventListener(ClusterStartup.ClusterReadyEvent.class)
+    public void onClusterReady() {
+        if (enabled && ClusterConstants.NODE_TYPE_COORDINATOR.equalsIgnoreCase(nodeType)) {
+            submitJob();
+        }
+    }
+
+    /**
+     * Start the job unless it is already running in the cluster
+     */
+    public void submitJob() {
+        try {
+            JobConfig jobConfig = new JobConfig()
+                .setName(ClusterConstants.ORDER_STATS_JOB)
+                .setProcessingGuarantee(ProcessingGuarantee.AT_LEAST_ONCE)
+                .setSnapshotIntervalMillis(snapshotInterval);
+            Job job = hazelcastInstance.getJet().newJobIfAbsent(
+                buildPipeline(windowMillis, slideMillis, top, allowedLag), jobConfig);
+            logger.info("Order statistics job {} is {}", job.getIdString(), job.getStatus());
+        } catch (Exception e) {
+            logger.error("Failed to submit the order statistics job", e);
+        }
+    }
+
+    /**
+     * The latest sliding window, or null before the first one closes
+     */
+    public OrderWindowStats getLatest() {
+        return stats().get(OrderWindowStats.SLIDING + ":latest");
+    }
+
+    /**
+     * The last tumbling windows, newest first
+     */
+    public List<OrderWindowStats> getWindows(int count) {
+        long now = System.currentTimeMillis();
+        long lastStart = now - now % windowMillis - windowMillis;
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(OrderWindowStats.TUMBLING + ":" + (lastStart - i * windowMillis));
+        }
+        Map<String, OrderWindowStats> found = stats().getAll(new HashSet<>(keys));
+        List<OrderWindowStats> windows = new ArrayList<>();
+        for (String key : keys) {
+            if (found.containsKey(key)) {
+                windows.add(found.get(key));
+            }
+        }
+        return windows;
+    }
+
+    public Map<String, Object> getJobStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("windowMs", windowMillis);
+        status.put("slideMs", slideMillis);
+        try {
+            Job job = hazelcastInstance.getJet().getJob(ClusterConstants.ORDER_STATS_JOB);
+            if (job == null) {
+                status.put("job", "not submitted");
+            } else {
+                status.put("job", job.getIdString());
+                status.put("status", job.getStatus().toString());
+                status.put("submittedAt", job.getSubmissionTime());
+            }
+        } catch (Exception e) {
+            status.put("job", "unavailable: " + e.getMessage());
+        }
+        return status;
+    }
+
+    private IMap<String, OrderWindowStats> stats() {
+        return hazelcastInstance.getMap(ClusterConstants.ORDER_STATS_MAP);
+    }
+
+    /**
+     * Journal of order-events, windowed by processedAt, into order-stats. Static and
+     * built from plain values so the lambdas shipped to the members capture nothing else.
+     */
+    static Pipeline buildPipeline(long windowMillis, long slideMillis, int top, long allowedLag) {
+        StreamSource<OrderEvent> source = Sources.<OrderEvent, String, OrderEvent>mapJournal(
+                ClusterConstants.ORDER_EVENTS_MAP, JournalInitialPosition.START_FROM_CURRENT,
+                EventJournalMapEvent::getNewValue, Util.mapPutEvents())
+            // Most of the 271 partitions see no order for a while; they must not hold the windows back
+            .setPartitionIdleTimeout(allowedLag);
+
+        Pipeline pipeline = Pipeline.create();
+        StreamStage<OrderEvent> orders = pipeline.readFrom(source)
+            .withTimestamps(OrderEvent::processedAt, allowedLag)
+            .setName("processed-orders");
+
+        orders.window(WindowDefinition.tumbling(windowMillis))
+            .aggregate(orderTotals(top))
+            .map(result -> result.result().inWindow(OrderWindowStats.TUMBLING, result.start(), result.end()))
+            .setName("tumbling-window")
+            .writeTo(Sinks.map(ClusterConstants.ORDER_STATS_MAP, OrderWindowStats::key, stats -> stats));
+
+        orders.window(WindowDefinition.sliding(windowMillis, slideMillis))
+            .aggregate(orderTotals(top))
+            .map(result -> result.result().inWindow(OrderWindowStats.SLIDING, result.start(), result.end()))
+            .setName("sliding-window")
+            .writeTo(Sinks.map(ClusterConstants.ORDER_STATS_MAP, OrderWindowStats::key, stats -> stats));
+
+        return pipeline;
+    }
+
+    /**
+     * Count, quantity, revenue and per-product and per-customer totals; deducting lets
+     * the sliding window drop its oldest frame instead of recombining all of them
+     */
+    static AggregateOperation1<OrderEvent, OrderTotals, OrderWindowStats> orderTotals(int top) {
+        return AggregateOperation
+            .withCreate(OrderTotals::new)
+            .<OrderEvent>andAccumulate(OrderTotals::add)
+            .andCombine(OrderTotals::combine)
+            .andDeduct(OrderTotals::deduct)
+            .andExportFinish(totals -> totals.toStats(top));
+    }
+
+    /**
+     * Accumulator of the order statistics job; Java-serialized in snapshots and
+     * between the two aggregation stages
+     */
+    static class OrderTotals implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private static final String UNKNOWN = "unknown";
+
+        private long orders;
+        private long quantity;
+        private double revenue;
+        private final Map<String, Long> productQuantities = new HashMap<>();
+        private final Map<String, Double> customerRevenue = new HashMap<>();
+
+        void add(OrderEvent event) {
+            orders++;
+            quantity += event.quantity();
+            revenue += event.amount();
+            productQuantities.merge(event.productName() != null ? event.productName() : UNKNOWN,
+                                    (long) event.quantity(), Long::sum);
+            customerRevenue.merge(event.customerName() != null ? event.customerName() : UNKNOWN,
+                                  event.amount(), Double::sum);
+        }
+
+        void combine(OrderTotals other) {
+            orders += other.orders;
+            quantity += other.quantity;
+            revenue += other.revenue;
+            other.productQuantities.forEach((product, value) -> productQuantities.merge(product, value, Long::sum));
+            other.customerRevenue.forEach((customer, value) -> customerRevenue.merge(customer, value, Double::sum));
+        }
+
+        void deduct(OrderTotals other) {
+            orders -= other.orders;
+            quantity -= other.quantity;
+            revenue -= other.revenue;
+            other.productQuantities.forEach((product, value) ->
+                productQuantities.computeIfPresent(product, (key, current) -> current - value > 0 ? current - value : null));
+            other.customerRevenue.forEach((customer, value) ->
+                customerRevenue.computeIfPresent(customer, (key, current) -> current - value > 1e-9 ? current - value : null));
+        }
+
+        OrderWindowStats toStats(int top) {
+            List<Map.Entry<String, Long>> products = productQuantities.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(top)
+                .toList();
+            List<Map.Entry<String, Double>> customers = customerRevenue.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(top)
+                .toList();
+            return new OrderWindowStats(null, 0, 0, orders, quantity, revenue,
+                products.stream().map(Map.Entry::getKey).toArray(String[]::new),
+                products.stream().mapToLong(Map.Entry::getValue).toArray(),
+                customers.stream().map(Map.Entry::getKey).toArray(String[]::new),
+                customers.stream().mapToDouble(Map.Entry::getValue).toArray());
+        }
+    }
+}
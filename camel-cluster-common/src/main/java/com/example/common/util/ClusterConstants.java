@@ -15,16 +15,84 @@ public final class ClusterConstants {
     public static final String COMPLETED_ORDERS_QUEUE = "completed-orders";
     public static final String FAILED_ORDERS_QUEUE = "failed-orders";
 
+    // Message Headers
+    public static final String ORDER_BATCH_SIZE_HEADER = "orderBatchSize";
+
     // Hazelcast Topic Names
     public static final String ADMIN_NOTIFICATIONS_TOPIC = "admin-notifications";
     public static final String HEALTH_STATUS_TOPIC = "health-status";
     public static final String CLUSTER_EVENTS_TOPIC = "cluster-events";
+    // Ringbuffer backing the cluster events reliable topic, named by Hazelcast's convention
+    public static final String CLUSTER_EVENTS_RINGBUFFER = "_hz_rb_" + CLUSTER_EVENTS_TOPIC;
+
+    // Cluster Event Types
+    public static final String EVENT_LEADER_CHANGED = "LEADER_CHANGED";
+    public static final String EVENT_NODE_FAILED = "NODE_FAILED";
+    public static final String EVENT_NODE_SUSPECTED = "NODE_SUSPECTED";
+    public static final String EVENT_NODE_RECOVERED = "NODE_RECOVERED";
+    public static final String EVENT_REBALANCE_TRIGGERED = "REBALANCE_TRIGGERED";
+    public static final String EVENT_REPORT_GENERATED = "REPORT_GENERATED";
 
     // Hazelcast Map Names
     public static final String PROCESSED_LINES_MAP = "processed-lines";
     public static final String CLUSTER_METRICS_MAP = "cluster-metrics";
     public static final String NODE_STATUS_MAP = "node-status";
     public static final String CLUSTER_NODES_MAP = "cluster-nodes";
+    public static final String ORDER_PARTITION_ASSIGNMENTS_MAP = "order-partition-assignments";
+    public static final String LEADER_LEASE_MAP = "leader-lease";
+    public static final String NODE_HEARTBEATS_MAP = "node-heartbeats";
+    // Keys "customer@orders.p" live in the Hazelcast partition of order queue orders.p
+    public static final String CUSTOMER_ORDER_STATS_MAP = "customer-order-stats";
+
+    public static final String RATE_LIMIT_BUCKETS_MAP = "rate-limit-buckets";
+    // Coordinator-computed work assignment of each consumer, keyed by node id
+    public static final String WORK_ASSIGNMENTS_MAP = "work-assignments";
+    // Backpressure: pressure score of each consumer and how each producer throttles to it
+    public static final String CONSUMER_PRESSURE_MAP = "consumer-pressure";
+    public static final String PRODUCER_THROTTLE_MAP = "producer-throttle";
+    // Streaming order statistics: processed-order events feed the job through the map's
+    // event journal; its window results land in ORDER_STATS_MAP
+    public static final String ORDER_EVENTS_MAP = "order-events";
+    public static final String ORDER_STATS_MAP = "order-stats";
+    public static final String ORDER_STATS_JOB = "order-statistics";
+
+    // Cluster-wide Rate Limits (token buckets in RATE_LIMIT_BUCKETS_MAP)
+    public static final String RATE_LIMIT_ORDER_SENDS = "order-sends";
+    public static final String RATE_LIMIT_ORDER_WRITES = "order-writes";
+
+    // Order Routing Modes (cluster.orders.routing)
+    public static final String ORDER_ROUTING_ANY = "any";
+    public static final String ORDER_ROUTING_KEY_OWNER = "key-owner";
+
+    // Cluster-wide Counters (Hazelcast PNCounters named COUNTER_PREFIX + counter)
+    public static final String COUNTER_PREFIX = "counter.";
+    public static final String COUNTER_ORDERS_PROCESSED = "orders_processed";
+    public static final String COUNTER_ORDERS_FAILED = "orders_failed";
+    public static final String COUNTER_ORDERS_DEAD_LETTER = "orders_dead_letter";
+    public static final String COUNTER_FILES_PROCESSED = "files_processed";
+    public static final String COUNTER_FILES_FAILED = "files_failed";
+    public static final String COUNTER_ORDERS_FROM_FILES = "orders_from_files";
+    public static final String[] COUNTERS = {
+        COUNTER_ORDERS_PROCESSED, COUNTER_ORDERS_FAILED, COUNTER_ORDERS_DEAD_LETTER,
+        COUNTER_FILES_PROCESSED, COUNTER_FILES_FAILED, COUNTER_ORDERS_FROM_FILES
+    };
+
+    // Metric Time Series (Hazelcast Ringbuffers named METRIC_SERIES_PREFIX + nodeId:metricName)
+    public static final String METRIC_SERIES_PREFIX = "metric-series:";
+    public static final int METRIC_SERIES_CAPACITY = 720;  // 1 hour at the default 5 second interval
+    public static final String SERIES_ORDERS_PROCESSED = "orders_processed";
+    public static final String SERIES_FILES_PROCESSED = "files_processed";
+    public static final String SERIES_ORDERS_SENT = "orders_sent";
+    // Cumulative milliseconds; divided by the orders_processed rate they give per-order averages
+    public static final String SERIES_ORDER_PROCESSING_MS = "order_processing_ms";
+    public static final String SERIES_ORDER_QUEUE_WAIT_MS = "order_queue_wait_ms";
+
+    // Hazelcast Query Cache Names
+    public static final String NODE_STATUS_VIEW = "node-status-view";
+
+    // Hazelcast Member Attributes
+    public static final String MEMBER_ATTRIBUTE_NODE_ID = "nodeId";
+    public static final String MEMBER_ATTRIBUTE_NODE_TYPE = "nodeType";
 
     // Timer Configurations (in milliseconds)
     public static final long ORDER_GENERATION_INTERVAL = 2000L;  // 2 seconds
@@ -59,6 +127,9 @@ public final class ClusterConstants {
     public static final String ROUTE_HEALTH_CHECK_MASTER = "cluster-health-master";
     public static final String ROUTE_CLEANUP_MASTER = "cleanup-master";
 
+    // Route group of routes that need the cluster; started once Hazelcast has joined
+    public static final String CLUSTER_ROUTE_GROUP = "cluster";
+
     // Consumer Route IDs
     public static final String CONSUMER_ORDER_ROUTE_ID = "consumer-order-processor";
     public static final String CONSUMER_FILE_ROUTE_ID = "consumer-file-processor";
@@ -0,0 +1,43 @@
+package com.example.common.util;
+
+/**
+ * Helpers for hash-partitioned order queues.
+ * Partition p of the orders queue is named "orders.p"; producers and consumers
+ * must agree on the partition count (cluster.orders.partitions).
+ * Per-customer state keyed "customer@orders.p" is stored in the Hazelcast partition
+ * of the queue name, so the consumer owning that partition also consumes the queue.
+ */
+public final class OrderPartitions {
+
+    private OrderPartitions() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Stable partition for a key. String.hashCode is specified by the JLS, so every
+     * producer JVM maps the same key to the same partition.
+     */
+    public static int partitionFor(String key, int partitionCount) {
+        if (partitionCount <= 1 || key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16); // spread high bits, as HashMap does
+        return Math.floorMod(hash, partitionCount);
+    }
+
+    /**
+     * Queue name of an order partition
+     */
+    public static String queueName(int partition) {
+        return ClusterConstants.ORDERS_QUEUE + "." + partition;
+    }
+
+    /**
+     * Key of a customer's state in the customer-order-stats map: the customer plus the
+     * queue its orders are hashed to, which picks the Hazelcast partition
+     */
+    public static String stateKey(String customer, int partitionCount) {
+        return customer + "@" + queueName(partitionFor(customer, partitionCount));
+    }
+}
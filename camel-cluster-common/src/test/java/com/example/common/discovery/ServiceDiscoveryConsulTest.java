@@ -0,0 +1,240 @@
+package com.example.common.discovery;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Consul registration, deregistration and health watch against a stub Consul agent
+ */
+class ServiceDiscoveryConsulTest {
+
+    private static final String SERVICE = "camel-cluster";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+    private final Object catalogLock = new Object();
+    private HttpServer consul;
+    private ServiceDiscovery discovery;
+
+    // Health response served by the stub and its X-Consul-Index
+    private String healthBody;
+    private long consulIndex;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        healthBody = healthEntries(entry("consumer-1", "10.0.0.1", "consumer"), entry("producer-1", "10.0.0.2", "producer"));
+        consulIndex = 10;
+
+        consul = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        consul.setExecutor(Executors.newCachedThreadPool());
+        consul.createContext("/v1/agent/service/", exchange -> {
+            requests.add(Request.of(exchange));
+            respond(exchange, 200, "", 0);
+        });
+        consul.createContext("/v1/health/service/" + SERVICE, this::health);
+        consul.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (discovery != null) {
+            discovery.unregister();
+        }
+        consul.stop(0);
+    }
+
+    @Test
+    void registersAndDeregistersThisNode() throws Exception {
+        discovery = discovery();
+        discovery.initialize();
+
+        Request registration = awaitRequest("/v1/agent/service/register");
+        assertThat(registration.method()).isEqualTo("PUT");
+        Map<String, Object> body = objectMapper.readValue(registration.body(), new TypeReference<>() {});
+        assertThat(body)
+            .containsEntry("ID", "consumer-9")
+            .containsEntry("Name", SERVICE)
+            .containsEntry("Tags", List.of("consumer", "hazelcast"))
+            .containsEntry("Port", 5701);
+        assertThat((Map<String, Object>) body.get("Check"))
+            .containsEntry("Interval", "30s")
+            .hasEntrySatisfying("HTTP", check -> assertThat((String) check).endsWith(":6701/actuator/health"));
+
+        discovery.unregister();
+        discovery = null;
+        Request deregistration = awaitRequest("/v1/agent/service/deregister/");
+        assertThat(deregistration.method()).isEqualTo("PUT");
+        assertThat(deregistration.path()).isEqualTo("/v1/agent/service/deregister/consumer-9");
+    }
+
+    @Test
+    void parsesHealthyInstancesAndFollowsChangesWithBlockingQueries() throws Exception {
+        discovery = discovery();
+        discovery.initialize();
+
+        // The first snapshot is in place before initialize returns
+        assertThat(discovery.discoverClusterMembers()).containsExactly("10.0.0.1:5701", "10.0.0.2:5701");
+        assertThat(discovery.getInstances())
+            .extracting(ServiceDiscovery.ServiceInstance::getServiceType)
+            .containsExactlyInAnyOrder("consumer", "producer");
+
+        // The watch resumes from the index of the last answer
+        Request watch = awaitRequest("/v1/health/service/");
+        while (!watch.query().contains("index=")) {
+            watch = awaitRequest("/v1/health/service/");
+        }
+        assertThat(watch.query()).contains("passing=true", "index=10", "wait=2000ms");
+
+        // An entry without a Service is skipped rather than failing the refresh
+        synchronized (catalogLock) {
+            healthBody = healthEntries(entry("consumer-1", "10.0.0.1", "consumer"),
+                                       entry("producer-1", "10.0.0.2", "producer"),
+                                       entry("coordinator-1", "10.0.0.3", "coordinator"),
+                                       Map.of("Node", Map.of("Node", "agent-4")));
+            consulIndex = 11;
+            catalogLock.notifyAll();
+        }
+
+        awaitTrue(() -> discovery.discoverClusterMembers().size() == 3, "the new member");
+        assertThat(discovery.discoverClusterMembers()).containsExactly("10.0.0.1:5701", "10.0.0.2:5701", "10.0.0.3:5701");
+        assertThat(discovery.getStatus()).containsEntry("index", 11L);
+    }
+
+    /**
+     * Answers at once for index 0 or an older index, otherwise holds the query until the
+     * catalog changes or the requested wait runs out, like a Consul agent
+     */
+    private void health(HttpExchange exchange) throws IOException {
+        Request request = Request.of(exchange);
+        requests.add(request);
+        long index = queryParameter(request.query(), "index");
+        long wait = queryParameter(request.query(), "wait");
+        String body;
+        long currentIndex;
+        synchronized (catalogLock) {
+            long deadline = System.currentTimeMillis() + wait;
+            while (index > 0 && index >= consulIndex && System.currentTimeMillis() < deadline) {
+                try {
+                    catalogLock.wait(Math.max(1, deadline - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            body = healthBody;
+            currentIndex = consulIndex;
+        }
+        respond(exchange, 200, body, currentIndex);
+    }
+
+    private ServiceDiscovery discovery() {
+        ServiceDiscovery discovery = new ServiceDiscovery();
+        ReflectionTestUtils.setField(discovery, "enabled", true);
+        ReflectionTestUtils.setField(discovery, "discoveryType", "consul");
+        ReflectionTestUtils.setField(discovery, "consulUrl", "http://127.0.0.1:" + consul.getAddress().getPort());
+        ReflectionTestUtils.setField(discovery, "consulService", SERVICE);
+        ReflectionTestUtils.setField(discovery, "consulWait", 2000L);
+        ReflectionTestUtils.setField(discovery, "consulMinQueryInterval", 50L);
+        ReflectionTestUtils.setField(discovery, "refreshInterval", 30000L);
+        ReflectionTestUtils.setField(discovery, "requestTimeout", 2000L);
+        ReflectionTestUtils.setField(discovery, "initialTimeout", 5000L);
+        ReflectionTestUtils.setField(discovery, "minBackoff", 50L);
+        ReflectionTestUtils.setField(discovery, "maxBackoff", 500L);
+        ReflectionTestUtils.setField(discovery, "nodeId", "consumer-9");
+        ReflectionTestUtils.setField(discovery, "nodeType", "consumer");
+        ReflectionTestUtils.setField(discovery, "hazelcastPort", 5701);
+        return discovery;
+    }
+
+    private Request awaitRequest(String pathPrefix) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            Request request = requests.poll(100, TimeUnit.MILLISECONDS);
+            if (request != null && request.path().startsWith(pathPrefix)) {
+                return request;
+            }
+        }
+        throw new AssertionError("No request to " + pathPrefix);
+    }
+
+    private static Map<String, Object> entry(String id, String address, String serviceType) {
+        return Map.of(
+            "Node", Map.of("Node", "agent-" + id),
+            "Service", Map.of("ID", id, "Service", SERVICE, "Address", address, "Port", 5701,
+                              "Tags", List.of(serviceType, "hazelcast")),
+            "Checks", List.of(Map.of("Status", "passing")));
+    }
+
+    @SafeVarargs
+    private String healthEntries(Map<String, Object>... entries) {
+        try {
+            return objectMapper.writeValueAsString(List.of(entries));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long queryParameter(String query, String name) {
+        if (query == null) {
+            return 0;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                return Long.parseLong(parameter.substring(name.length() + 1).replace("ms", ""));
+            }
+        }
+        return 0;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body, long index) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (index > 0) {
+            exchange.getResponseHeaders().add("X-Consul-Index", Long.toString(index));
+        }
+        exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+        if (bytes.length > 0) {
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting for " + description);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private record Request(String method, String path, String query, String body) {
+
+        static Request of(HttpExchange exchange) throws IOException {
+            return new Request(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                exchange.getRequestURI().getQuery(),
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.common.service;
+
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Leader takeover between two coordinators on two embedded Hazelcast members
+ */
+class LeaderElectionTest {
+
+    private static final long LEASE_DURATION = 1000;
+    private static final long RENEW_INTERVAL = 100;
+
+    private final List<HazelcastInstance> members = new ArrayList<>();
+    private final List<LeaderElection> elections = new ArrayList<>();
+    private String clusterName;
+
+    @BeforeEach
+    void setUp() {
+        clusterName = "leader-election-test-" + UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        elections.forEach(LeaderElection::stop);
+        members.forEach(HazelcastInstance::shutdown);
+    }
+
+    @Test
+    void successorTakesOverAfterForcedLeaseLossAndFencesOutTheFormerLeader() {
+        LeaderElection first = coordinator("coordinator-1", member());
+        awaitTrue(first::isLeader, "first coordinator to lead");
+        LeaderElection second = coordinator("coordinator-2", member());
+        long formerToken = first.getFencingToken();
+        assertThat(second.isLeader()).isFalse();
+
+        // The leader stops renewing without releasing, like a paused or cut-off process
+        ScheduledExecutorService scheduler = (ScheduledExecutorService) ReflectionTestUtils.getField(first, "leaseScheduler");
+        scheduler.shutdownNow();
+        long lostAt = System.nanoTime();
+
+        awaitTrue(second::isLeader, "second coordinator to take over");
+        long takeoverMillis = (System.nanoTime() - lostAt) / 1_000_000;
+        assertThat(takeoverMillis).isLessThan(LEASE_DURATION + 5 * RENEW_INTERVAL);
+        assertThat(second.getFencingToken()).isEqualTo(formerToken + 1);
+        assertThat(second.getLeaderNodeId()).isEqualTo("coordinator-2");
+
+        // The former leader's local lease has lapsed, and its token is refused
+        assertThat(first.isLeader()).isFalse();
+        assertThat(first.getFencingToken()).isEqualTo(-1);
+        assertThatThrownBy(() -> first.validateFencingToken(formerToken))
+            .isInstanceOf(IllegalStateException.class);
+        second.validateFencingToken(second.getFencingToken());
+    }
+
+    @Test
+    void successorTakesOverAtOnceWhenTheLeaderLeavesTheCluster() {
+        HazelcastInstance firstMember = member();
+        LeaderElection first = coordinator("coordinator-1", firstMember);
+        awaitTrue(first::isLeader, "first coordinator to lead");
+        HazelcastInstance secondMember = member();
+        LeaderElection second = coordinator("coordinator-2", secondMember);
+        long formerToken = first.getFencingToken();
+        // The lease entry survives a crash only once its backup is in place
+        awaitTrue(() -> secondMember.getPartitionService().isClusterSafe(), "partition backups");
+
+        // Crash: the member goes away without the lease being released
+        ((ScheduledExecutorService) ReflectionTestUtils.getField(first, "leaseScheduler")).shutdownNow();
+        firstMember.getLifecycleService().terminate();
+        members.remove(firstMember);
+        elections.remove(first);
+
+        awaitTrue(second::isLeader, "second coordinator to take over");
+        assertThat(second.getFencingToken()).isEqualTo(formerToken + 1);
+        assertThat((long) second.getStatus().get("takeovers")).isEqualTo(1);
+    }
+
+    @Test
+    void leaderTokensStayAboveTheStoredFenceWhenTheLeaseMapIsEmptied() {
+        // The database kept the fence of a cluster that ran before this one
+        AtomicLong fence = new AtomicLong(41);
+        HazelcastInstance firstMember = member();
+        LeaderElection first = fencedCoordinator("coordinator-1", firstMember, fence);
+        awaitTrue(first::isLeader, "first coordinator to lead");
+        assertThat(first.getFencingToken()).isEqualTo(42);
+        awaitTrue(() -> fence.get() == 42, "the fence to be raised");
+
+        // The lease entry goes, the fence stays
+        ((ScheduledExecutorService) ReflectionTestUtils.getField(first, "leaseScheduler")).shutdownNow();
+        firstMember.getMap(ClusterConstants.LEADER_LEASE_MAP).clear();
+
+        LeaderElection second = fencedCoordinator("coordinator-2", member(), fence);
+        awaitTrue(second::isLeader, "second coordinator to take over");
+        assertThat(second.getFencingToken()).isEqualTo(43);
+        second.validateFencingToken(43);
+        awaitTrue(() -> fence.get() == 43, "the fence to be raised");
+    }
+
+    @Test
+    void unreadableFenceIsCheckedAgainOnTheNextRenewal() {
+        AtomicInteger reads = new AtomicInteger();
+        LeaderElection coordinator = election("coordinator-1", ClusterConstants.NODE_TYPE_COORDINATOR, member(),
+            election -> election.setFencingTokenFloor(() -> {
+                if (reads.incrementAndGet() == 1) {
+                    throw new IllegalStateException("database unavailable");
+                }
+                return 9;
+            }));
+        awaitTrue(() -> coordinator.getFencingToken() == 10, "the token to be raised above the fence");
+        assertThat(reads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void nonCandidatesFollowTheLeaseWithoutCompeting() {
+        LeaderElection coordinator = coordinator("coordinator-1", member());
+        LeaderElection consumer = election("consumer-1", ClusterConstants.NODE_TYPE_CONSUMER, member());
+        awaitTrue(coordinator::isLeader, "coordinator to lead");
+        awaitTrue(() -> "coordinator-1".equals(consumer.getLeaderNodeId()), "consumer to see the leader");
+        assertThat(consumer.isLeader()).isFalse();
+        assertThat(consumer.getFencingToken()).isEqualTo(-1);
+    }
+
+    private HazelcastInstance member() {
+        Config config = new Config();
+        config.setClusterName(clusterName);
+        config.setProperty("hazelcast.logging.type", "none");
+        config.setProperty("hazelcast.wait.seconds.before.join", "0");
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+        HazelcastInstance member = Hazelcast.newHazelcastInstance(config);
+        members.add(member);
+        return member;
+    }
+
+    private LeaderElection coordinator(String nodeId, HazelcastInstance member) {
+        return election(nodeId, ClusterConstants.NODE_TYPE_COORDINATOR, member);
+    }
+
+    /**
+     * Coordinator writing through a fence kept outside Hazelcast, like the database's
+     * leader_fence row: raised by each new leader and read as the token floor
+     */
+    private LeaderElection fencedCoordinator(String nodeId, HazelcastInstance member, AtomicLong fence) {
+        return election(nodeId, ClusterConstants.NODE_TYPE_COORDINATOR, member, election -> {
+            election.setFencingTokenFloor(fence::get);
+            election.addLeadershipListener(() -> fence.accumulateAndGet(election.getFencingToken(), Math::max));
+        });
+    }
+
+    private LeaderElection election(String nodeId, String nodeType, HazelcastInstance member) {
+        return election(nodeId, nodeType, member, election -> { });
+    }
+
+    private LeaderElection election(String nodeId, String nodeType, HazelcastInstance member,
+                                    Consumer<LeaderElection> setup) {
+        LeaderElection election = new LeaderElection();
+        ReflectionTestUtils.setField(election, "hazelcastInstance", member);
+        ReflectionTestUtils.setField(election, "eventPublisher", (org.springframework.context.ApplicationEventPublisher) event -> { });
+        ReflectionTestUtils.setField(election, "eventBus", mock(ClusterEventBus.class));
+        ReflectionTestUtils.setField(election, "nodeId", nodeId);
+        ReflectionTestUtils.setField(election, "nodeType", nodeType);
+        ReflectionTestUtils.setField(election, "leaseDuration", LEASE_DURATION);
+        ReflectionTestUtils.setField(election, "renewInterval", RENEW_INTERVAL);
+        setup.accept(election);
+        ReflectionTestUtils.invokeMethod(election, "start");
+        elections.add(election);
+        return election;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, String description) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Timed out waiting for " + description);
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError("Interrupted waiting for " + description);
+            }
+        }
+    }
+}
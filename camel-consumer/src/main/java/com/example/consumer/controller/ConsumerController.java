@@ -1,10 +1,17 @@
 package com.example.consumer.controller;
 
 import com.example.common.model.ProcessedOrder;
+import com.example.common.service.ClusterRateLimiter;
 import com.example.common.service.ClusterService;
 import com.example.consumer.repository.ProcessedOrderRepository;
+import com.example.consumer.service.ConsumerWarmup;
+import com.example.consumer.service.CustomerStateService;
 import com.example.consumer.service.FileProcessor;
+import com.example.consumer.service.OrderEventFeed;
 import com.example.consumer.service.OrderProcessor;
+import com.example.consumer.service.PartitionAssignmentManager;
+import com.example.consumer.service.PressureMonitor;
+import com.example.consumer.service.WorkAssignmentApplier;
 import org.apache.camel.CamelContext;
 import org.apache.camel.Route;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +39,27 @@ public class ConsumerController {
     @Autowired
     private CamelContext camelContext;
     
+    @Autowired
+    private PartitionAssignmentManager partitionAssignmentManager;
+    
+    @Autowired
+    private ConsumerWarmup consumerWarmup;
+    
+    @Autowired
+    private CustomerStateService customerStateService;
+    
+    @Autowired
+    private ClusterRateLimiter rateLimiter;
+    
+    @Autowired
+    private WorkAssignmentApplier workAssignmentApplier;
+    
+    @Autowired
+    private PressureMonitor pressureMonitor;
+    
+    @Autowired
+    private OrderEventFeed orderEventFeed;
+    
     private final LocalDateTime startTime = LocalDateTime.now();
     
     @GetMapping("/status")
@@ -45,6 +73,11 @@ public class ConsumerController {
         status.put("ordersProcessed", orderProcessor.getProcessedCount());
         status.put("filesProcessed", fileProcessor.getFilesProcessed());
         status.put("processingRate", orderProcessor.getProcessingRate());
+        status.put("warmup", consumerWarmup.getStatus());
+        status.put("rateLimits", rateLimiter.getStatus());
+        status.put("workAssignment", workAssignmentApplier.getStatus());
+        status.put("pressure", pressureMonitor.getStatus());
+        status.put("orderEvents", orderEventFeed.getStatus());
         return status;
     }
     
@@ -56,9 +89,29 @@ public class ConsumerController {
         cluster.put("clusterSize", clusterService.getClusterSize());
         cluster.put("clusterMembers", clusterService.getClusterMembers());
         cluster.put("clusterStatus", clusterService.getClusterStatus());
+        cluster.put("orderPartitions", partitionAssignmentManager.getPartitionCount());
+        cluster.put("assignedPartitions", partitionAssignmentManager.getAssignedPartitions());
         return cluster;
     }
     
+    @GetMapping("/routing")
+    public Map<String, Object> getRouting() {
+        Map<String, Object> routing = new HashMap<>(customerStateService.getStatus());
+        routing.put("nodeId", clusterService.getNodeId());
+        routing.put("assignedPartitions", partitionAssignmentManager.getAssignedPartitions());
+        return routing;
+    }
+    
+    /**
+     * Compare customer state updates in the any-node and key-owner models on this node
+     */
+    @PostMapping("/routing/benchmark")
+    public Map<String, Object> benchmarkRouting(
+            @RequestParam(defaultValue = "10000") int orders,
+            @RequestParam(defaultValue = "100") int customers) {
+        return customerStateService.benchmark(Math.max(orders, 1), Math.max(customers, 1));
+    }
+    
     @GetMapping("/metrics")
     public Map<String, Object> getMetrics() {
         Map<String, Object> metrics = new HashMap<>();
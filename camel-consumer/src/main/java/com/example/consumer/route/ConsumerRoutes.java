@@ -1,9 +1,16 @@
 package com.example.consumer.route;
 
+import com.example.common.model.ClusterEvent;
+import com.example.common.service.ClusterEventBus;
+import com.example.common.service.ClusterRateLimiter;
 import com.example.common.service.ClusterService;
 import com.example.common.util.ClusterConstants;
+import com.example.common.util.OrderPartitions;
 import com.example.consumer.service.FileProcessor;
 import com.example.consumer.service.OrderProcessor;
+import com.example.consumer.service.PartitionAssignmentManager;
+import org.apache.camel.Exchange;
+import org.apache.camel.LoggingLevel;
 import org.apache.camel.builder.RouteBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +35,12 @@ public class ConsumerRoutes extends RouteBuilder {
     @Autowired
     private ClusterService clusterService;
     
+    @Autowired
+    private ClusterEventBus eventBus;
+    
+    @Autowired
+    private ClusterRateLimiter rateLimiter;
+    
     @Value("${app.consumer.file-polling-interval:10000}")
     private int filePollingInterval;
     
@@ -37,32 +50,54 @@ public class ConsumerRoutes extends RouteBuilder {
     @Value("${app.consumer.input-directory:/shared/orders}")
     private String inputDirectory;
     
+    @Value("${cluster.orders.partitions:1}")
+    private int partitionCount;
+    
     @Override
     public void configure() throws Exception {
         
+        // Routes in the cluster group need Hazelcast; they are created stopped and
+        // ClusterStartup starts them once the node has joined the cluster and warmed up
+        
         // Global error handling
         onException(Exception.class)
             .handled(true)
             .log("Consumer error: ${exception.message}")
             .to("log:error");
         
-        // Route 1: Consume orders from ActiveMQ queue
+        // Route 1: Consume orders from ActiveMQ queue (the unpartitioned queue is always
+        // drained so orders sent before partitioning was enabled are not stranded)
         from("activemq:queue:" + ClusterConstants.ORDERS_QUEUE + 
              "?concurrentConsumers=" + concurrentConsumers +
              "&maxConcurrentConsumers=" + (concurrentConsumers * 2))
             .routeId(ClusterConstants.CONSUMER_ORDER_ROUTE_ID)
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("Consumer ${header.CamelJMSDestination} received order on node: " + 
                  clusterService.getNodeId())
-            .process(exchange -> {
-                String orderJson = exchange.getIn().getBody(String.class);
-                orderProcessor.processOrder(orderJson);
-                
-                // Set response for potential monitoring
-                exchange.getIn().setHeader("ProcessedBy", clusterService.getNodeId());
-                exchange.getIn().setHeader("ProcessedAt", System.currentTimeMillis());
-            })
+            // Database writes share the cluster-wide order-writes limit; a throttled
+            // listener thread leaves the next messages on the broker
+            .process(rateLimiter.throttle(ClusterConstants.RATE_LIMIT_ORDER_WRITES))
+            .process(this::processOrderMessage)
             .log("Order processed successfully by consumer node: " + clusterService.getNodeId());
         
+        // Route 1b: One route per order queue partition. They start stopped and are
+        // started/stopped by PartitionAssignmentManager as consumers join and leave, so
+        // each partition is drained by a single consumer node
+        if (partitionCount > 1) {
+            for (int partition = 0; partition < partitionCount; partition++) {
+                from("activemq:queue:" + OrderPartitions.queueName(partition) +
+                     "?concurrentConsumers=" + concurrentConsumers +
+                     "&maxConcurrentConsumers=" + (concurrentConsumers * 2))
+                    .routeId(PartitionAssignmentManager.partitionRouteId(partition))
+                    .autoStartup(false)
+                    .process(rateLimiter.throttle(ClusterConstants.RATE_LIMIT_ORDER_WRITES))
+                    .process(this::processOrderMessage)
+                    .log(LoggingLevel.DEBUG, "Order from ${header.CamelJMSDestination} processed by consumer node: " +
+                         clusterService.getNodeId());
+            }
+        }
+        
         // Route 2: File polling with cluster coordination
         from("file:" + inputDirectory + 
              "?delay=" + filePollingInterval +
@@ -72,6 +107,8 @@ public class ConsumerRoutes extends RouteBuilder {
              "&readLockCheckInterval=1000" +
              "&readLockTimeout=10000")
             .routeId(ClusterConstants.CONSUMER_FILE_ROUTE_ID)
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("Consumer found file: ${header.CamelFileName} on node: " + 
                  clusterService.getNodeId())
             .process(exchange -> {
@@ -83,6 +120,8 @@ public class ConsumerRoutes extends RouteBuilder {
         // Route 3: Health check and metrics publishing
         from("timer:consumer-health?period=30000")
             .routeId(ClusterConstants.CONSUMER_HEALTH_ROUTE_ID)
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .process(exchange -> {
                 String nodeId = clusterService.getNodeId();
                 boolean isLeader = clusterService.isLeader();
@@ -108,18 +147,14 @@ public class ConsumerRoutes extends RouteBuilder {
                            fileProcessor.getFilesProcessed());
             });
         
-        // Route 4: Cluster event handling
-        from("hazelcast-topic:" + ClusterConstants.CLUSTER_EVENTS_TOPIC)
-            .routeId(ClusterConstants.CONSUMER_CLUSTER_EVENTS_ROUTE_ID)
-            .log("Consumer received cluster event: ${body}")
-            .process(exchange -> {
-                String event = exchange.getIn().getBody(String.class);
-                handleClusterEvent(event);
-            });
+        // Route 4: Cluster event handling, dispatched by event type from the cluster event bus
+        subscribeToClusterEvents();
         
         // Route 5: Dead letter queue handling
         from("activemq:queue:" + ClusterConstants.ORDERS_QUEUE + ".DLQ")
             .routeId("consumer-dlq-handler")
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("Processing dead letter message: ${body}")
             .process(exchange -> {
                 // Log dead letter for investigation
@@ -127,7 +162,7 @@ public class ConsumerRoutes extends RouteBuilder {
                 logger.error("Dead letter received: {}", message);
                 
                 // Update failure metrics
-                clusterService.storeMetric("orders_dead_letter", 1L);
+                clusterService.incrementCounter(ClusterConstants.COUNTER_ORDERS_DEAD_LETTER, 1);
             });
         
         // Route 6: Manual processing endpoint (for testing)
@@ -140,20 +175,37 @@ public class ConsumerRoutes extends RouteBuilder {
             });
     }
     
-    private void handleClusterEvent(String event) {
-        try {
-            if (event.contains("NODE_JOINED")) {
-                logger.info("New node joined the cluster");
-                // Could rebalance work here
-            } else if (event.contains("NODE_LEFT")) {
-                logger.info("Node left the cluster");
-                // Could handle failover here
-            } else if (event.contains("LEADER_CHANGED")) {
-                logger.info("Cluster leadership changed");
-                // Update local state if needed
-            }
-        } catch (Exception e) {
-            logger.error("Error handling cluster event: {}", event, e);
+    private void processOrderMessage(Exchange exchange) {
+        String orderJson = exchange.getIn().getBody(String.class);
+        Integer batchSize = exchange.getIn().getHeader(ClusterConstants.ORDER_BATCH_SIZE_HEADER, Integer.class);
+        
+        // Broker time of the message, from the send timestamp, feeds the load rebalancer
+        Long sentAt = exchange.getIn().getHeader("JMSTimestamp", Long.class);
+        if (sentAt != null && sentAt > 0) {
+            orderProcessor.recordQueueWait(System.currentTimeMillis() - sentAt, batchSize != null ? batchSize : 1);
         }
+        
+        // Batched envelopes from the producer are unpacked and processed together
+        if (batchSize != null) {
+            orderProcessor.processOrderBatch(orderJson);
+        } else {
+            orderProcessor.processOrder(orderJson);
+        }
+        
+        // Set response for potential monitoring
+        exchange.getIn().setHeader("ProcessedBy", clusterService.getNodeId());
+        exchange.getIn().setHeader("ProcessedAt", System.currentTimeMillis());
+    }
+    
+    private void subscribeToClusterEvents() {
+        eventBus.subscribe(ClusterEvent.NodeFailed.class, event ->
+            logger.info("Node {} failed ({}); its order partitions will be reassigned",
+                       event.failedNode(), event.reason()));
+        eventBus.subscribe(ClusterEvent.NodeRecovered.class, event ->
+            logger.info("Node {} recovered", event.node()));
+        eventBus.subscribe(ClusterEvent.LeaderChanged.class, event ->
+            logger.info("Cluster leadership changed from {} to {}", event.previousLeader(), event.newLeader()));
+        eventBus.subscribe(ClusterEvent.RebalanceTriggered.class, event ->
+            logger.info("Rebalance triggered by {}", event.sourceNode()));
     }
 } 
\ No newline at end of file
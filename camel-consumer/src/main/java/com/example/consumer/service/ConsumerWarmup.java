@@ -0,0 +1,254 @@
+package com.example.consumer.service;
+
+import com.example.common.model.Order;
+import com.example.common.service.ClusterService;
+import com.example.common.service.ClusterStartup;
+import com.example.common.util.ClusterConstants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazelcast.core.HazelcastInstance;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional warm-up of a starting consumer, run after the cluster join and before the JMS
+ * and file routes start. Synthetic orders with ids unique to this run go through
+ * OrderProcessor.processOrder and processOrderBatch inside transactions that are always
+ * rolled back, so no row is kept. In warm-up mode OrderProcessor skips the simulated
+ * processing time and runs its post-commit step at rollback: customer totals and order
+ * events go to scratch maps, destroyed afterwards, and counters and metrics are changed
+ * by zero. The connection pool is filled and the cluster maps and counters the consumer
+ * uses are touched, so the first real orders do not pay for JIT compilation, connection
+ * setup and proxy creation.
+ */
+@Service
+public class ConsumerWarmup {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerWarmup.class);
+
+    public static final String WARMUP_METRIC = "consumer_warmup_ms";
+
+    private static final String[] CLUSTER_MAPS = {
+        ClusterConstants.CLUSTER_METRICS_MAP,
+        ClusterConstants.NODE_STATUS_MAP,
+        ClusterConstants.NODE_HEARTBEATS_MAP,
+        ClusterConstants.PROCESSED_LINES_MAP,
+        ClusterConstants.ORDER_PARTITION_ASSIGNMENTS_MAP,
+        ClusterConstants.CUSTOMER_ORDER_STATS_MAP
+    };
+
+    @Autowired
+    private ClusterStartup clusterStartup;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private OrderProcessor orderProcessor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${consumer.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${consumer.warmup.orders:100}")
+    private int warmupOrders;
+
+    @Value("${consumer.warmup.batch-size:10}")
+    private int batchSize;
+
+    // Connections to open up front; 0 fills the pool to its maximum size
+    @Value("${consumer.warmup.connections:0}")
+    private int warmupConnections;
+
+    private final Map<String, Object> status = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void initialize() {
+        status.put("enabled", enabled);
+        if (enabled) {
+            clusterStartup.beforeRoutesStart("consumer-warmup", this::warmUp);
+        }
+    }
+
+    public void warmUp() {
+        long startNanos = System.nanoTime();
+        logger.info("Warming up consumer {}: {} synthetic orders before the routes start",
+                   clusterService.getNodeId(), warmupOrders);
+
+        int connections = fillConnectionPool();
+        long poolMillis = elapsedMillis(startNanos);
+
+        long clusterStartNanos = System.nanoTime();
+        touchCluster();
+        long clusterMillis = elapsedMillis(clusterStartNanos);
+
+        long ordersStartNanos = System.nanoTime();
+        int failures;
+        try {
+            failures = processSyntheticOrders();
+        } finally {
+            destroyScratchMaps();
+        }
+        long ordersMillis = elapsedMillis(ordersStartNanos);
+
+        long totalMillis = elapsedMillis(startNanos);
+        clusterService.storeMetric(WARMUP_METRIC, totalMillis);
+
+        synchronized (status) {
+            status.put("totalMs", totalMillis);
+            status.put("connectionPoolMs", poolMillis);
+            status.put("connections", connections);
+            status.put("clusterMs", clusterMillis);
+            status.put("ordersMs", ordersMillis);
+            status.put("orders", warmupOrders);
+            status.put("failures", failures);
+        }
+        logger.info("Consumer {} warmed up in {} ms (pool {} ms with {} connections, cluster {} ms, {} orders {} ms, {} failures)",
+                   clusterService.getNodeId(), totalMillis, poolMillis, connections, clusterMillis,
+                   warmupOrders, ordersMillis, failures);
+    }
+
+    public Map<String, Object> getStatus() {
+        synchronized (status) {
+            return new LinkedHashMap<>(status);
+        }
+    }
+
+    /**
+     * Open the connections at once so the pool keeps them instead of creating them under load
+     */
+    private int fillConnectionPool() {
+        int target = warmupConnections;
+        if (dataSource instanceof HikariDataSource hikari) {
+            target = target > 0 ? Math.min(target, hikari.getMaximumPoolSize()) : hikari.getMaximumPoolSize();
+        }
+
+        List<Connection> connections = new ArrayList<>(target);
+        try {
+            for (int i = 0; i < target; i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(1);
+            }
+        } catch (Exception e) {
+            logger.warn("Connection pool warm-up stopped after {} connections: {}", connections.size(), e.getMessage());
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (Exception e) {
+                    logger.debug("Failed to return warm-up connection: {}", e.getMessage());
+                }
+            }
+        }
+        return connections.size();
+    }
+
+    /**
+     * Create the map and counter proxies and make one call on each; counters are changed by zero
+     */
+    private void touchCluster() {
+        String nodeId = clusterService.getNodeId();
+        for (String mapName : CLUSTER_MAPS) {
+            try {
+                hazelcastInstance.getMap(mapName).containsKey(nodeId);
+            } catch (Exception e) {
+                logger.warn("Failed to warm up cluster map {}: {}", mapName, e.getMessage());
+            }
+        }
+        for (String counterName : ClusterConstants.COUNTERS) {
+            clusterService.incrementCounter(counterName, 0);
+        }
+    }
+
+    /**
+     * Every other slice of orders goes through processOrder one by one, the rest through
+     * processOrderBatch as one envelope, each slice in a transaction that is rolled back
+     */
+    private int processSyntheticOrders() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        String nodeId = clusterService.getNodeId();
+        // Ids no earlier warm-up or real order can have, so a leftover row never collides
+        String runId = nodeId + "-" + System.currentTimeMillis();
+        int failures = 0;
+
+        for (int i = 0; i < warmupOrders; i += batchSize) {
+            int count = Math.min(batchSize, warmupOrders - i);
+            boolean single = (i / batchSize) % 2 == 0;
+            try {
+                List<Order> orders = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    orders.add(syntheticOrder(runId, i + j, nodeId));
+                }
+                List<String> messages = new ArrayList<>();
+                if (single) {
+                    for (Order order : orders) {
+                        messages.add(objectMapper.writeValueAsString(order));
+                    }
+                } else {
+                    messages.add(objectMapper.writeValueAsString(orders));
+                }
+
+                // The post-commit step runs at rollback, so the whole transaction is in warm-up mode
+                orderProcessor.warmUp(() -> transaction.executeWithoutResult(status -> {
+                    status.setRollbackOnly();
+                    for (String message : messages) {
+                        if (single) {
+                            orderProcessor.processOrder(message);
+                        } else {
+                            orderProcessor.processOrderBatch(message);
+                        }
+                    }
+                }));
+            } catch (Exception e) {
+                failures++;
+                logger.debug("Warm-up slice {} failed: {}", i / batchSize, e.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    private void destroyScratchMaps() {
+        for (String mapName : new String[] {CustomerStateService.WARMUP_MAP, OrderEventFeed.WARMUP_MAP}) {
+            try {
+                hazelcastInstance.getMap(mapName).destroy();
+            } catch (Exception e) {
+                logger.warn("Failed to destroy warm-up map {}: {}", mapName, e.getMessage());
+            }
+        }
+    }
+
+    private Order syntheticOrder(String runId, int index, String nodeId) {
+        Order order = new Order("warmup-product", 1 + index % 5, 10.0 + index % 100, "warmup-customer-" + index, nodeId);
+        order.setOrderId("WARMUP-" + runId + "-" + index);
+        return order;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
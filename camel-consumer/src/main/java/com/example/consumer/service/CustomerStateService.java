@@ -0,0 +1,239 @@
+package com.example.consumer.service;
+
+import com.example.common.model.CustomerOrderStats;
+import com.example.common.model.Order;
+import com.example.common.service.ClusterService;
+import com.example.common.service.CustomerOrderRecorder;
+import com.example.common.util.ClusterConstants;
+import com.example.common.util.OrderPartitions;
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.partition.strategy.StringPartitioningStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-customer order totals in the customer-order-stats map.
+ * With cluster.orders.routing=any a customer's entry is keyed by name and lives on
+ * whichever member Hazelcast hashes it to, so most updates are a remote call. With
+ * key-owner routing the key carries the customer's order queue, placing the entry in
+ * the Hazelcast partition of that queue; the consumer owning the partition consumes
+ * the queue, so its updates run on local data. Local and remote updates are counted
+ * so the effect shows in the routing status.
+ */
+@Service
+public class CustomerStateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerStateService.class);
+
+    private static final String BENCHMARK_MAP = ClusterConstants.CUSTOMER_ORDER_STATS_MAP + "-benchmark";
+
+    // Scratch map for the consumer warm-up's synthetic orders
+    public static final String WARMUP_MAP = ClusterConstants.CUSTOMER_ORDER_STATS_MAP + "-warmup";
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Value("${cluster.orders.routing:" + ClusterConstants.ORDER_ROUTING_ANY + "}")
+    private String routingMode;
+
+    @Value("${cluster.orders.partitions:1}")
+    private int partitionCount;
+
+    private final AtomicLong localUpdates = new AtomicLong(0);
+    private final AtomicLong remoteUpdates = new AtomicLong(0);
+    private final AtomicLong failedUpdates = new AtomicLong(0);
+    private final AtomicLong updateNanos = new AtomicLong(0);
+
+    public boolean isKeyOwnerRouting() {
+        return ClusterConstants.ORDER_ROUTING_KEY_OWNER.equalsIgnoreCase(routingMode);
+    }
+
+    /**
+     * Add the order to its customer's totals; a failure is logged and does not fail the order
+     */
+    public void record(Order order) {
+        record(order, false);
+    }
+
+    /**
+     * Add the order to its customer's totals, or for a warm-up order to the same key in the
+     * warm-up scratch map without counting the update
+     */
+    public void record(Order order, boolean warmup) {
+        if (order.getCustomerName() == null) {
+            return;
+        }
+        String key = stateKey(order.getCustomerName());
+        boolean local = isLocal(key);
+        long startNanos = System.nanoTime();
+        try {
+            hazelcastInstance.<String, CustomerOrderStats>getMap(warmup ? WARMUP_MAP : ClusterConstants.CUSTOMER_ORDER_STATS_MAP)
+                .executeOnKey(key, recorderFor(order));
+            if (warmup) {
+                return;
+            }
+            updateNanos.addAndGet(System.nanoTime() - startNanos);
+            (local ? localUpdates : remoteUpdates).incrementAndGet();
+        } catch (Exception e) {
+            failedUpdates.incrementAndGet();
+            logger.warn("Failed to update customer state for order {}: {}", order.getOrderId(), e.getMessage());
+        }
+    }
+
+    public void recordAll(List<Order> orders) {
+        recordAll(orders, false);
+    }
+
+    public void recordAll(List<Order> orders, boolean warmup) {
+        orders.forEach(order -> record(order, warmup));
+    }
+
+    /**
+     * Totals of one customer, or null if none of its orders has been recorded
+     */
+    public CustomerOrderStats getStats(String customer) {
+        return hazelcastInstance.<String, CustomerOrderStats>getMap(ClusterConstants.CUSTOMER_ORDER_STATS_MAP)
+            .get(stateKey(customer));
+    }
+
+    public Map<String, Object> getStatus() {
+        long local = localUpdates.get();
+        long remote = remoteUpdates.get();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("routing", isKeyOwnerRouting() ? ClusterConstants.ORDER_ROUTING_KEY_OWNER : ClusterConstants.ORDER_ROUTING_ANY);
+        status.put("partitions", partitionCount);
+        status.put("localUpdates", local);
+        status.put("remoteUpdates", remote);
+        status.put("failedUpdates", failedUpdates.get());
+        status.put("localRatio", local + remote > 0 ? (double) local / (local + remote) : 0.0);
+        status.put("avgUpdateMicros", local + remote > 0 ? updateNanos.get() / 1000.0 / (local + remote) : 0.0);
+        return status;
+    }
+
+    /**
+     * Apply the same synthetic orders in both models on a scratch map and compare latency.
+     * "any" draws customers at random, as orders arrive on any consumer today; "key-owner"
+     * draws only customers whose state this member owns, as the partition-affine queues
+     * deliver them. The scratch map is destroyed afterwards.
+     */
+    public Map<String, Object> benchmark(int orders, int customers) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("nodeId", clusterService.getNodeId());
+        result.put("members", hazelcastInstance.getCluster().getMembers().size());
+        result.put("dataMembers", hazelcastInstance.getCluster().getMembers().stream().filter(member -> !member.isLiteMember()).count());
+        result.put("orders", orders);
+        result.put("customers", customers);
+
+        IMap<String, CustomerOrderStats> map = hazelcastInstance.getMap(BENCHMARK_MAP);
+        try {
+            List<String> anyKeys = new ArrayList<>(customers);
+            List<String> ownedKeys = new ArrayList<>(customers);
+            for (int i = 0; i < customers * 100 && ownedKeys.size() < customers; i++) {
+                String key = OrderPartitions.stateKey("benchmark-customer-" + i, Math.max(partitionCount, 1));
+                if (anyKeys.size() < customers) {
+                    anyKeys.add("benchmark-customer-" + i);
+                }
+                if (isLocal(key)) {
+                    ownedKeys.add(key);
+                }
+            }
+
+            result.put(ClusterConstants.ORDER_ROUTING_ANY, runBenchmark(map, anyKeys, orders));
+            if (ownedKeys.isEmpty()) {
+                result.put(ClusterConstants.ORDER_ROUTING_KEY_OWNER, Map.of("error", "this member owns no customer-order-stats partitions"));
+            } else {
+                result.put(ClusterConstants.ORDER_ROUTING_KEY_OWNER, runBenchmark(map, ownedKeys, orders));
+            }
+        } finally {
+            map.destroy();
+        }
+
+        logger.info("Customer state benchmark on node {}: {}", clusterService.getNodeId(), result);
+        return result;
+    }
+
+    private Map<String, Object> runBenchmark(IMap<String, CustomerOrderStats> map, List<String> keys, int orders) {
+        String nodeId = clusterService.getNodeId();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        // Untimed pass so both models start with proxies created and code compiled
+        for (int i = 0; i < Math.min(orders / 10, 1000); i++) {
+            String key = keys.get(random.nextInt(keys.size()));
+            map.executeOnKey(key, new CustomerOrderRecorder(key, "warmup-" + i, 1, 1.0, 0, nodeId));
+        }
+
+        long[] latencies = new long[orders];
+        int local = 0;
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            String key = keys.get(random.nextInt(keys.size()));
+            if (isLocal(key)) {
+                local++;
+            }
+            long opStart = System.nanoTime();
+            map.executeOnKey(key, new CustomerOrderRecorder(key, "benchmark-" + i, 1, 10.0,
+                                                           System.currentTimeMillis(), nodeId));
+            latencies[i] = System.nanoTime() - opStart;
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        Arrays.sort(latencies);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localRatio", orders > 0 ? (double) local / orders : 0.0);
+        stats.put("elapsedMs", elapsedNanos / 1_000_000);
+        stats.put("ordersPerSecond", elapsedNanos > 0 ? orders * 1_000_000_000.0 / elapsedNanos : 0.0);
+        stats.put("avgMicros", orders > 0 ? Arrays.stream(latencies).average().orElse(0) / 1000.0 : 0.0);
+        stats.put("p50Micros", percentileMicros(latencies, 0.50));
+        stats.put("p99Micros", percentileMicros(latencies, 0.99));
+        return stats;
+    }
+
+    private String stateKey(String customer) {
+        return isKeyOwnerRouting() ? OrderPartitions.stateKey(customer, Math.max(partitionCount, 1)) : customer;
+    }
+
+    /**
+     * Whether this member owns the partition the map places the key in
+     */
+    private boolean isLocal(String key) {
+        Member owner = hazelcastInstance.getPartitionService()
+            .getPartition(StringPartitioningStrategy.getPartitionKey(key))
+            .getOwner();
+        return owner != null && owner.localMember();
+    }
+
+    private CustomerOrderRecorder recorderFor(Order order) {
+        long orderedAt = order.getCreatedAt() != null
+            ? order.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            : System.currentTimeMillis();
+        return new CustomerOrderRecorder(order.getCustomerName(), order.getOrderId(),
+                                         order.getQuantity() != null ? order.getQuantity() : 0,
+                                         order.getTotalAmount(),
+                                         orderedAt, clusterService.getNodeId());
+    }
+
+    private static double percentileMicros(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0.0;
+        }
+        int index = Math.min(sortedNanos.length - 1, (int) Math.ceil(percentile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(index, 0)] / 1000.0;
+    }
+}
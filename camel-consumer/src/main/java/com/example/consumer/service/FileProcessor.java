@@ -3,7 +3,10 @@ package com.example.consumer.service;
 import com.example.common.model.Order;
 import com.example.common.model.ProcessedOrder;
 import com.example.common.service.ClusterService;
+import com.example.common.service.MetricTimeSeries;
+import com.example.common.util.ClusterConstants;
 import com.example.consumer.repository.ProcessedOrderRepository;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -29,9 +32,17 @@ public class FileProcessor {
     @Autowired
     private ClusterService clusterService;
     
+    @Autowired
+    private MetricTimeSeries metricTimeSeries;
+    
     private final AtomicLong filesProcessed = new AtomicLong(0);
     private final AtomicLong ordersFromFiles = new AtomicLong(0);
     
+    @PostConstruct
+    public void registerTimeSeries() {
+        metricTimeSeries.register(ClusterConstants.SERIES_FILES_PROCESSED, filesProcessed::get);
+    }
+    
     @Transactional
     public void processFile(File file) {
         String nodeId = clusterService.getNodeId();
@@ -65,6 +76,8 @@ public class FileProcessor {
             long orderCount = ordersFromFiles.addAndGet(orders.size());
             
             // Update cluster metrics
+            clusterService.incrementCounter(ClusterConstants.COUNTER_FILES_PROCESSED, 1);
+            clusterService.incrementCounter(ClusterConstants.COUNTER_ORDERS_FROM_FILES, orders.size());
             clusterService.storeMetric("files_processed", fileCount);
             clusterService.storeMetric("orders_from_files", orderCount);
             clusterService.storeMetric("consumer_last_file_processed", System.currentTimeMillis());
@@ -78,7 +91,7 @@ public class FileProcessor {
             
         } catch (Exception e) {
             logger.error("Failed to process file: {}", fileName, e);
-            clusterService.storeMetric("files_failed", filesProcessed.get());
+            clusterService.incrementCounter(ClusterConstants.COUNTER_FILES_FAILED, 1);
             throw new RuntimeException("File processing failed: " + fileName, e);
         }
     }
@@ -0,0 +1,104 @@
+package com.example.consumer.service;
+
+import com.example.common.model.Order;
+import com.example.common.model.OrderEvent;
+import com.example.common.service.ClusterService;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feeds processed orders to the order statistics job by putting them into the
+ * order-events map, whose event journal the job reads. Puts are asynchronous and
+ * entries expire shortly after, so the feed neither slows nor fails an order.
+ */
+@Service
+public class OrderEventFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventFeed.class);
+
+    // Scratch map for the consumer warm-up's synthetic orders; it has no event journal
+    public static final String WARMUP_MAP = ClusterConstants.ORDER_EVENTS_MAP + "-warmup";
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Value("${cluster.order-stats.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicLong published = new AtomicLong(0);
+    private final AtomicLong failed = new AtomicLong(0);
+
+    public void publish(Order order) {
+        publish(order, false);
+    }
+
+    /**
+     * Feed one order; a warm-up order goes to the warm-up scratch map and is not counted
+     */
+    public void publish(Order order, boolean warmup) {
+        if (!enabled) {
+            return;
+        }
+        put(events(warmup), OrderEvent.of(order, clusterService.getNodeId(), System.currentTimeMillis()), warmup);
+    }
+
+    public void publishAll(List<Order> orders) {
+        publishAll(orders, false);
+    }
+
+    public void publishAll(List<Order> orders, boolean warmup) {
+        if (!enabled) {
+            return;
+        }
+        IMap<String, OrderEvent> events = events(warmup);
+        long processedAt = System.currentTimeMillis();
+        for (Order order : orders) {
+            put(events, OrderEvent.of(order, clusterService.getNodeId(), processedAt), warmup);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("published", published.get());
+        status.put("failed", failed.get());
+        return status;
+    }
+
+    private void put(IMap<String, OrderEvent> events, OrderEvent event, boolean warmup) {
+        try {
+            events.setAsync(event.orderId(), event).whenComplete((result, error) -> {
+                if (warmup) {
+                    return;
+                }
+                if (error == null) {
+                    published.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                    logger.warn("Failed to publish order event {}: {}", event.orderId(), error.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logger.warn("Failed to publish order event {}: {}", event.orderId(), e.getMessage());
+        }
+    }
+
+    private IMap<String, OrderEvent> events(boolean warmup) {
+        return hazelcastInstance.getMap(warmup ? WARMUP_MAP : ClusterConstants.ORDER_EVENTS_MAP);
+    }
+}
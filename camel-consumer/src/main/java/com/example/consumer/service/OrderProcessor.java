@@ -3,16 +3,24 @@ package com.example.consumer.service;
 import com.example.common.model.Order;
 import com.example.common.model.ProcessedOrder;
 import com.example.common.service.ClusterService;
+import com.example.common.service.MetricTimeSeries;
+import com.example.common.util.ClusterConstants;
 import com.example.consumer.repository.ProcessedOrderRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -30,14 +38,53 @@ public class OrderProcessor {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private MetricTimeSeries metricTimeSeries;
+    
+    @Autowired
+    private CustomerStateService customerStateService;
+    
+    @Autowired
+    private OrderEventFeed orderEventFeed;
+    
+    @Value("${consumer.processing-rate.window:60000}")
+    private long processingRateWindow;
+    
     @Value("${spring.application.name:camel-consumer}")
     private String applicationName;
     
     private final AtomicLong processedCount = new AtomicLong(0);
+    private final AtomicLong processingMillis = new AtomicLong(0);
+    private final AtomicLong queueWaitMillis = new AtomicLong(0);
     private volatile LocalDateTime startTime = LocalDateTime.now();
+    // Set while the consumer warm-up runs synthetic orders on this thread
+    private final ThreadLocal<Boolean> warmingUp = ThreadLocal.withInitial(() -> false);
+    
+    @PostConstruct
+    public void registerTimeSeries() {
+        metricTimeSeries.register(ClusterConstants.SERIES_ORDERS_PROCESSED, processedCount::get);
+        metricTimeSeries.register(ClusterConstants.SERIES_ORDER_PROCESSING_MS, processingMillis::get);
+        metricTimeSeries.register(ClusterConstants.SERIES_ORDER_QUEUE_WAIT_MS, queueWaitMillis::get);
+    }
+    
+    /**
+     * Run the consumer warm-up's synthetic orders. They skip the simulated processing
+     * time, and their transactions are rolled back. Their post-commit step still runs
+     * at rollback, against the warm-up scratch maps and with counters changed by zero
+     */
+    public void warmUp(Runnable orders) {
+        warmingUp.set(true);
+        try {
+            orders.run();
+        } finally {
+            warmingUp.remove();
+        }
+    }
     
     @Transactional
     public void processOrder(String orderJson) {
+        long startNanos = System.nanoTime();
+        boolean warmup = warmingUp.get();
         try {
             // Parse the order
             Order order = objectMapper.readValue(orderJson, Order.class);
@@ -46,7 +93,7 @@ public class OrderProcessor {
                 order.getOrderId(), order.getCustomerName(), clusterService.getNodeId());
             
             // Simulate processing time
-            Thread.sleep(100 + (long)(Math.random() * 200)); // 100-300ms
+            simulateProcessing(warmup);
             
             // Create processed order entity
             ProcessedOrder processedOrder = ProcessedOrder.fromOrder(order, clusterService.getNodeId());
@@ -54,34 +101,146 @@ public class OrderProcessor {
             // Save to database
             repository.save(processedOrder);
             
-            // Update local metrics
-            long count = processedCount.incrementAndGet();
-            
-            // Update cluster metrics
-            clusterService.storeMetric("orders_processed", count);
-            clusterService.storeMetric("consumer_last_processed", System.currentTimeMillis());
-            
-            logger.info("Order {} processed successfully. Total processed by this node: {}", 
-                order.getOrderId(), count);
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            afterCommit(warmup, () -> {
+                // Update the customer's totals, on local data with key-owner routing
+                customerStateService.record(order, warmup);
+                
+                // Feed the live order statistics
+                orderEventFeed.publish(order, warmup);
+                
+                long count = warmup ? recordProcessed(0, 0) : recordProcessed(1, elapsedMillis);
+                logger.info("Order {} processed successfully. Total processed by this node: {}", 
+                    order.getOrderId(), count);
+            });
                 
         } catch (Exception e) {
             logger.error("Failed to process order: {}", orderJson, e);
-            clusterService.storeMetric("orders_failed", processedCount.get());
+            // The warm-up counts its own failures
+            clusterService.incrementCounter(ClusterConstants.COUNTER_ORDERS_FAILED, warmup ? 0 : 1);
             throw new RuntimeException("Order processing failed", e);
         }
     }
     
+    /**
+     * Unpack a multi-order envelope and persist all of its orders in one transaction
+     */
+    @Transactional
+    public void processOrderBatch(String batchJson) {
+        long startNanos = System.nanoTime();
+        boolean warmup = warmingUp.get();
+        List<Order> orders = null;
+        try {
+            orders = objectMapper.readValue(batchJson, new TypeReference<List<Order>>() {});
+            
+            logger.info("Processing batch of {} orders by node: {}", orders.size(), clusterService.getNodeId());
+            
+            List<ProcessedOrder> processedOrders = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                // Simulate processing time
+                simulateProcessing(warmup);
+                processedOrders.add(ProcessedOrder.fromOrder(order, clusterService.getNodeId()));
+            }
+            
+            // Batch save to database
+            repository.saveAll(processedOrders);
+            
+            List<Order> batch = orders;
+            long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+            afterCommit(warmup, () -> {
+                customerStateService.recordAll(batch, warmup);
+                orderEventFeed.publishAll(batch, warmup);
+                
+                long count = warmup ? recordProcessed(0, 0) : recordProcessed(batch.size(), elapsedMillis);
+                logger.info("Batch of {} orders processed successfully. Total processed by this node: {}", 
+                    batch.size(), count);
+            });
+                
+        } catch (Exception e) {
+            logger.error("Failed to process order batch: {}", batchJson, e);
+            // Every order of a parsed envelope failed with it; an unparseable envelope counts once
+            clusterService.incrementCounter(ClusterConstants.COUNTER_ORDERS_FAILED,
+                warmup ? 0 : orders != null ? orders.size() : 1);
+            throw new RuntimeException("Order batch processing failed", e);
+        }
+    }
+    
+    private void simulateProcessing(boolean warmup) throws InterruptedException {
+        if (!warmup) {
+            Thread.sleep(100 + (long)(Math.random() * 200)); // 100-300ms
+        }
+    }
+    
+    /**
+     * Local and cluster metrics of committed orders; returns this node's total. Zero
+     * orders, from the warm-up, make the same calls without changing anything
+     */
+    private long recordProcessed(int orders, long elapsedMillis) {
+        long count = processedCount.addAndGet(orders);
+        processingMillis.addAndGet(elapsedMillis);
+        
+        clusterService.incrementCounter(ClusterConstants.COUNTER_ORDERS_PROCESSED, orders);
+        clusterService.storeMetric("orders_processed", count);
+        if (orders > 0) {
+            clusterService.storeMetric("consumer_last_processed", System.currentTimeMillis());
+        }
+        return count;
+    }
+    
+    /**
+     * Run the cluster side of processing once the database transaction has committed, so
+     * rolled-back orders, such as a failed batch that is redelivered, are neither counted
+     * nor fed to the customer totals and live statistics. Warm-up orders always roll back
+     * and run it at rollback instead, against scratch targets
+     */
+    private void afterCommit(boolean warmup, Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && !warmup) {
+                    return;
+                }
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    logger.error("Failed to record committed orders: {}", e.getMessage(), e);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Time the orders of one message spent on the broker before this node received them
+     */
+    public void recordQueueWait(long waitMillis, int orders) {
+        queueWaitMillis.addAndGet(Math.max(0, waitMillis) * orders);
+    }
+    
     public long getProcessedCount() {
         return processedCount.get();
     }
     
+    /**
+     * Total time spent processing orders, for latency over an interval
+     */
+    public long getProcessingMillis() {
+        return processingMillis.get();
+    }
+    
     public LocalDateTime getStartTime() {
         return startTime;
     }
     
+    /**
+     * Orders per second over the last processing-rate window, from this node's time series
+     */
     public double getProcessingRate() {
-        long duration = java.time.Duration.between(startTime, LocalDateTime.now()).toSeconds();
-        return duration > 0 ? (double) processedCount.get() / duration : 0.0;
+        return metricTimeSeries.rate(clusterService.getNodeId(), ClusterConstants.SERIES_ORDERS_PROCESSED,
+                                     processingRateWindow);
     }
     
     public void resetMetrics() {
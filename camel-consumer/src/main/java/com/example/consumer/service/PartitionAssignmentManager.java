@@ -0,0 +1,322 @@
+package com.example.consumer.service;
+
+import com.example.common.model.WorkAssignment;
+import com.example.common.service.ClusterService;
+import com.example.common.service.ClusterStartup;
+import com.example.common.util.ClusterConstants;
+import com.example.common.util.OrderPartitions;
+import com.hazelcast.cluster.Member;
+import com.hazelcast.cluster.MembershipEvent;
+import com.hazelcast.cluster.MembershipListener;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.partition.MigrationListener;
+import com.hazelcast.partition.MigrationState;
+import com.hazelcast.partition.ReplicaMigrationEvent;
+import jakarta.annotation.PreDestroy;
+import org.apache.camel.CamelContext;
+import org.apache.camel.ServiceStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Assigns order queue partitions to consumer nodes.
+ * Every consumer derives the same assignment from the Hazelcast member list: consumer
+ * members are sorted by UUID and partition p goes to consumer p mod N. While the leader
+ * coordinator's load-based plan in the work-assignments map covers every partition with
+ * the live consumers, that plan is used instead. Membership changes and new plans
+ * trigger a rebalance that starts and stops the local partition routes.
+ * With cluster.orders.routing=key-owner, queue orders.p instead goes to the consumer
+ * that owns the Hazelcast partition of the name "orders.p", where the customer state of
+ * its orders is stored, and Hazelcast partition migrations trigger a rebalance too;
+ * queues whose partition is owned by a non-consumer member are spread round-robin.
+ * Partitions are plain JMS queues, so the brief overlap while nodes rebalance only
+ * means two competing consumers, never lost orders.
+ */
+@Service
+public class PartitionAssignmentManager implements MembershipListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionAssignmentManager.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private CamelContext camelContext;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Value("${cluster.orders.partitions:1}")
+    private int partitionCount;
+
+    @Value("${cluster.orders.routing:" + ClusterConstants.ORDER_ROUTING_ANY + "}")
+    private String routingMode;
+
+    private final ExecutorService rebalanceExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "partition-rebalance");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Set<Integer> assignedPartitions = Set.of();
+    private UUID listenerId;
+    private UUID migrationListenerId;
+
+    public static String partitionRouteId(int partition) {
+        return ClusterConstants.CONSUMER_ORDER_ROUTE_ID + "-p" + partition;
+    }
+
+    /**
+     * Take the first assignment once the Camel routes exist and the node has joined the
+     * cluster, then follow membership
+     */
+    @EventListener(ClusterStartup.ClusterReadyEvent.class)
+    public void start() {
+        if (partitionCount <= 1) {
+            logger.info("Order queue partitioning disabled, consuming the single {} queue",
+                       ClusterConstants.ORDERS_QUEUE);
+            return;
+        }
+        listenerId = hazelcastInstance.getCluster().addMembershipListener(this);
+        if (isKeyOwnerRouting()) {
+            migrationListenerId = hazelcastInstance.getPartitionService().addMigrationListener(new OwnershipListener());
+        }
+        rebalanceExecutor.submit(this::rebalance);
+    }
+
+    /**
+     * Recompute the local partitions, e.g. after a new work assignment
+     */
+    public void rebalanceNow() {
+        if (partitionCount > 1) {
+            rebalanceExecutor.submit(this::rebalance);
+        }
+    }
+
+    @Override
+    public void memberAdded(MembershipEvent membershipEvent) {
+        if (isConsumer(membershipEvent.getMember())) {
+            rebalanceExecutor.submit(this::rebalance);
+        }
+    }
+
+    @Override
+    public void memberRemoved(MembershipEvent membershipEvent) {
+        if (isConsumer(membershipEvent.getMember())) {
+            rebalanceExecutor.submit(this::rebalance);
+        }
+    }
+
+    /**
+     * Recompute the local partitions and start/stop routes for the difference.
+     * Runs on a single thread so route operations never overlap.
+     */
+    private void rebalance() {
+        try {
+            Set<Integer> target = computeAssignment();
+            Set<Integer> current = assignedPartitions;
+
+            for (Integer partition : current) {
+                if (!target.contains(partition)) {
+                    camelContext.getRouteController().stopRoute(partitionRouteId(partition));
+                }
+            }
+            for (Integer partition : target) {
+                String routeId = partitionRouteId(partition);
+                if (camelContext.getRouteController().getRouteStatus(routeId) != ServiceStatus.Started) {
+                    camelContext.getRouteController().startRoute(routeId);
+                }
+            }
+
+            assignedPartitions = target;
+            hazelcastInstance.getMap(ClusterConstants.ORDER_PARTITION_ASSIGNMENTS_MAP)
+                .put(clusterService.getNodeId(), new ArrayList<>(target));
+
+            logger.info("Node {} now consumes order partitions {} of {} ({} routing)",
+                       clusterService.getNodeId(), target, partitionCount, routingMode);
+
+        } catch (Exception e) {
+            logger.error("Error rebalancing order partitions on node {}", clusterService.getNodeId(), e);
+        }
+    }
+
+    private Set<Integer> computeAssignment() {
+        List<Member> consumers = new ArrayList<>();
+        for (Member member : hazelcastInstance.getCluster().getMembers()) {
+            if (isConsumer(member)) {
+                consumers.add(member);
+            }
+        }
+        consumers.sort(Comparator.comparing(Member::getUuid));
+        if (isKeyOwnerRouting()) {
+            return computeKeyOwnerAssignment(consumers);
+        }
+        Set<Integer> planned = plannedAssignment(consumers);
+        if (planned != null) {
+            return planned;
+        }
+
+        UUID localUuid = hazelcastInstance.getCluster().getLocalMember().getUuid();
+        int index = -1;
+        for (int i = 0; i < consumers.size(); i++) {
+            if (consumers.get(i).getUuid().equals(localUuid)) {
+                index = i;
+            }
+        }
+
+        Set<Integer> partitions = new TreeSet<>();
+        if (index < 0) {
+            return partitions;
+        }
+        for (int partition = index; partition < partitionCount; partition += consumers.size()) {
+            partitions.add(partition);
+        }
+        return partitions;
+    }
+
+    /**
+     * Each queue goes to the owner of its Hazelcast partition; queues owned by other
+     * members, or not yet owned, are dealt round-robin over the consumers in queue order,
+     * so every consumer computes the same result
+     */
+    private Set<Integer> computeKeyOwnerAssignment(List<Member> consumers) {
+        Set<Integer> partitions = new TreeSet<>();
+        if (consumers.isEmpty()) {
+            return partitions;
+        }
+        Member localMember = hazelcastInstance.getCluster().getLocalMember();
+        int unowned = 0;
+        for (int partition = 0; partition < partitionCount; partition++) {
+            Member owner = hazelcastInstance.getPartitionService()
+                .getPartition(OrderPartitions.queueName(partition))
+                .getOwner();
+            if (owner == null || !consumers.contains(owner)) {
+                owner = consumers.get(unowned++ % consumers.size());
+            }
+            if (owner.getUuid().equals(localMember.getUuid())) {
+                partitions.add(partition);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * This node's partitions from the coordinator's plan, or null unless every live
+     * consumer has an assignment of the same generation and together they cover every
+     * partition
+     */
+    private Set<Integer> plannedAssignment(List<Member> consumers) {
+        Set<String> nodeIds = new TreeSet<>();
+        for (Member member : consumers) {
+            String memberNodeId = member.getAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_ID);
+            if (memberNodeId == null) {
+                return null;
+            }
+            nodeIds.add(memberNodeId);
+        }
+
+        Map<String, WorkAssignment> plans;
+        try {
+            plans = hazelcastInstance.<String, WorkAssignment>getMap(ClusterConstants.WORK_ASSIGNMENTS_MAP).getAll(nodeIds);
+        } catch (Exception e) {
+            logger.debug("Failed to read work assignments: {}", e.getMessage());
+            return null;
+        }
+        if (plans.size() != nodeIds.size()) {
+            return null;
+        }
+
+        long generation = -1;
+        Set<Integer> covered = new TreeSet<>();
+        for (WorkAssignment plan : plans.values()) {
+            if (generation >= 0 && plan.generation() != generation) {
+                return null;
+            }
+            generation = plan.generation();
+            for (int partition : plan.partitions()) {
+                covered.add(partition);
+            }
+        }
+        for (int partition = 0; partition < partitionCount; partition++) {
+            if (!covered.contains(partition)) {
+                return null;
+            }
+        }
+
+        Set<Integer> partitions = new TreeSet<>();
+        for (int partition : plans.get(clusterService.getNodeId()).partitions()) {
+            partitions.add(partition);
+        }
+        return partitions;
+    }
+
+    private boolean isKeyOwnerRouting() {
+        return ClusterConstants.ORDER_ROUTING_KEY_OWNER.equalsIgnoreCase(routingMode);
+    }
+
+    private boolean isConsumer(Member member) {
+        return ClusterConstants.NODE_TYPE_CONSUMER.equalsIgnoreCase(
+            member.getAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_TYPE));
+    }
+
+    public Set<Integer> getAssignedPartitions() {
+        return assignedPartitions;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebalanceExecutor.shutdownNow();
+        try {
+            if (listenerId != null) {
+                hazelcastInstance.getCluster().removeMembershipListener(listenerId);
+            }
+            if (migrationListenerId != null) {
+                hazelcastInstance.getPartitionService().removeMigrationListener(migrationListenerId);
+            }
+            hazelcastInstance.getMap(ClusterConstants.ORDER_PARTITION_ASSIGNMENTS_MAP)
+                .remove(clusterService.getNodeId());
+        } catch (Exception e) {
+            logger.debug("Error releasing partition assignment: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Follows Hazelcast partition ownership; one rebalance per completed migration round
+     */
+    private class OwnershipListener implements MigrationListener {
+
+        @Override
+        public void migrationStarted(MigrationState state) {
+        }
+
+        @Override
+        public void migrationFinished(MigrationState state) {
+            rebalanceExecutor.submit(PartitionAssignmentManager.this::rebalance);
+        }
+
+        @Override
+        public void replicaMigrationCompleted(ReplicaMigrationEvent event) {
+        }
+
+        @Override
+        public void replicaMigrationFailed(ReplicaMigrationEvent event) {
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.consumer.service;
+
+import com.example.common.model.ConsumerPressure;
+import com.example.common.service.ClusterService;
+import com.example.common.service.ClusterStartup;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.core.HazelcastInstance;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Route;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes this consumer's pressure score to the consumer-pressure map, where the
+ * producers read it. Each interval the score is recomputed from the processing latency
+ * per order (smoothed across intervals), the database pool's busy and waiting threads
+ * against its size, and the exchanges in flight on the order routes. A stalled database
+ * shows up in the pool and in-flight parts even before any order completes slowly.
+ */
+@Service
+public class PressureMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PressureMonitor.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private OrderProcessor orderProcessor;
+
+    @Autowired
+    private CamelContext camelContext;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${cluster.backpressure.interval:1000}")
+    private long interval;
+
+    // Processing latency per order that counts as full pressure
+    @Value("${cluster.backpressure.latency-limit:1000}")
+    private double latencyLimit;
+
+    // Order messages in flight on this node that count as full pressure
+    @Value("${cluster.backpressure.max-in-flight:20}")
+    private int maxInFlight;
+
+    private ScheduledExecutorService scheduler;
+    private long lastProcessed;
+    private long lastProcessingMillis;
+    private double latencyMillis;
+    private volatile ConsumerPressure current;
+
+    @EventListener(ClusterStartup.ClusterReadyEvent.class)
+    public void start() {
+        lastProcessed = orderProcessor.getProcessedCount();
+        lastProcessingMillis = orderProcessor.getProcessingMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pressure-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::publish, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("Publishing consumer pressure of node {} every {} ms", clusterService.getNodeId(), interval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            hazelcastInstance.getMap(ClusterConstants.CONSUMER_PRESSURE_MAP).delete(clusterService.getNodeId());
+        } catch (Exception e) {
+            logger.debug("Error removing consumer pressure: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        ConsumerPressure pressure = current;
+        if (pressure != null) {
+            status.put("score", pressure.score());
+            status.put("latencyMs", pressure.latencyMillis());
+            status.put("latencyPressure", pressure.latencyPressure());
+            status.put("poolPressure", pressure.poolPressure());
+            status.put("inFlight", pressure.inFlight());
+            status.put("inFlightPressure", pressure.inFlightPressure());
+        }
+        return status;
+    }
+
+    private void publish() {
+        try {
+            ConsumerPressure pressure = measure();
+            current = pressure;
+            hazelcastInstance.getMap(ClusterConstants.CONSUMER_PRESSURE_MAP).set(pressure.nodeId(), pressure);
+            if (pressure.score() >= 1.0) {
+                logger.debug("Consumer {} under pressure: {}", pressure.nodeId(), pressure);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to publish consumer pressure: {}", e.getMessage());
+        }
+    }
+
+    private ConsumerPressure measure() {
+        int inFlight = 0;
+        for (Route route : camelContext.getRoutes()) {
+            if (route.getRouteId().startsWith(ClusterConstants.CONSUMER_ORDER_ROUTE_ID)) {
+                inFlight += camelContext.getInflightRepository().size(route.getRouteId());
+            }
+        }
+
+        long processed = orderProcessor.getProcessedCount();
+        long processingMillis = orderProcessor.getProcessingMillis();
+        long completed = processed - lastProcessed;
+        long busyMillis = processingMillis - lastProcessingMillis;
+        lastProcessed = processed;
+        lastProcessingMillis = processingMillis;
+        if (completed > 0 && busyMillis >= 0) {
+            latencyMillis = latencyMillis > 0 ? 0.5 * latencyMillis + 0.5 * busyMillis / completed
+                                              : (double) busyMillis / completed;
+        } else if (inFlight == 0) {
+            // Idle: let the latency of the last orders fade
+            latencyMillis *= 0.5;
+        }
+
+        double poolPressure = 0.0;
+        if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            poolPressure = (double) (pool.getActiveConnections() + pool.getThreadsAwaitingConnection())
+                / Math.max(hikari.getMaximumPoolSize(), 1);
+        }
+
+        double latencyPressure = latencyLimit > 0 ? latencyMillis / latencyLimit : 0.0;
+        double inFlightPressure = maxInFlight > 0 ? (double) inFlight / maxInFlight : 0.0;
+        double score = Math.max(latencyPressure, Math.max(poolPressure, inFlightPressure));
+        return new ConsumerPressure(clusterService.getNodeId(), score, latencyMillis, latencyPressure,
+                                    poolPressure, inFlightPressure, inFlight, System.currentTimeMillis());
+    }
+}
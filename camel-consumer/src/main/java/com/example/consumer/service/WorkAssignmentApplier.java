@@ -0,0 +1,192 @@
+package com.example.consumer.service;
+
+import com.example.common.model.WorkAssignment;
+import com.example.common.service.ClusterService;
+import com.example.common.service.ClusterStartup;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import jakarta.annotation.PreDestroy;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Route;
+import org.apache.camel.ServiceStatus;
+import org.apache.camel.component.file.GenericFileConsumer;
+import org.apache.camel.component.jms.JmsConsumer;
+import org.apache.camel.component.jms.JmsEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Applies the work assignment the leader coordinator computes for this consumer.
+ * Listener concurrency is set on every order route's endpoint, and on its running
+ * listener container, so it holds across route restarts; partitions are handed to
+ * PartitionAssignmentManager; file slots cap the files taken per poll, and 0 suspends
+ * the file route. Once applied, the assignment is written back marked applied, which
+ * is how the coordinator sees that the node followed it.
+ */
+@Service
+public class WorkAssignmentApplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkAssignmentApplier.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private CamelContext camelContext;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private PartitionAssignmentManager partitionAssignmentManager;
+
+    private final ExecutorService applyExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "work-assignment");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile WorkAssignment current;
+    private UUID listenerId;
+
+    /**
+     * Follow this node's entry once the routes exist and the node has joined
+     */
+    @EventListener(ClusterStartup.ClusterReadyEvent.class)
+    public void start() {
+        String nodeId = clusterService.getNodeId();
+        listenerId = assignments().addEntryListener(new AssignmentListener(), nodeId, true);
+        WorkAssignment existing = assignments().get(nodeId);
+        if (existing != null) {
+            applyExecutor.submit(() -> apply(existing));
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        WorkAssignment assignment = current;
+        if (assignment == null) {
+            status.put("generation", 0);
+            return status;
+        }
+        status.put("generation", assignment.generation());
+        status.put("concurrency", assignment.concurrency());
+        status.put("partitions", Arrays.stream(assignment.partitions()).boxed().toList());
+        status.put("fileSlots", assignment.fileSlots());
+        status.put("reason", assignment.reason());
+        status.put("assignedAt", assignment.assignedAt());
+        status.put("appliedAt", assignment.appliedAt());
+        return status;
+    }
+
+    /**
+     * Apply an assignment newer than the last one and report it back; runs on one thread
+     */
+    private void apply(WorkAssignment assignment) {
+        WorkAssignment previous = current;
+        if (previous != null && assignment.generation() <= previous.generation()) {
+            return;
+        }
+        try {
+            int routes = applyConcurrency(assignment.concurrency());
+            partitionAssignmentManager.rebalanceNow();
+            applyFileSlots(assignment.fileSlots());
+
+            WorkAssignment applied = assignment.applied(System.currentTimeMillis());
+            current = applied;
+            // Only if the coordinator has not written a newer assignment meanwhile
+            assignments().replace(assignment.nodeId(), assignment, applied);
+
+            logger.info("Node {} applied work assignment {} ({}): concurrency {} on {} routes, partitions {}, file slots {}",
+                       assignment.nodeId(), assignment.generation(), assignment.reason(), assignment.concurrency(),
+                       routes, Arrays.toString(assignment.partitions()), assignment.fileSlots());
+        } catch (Exception e) {
+            logger.error("Failed to apply work assignment {} on node {}", assignment.generation(), assignment.nodeId(), e);
+        }
+    }
+
+    private int applyConcurrency(int concurrency) throws Exception {
+        int routes = 0;
+        for (Route route : camelContext.getRoutes()) {
+            if (!route.getRouteId().startsWith(ClusterConstants.CONSUMER_ORDER_ROUTE_ID)
+                || !(route.getEndpoint() instanceof JmsEndpoint endpoint)) {
+                continue;
+            }
+            // Setting the concurrent consumers first raises the maximum along with it
+            endpoint.setConcurrentConsumers(concurrency);
+            endpoint.setMaxConcurrentConsumers(concurrency * 2);
+            if (route.getConsumer() instanceof JmsConsumer consumer
+                && camelContext.getRouteController().getRouteStatus(route.getRouteId()) == ServiceStatus.Started
+                && consumer.getListenerContainer() instanceof DefaultMessageListenerContainer container) {
+                container.setConcurrentConsumers(concurrency);
+                container.setMaxConcurrentConsumers(concurrency * 2);
+            }
+            routes++;
+        }
+        return routes;
+    }
+
+    private void applyFileSlots(int fileSlots) throws Exception {
+        Route route = camelContext.getRoute(ClusterConstants.CONSUMER_FILE_ROUTE_ID);
+        if (route == null) {
+            return;
+        }
+        ServiceStatus status = camelContext.getRouteController().getRouteStatus(route.getRouteId());
+        if (fileSlots <= 0) {
+            if (status == ServiceStatus.Started) {
+                camelContext.getRouteController().suspendRoute(route.getRouteId());
+            }
+            return;
+        }
+        if (route.getConsumer() instanceof GenericFileConsumer<?> consumer) {
+            consumer.setMaxMessagesPerPoll(fileSlots);
+        }
+        if (status == ServiceStatus.Suspended) {
+            camelContext.getRouteController().resumeRoute(route.getRouteId());
+        }
+    }
+
+    private IMap<String, WorkAssignment> assignments() {
+        return hazelcastInstance.getMap(ClusterConstants.WORK_ASSIGNMENTS_MAP);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        applyExecutor.shutdownNow();
+        try {
+            if (listenerId != null) {
+                assignments().removeEntryListener(listenerId);
+            }
+        } catch (Exception e) {
+            logger.debug("Error removing work assignment listener: {}", e.getMessage());
+        }
+    }
+
+    private class AssignmentListener implements EntryAddedListener<String, WorkAssignment>,
+                                                EntryUpdatedListener<String, WorkAssignment> {
+
+        @Override
+        public void entryAdded(EntryEvent<String, WorkAssignment> event) {
+            applyExecutor.submit(() -> apply(event.getValue()));
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, WorkAssignment> event) {
+            applyExecutor.submit(() -> apply(event.getValue()));
+        }
+    }
+}
@@ -2,7 +2,18 @@ package com.example.coordinator.controller;
 
 import com.example.coordinator.service.ClusterMonitor;
 import com.example.coordinator.service.DatabaseReporter;
+import com.example.coordinator.service.FailureDetector;
+import com.example.coordinator.service.LoadBalancer;
+import com.example.coordinator.service.SerializationBenchmark;
+import com.example.common.model.OrderWindowStats;
+import com.example.common.service.ClusterEventBus;
+import com.example.common.service.ClusterMetricsQuery;
+import com.example.common.service.ClusterRateLimiter;
 import com.example.common.service.ClusterService;
+import com.example.common.service.LeaderElection;
+import com.example.common.service.MetricTimeSeries;
+import com.example.common.service.OrderStatistics;
+import com.example.common.util.ClusterConstants;
 import org.apache.camel.CamelContext;
 import org.apache.camel.ProducerTemplate;
 import org.apache.camel.Route;
@@ -31,9 +42,36 @@ public class CoordinatorController {
     @Autowired
     private ClusterMonitor clusterMonitor;
     
+    @Autowired
+    private LeaderElection leaderElection;
+    
+    @Autowired
+    private ClusterMetricsQuery clusterMetricsQuery;
+    
+    @Autowired
+    private MetricTimeSeries metricTimeSeries;
+    
     @Autowired
     private DatabaseReporter databaseReporter;
     
+    @Autowired
+    private FailureDetector failureDetector;
+    
+    @Autowired
+    private ClusterEventBus eventBus;
+    
+    @Autowired
+    private SerializationBenchmark serializationBenchmark;
+    
+    @Autowired
+    private ClusterRateLimiter rateLimiter;
+    
+    @Autowired
+    private LoadBalancer loadBalancer;
+    
+    @Autowired
+    private OrderStatistics orderStatistics;
+    
     @Autowired
     private CamelContext camelContext;
     
@@ -92,6 +130,19 @@ public class CoordinatorController {
         }
     }
     
+    /**
+     * Get leader lease state and measured leader takeover times
+     */
+    @GetMapping("/leader")
+    public ResponseEntity<Map<String, Object>> getLeaderStatus() {
+        try {
+            return ResponseEntity.ok(leaderElection.getStatus());
+        } catch (Exception e) {
+            logger.error("Error getting leader status", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     /**
      * Get comprehensive cluster information
      */
@@ -108,6 +159,77 @@ public class CoordinatorController {
         }
     }
     
+    /**
+     * Failure detector state: phi, heartbeat age and member of every node
+     */
+    @GetMapping("/failure-detector")
+    public ResponseEntity<Map<String, Object>> getFailureDetectorStatus() {
+        return ResponseEntity.ok(failureDetector.getStatus());
+    }
+    
+    /**
+     * Cluster event bus: this node's publisher and subscriber statistics and every node's subscriber lag
+     */
+    @GetMapping("/events")
+    public ResponseEntity<Map<String, Object>> getEventBusStatus() {
+        try {
+            Map<String, Object> status = new LinkedHashMap<>(eventBus.getStatus());
+            status.put("lagByNode", clusterMetricsQuery.latestByNode(ClusterEventBus.LAG_METRIC));
+            return ResponseEntity.ok(status);
+        } catch (Exception e) {
+            logger.error("Error getting event bus status", e);
+            Map<String, Object> error = Map.of("error", e.getMessage());
+            return ResponseEntity.internalServerError().body(error);
+        }
+    }
+    
+    /**
+     * Cluster-wide rate limit buckets with their current balance and total permits leased
+     */
+    @GetMapping("/rate-limits")
+    public ResponseEntity<Map<String, Object>> getRateLimits() {
+        try {
+            Map<String, Object> limits = new LinkedHashMap<>();
+            limits.put("buckets", rateLimiter.getBuckets());
+            limits.put("local", rateLimiter.getStatus());
+            return ResponseEntity.ok(limits);
+        } catch (Exception e) {
+            logger.error("Error getting rate limits", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Change a cluster-wide rate limit at runtime; 0 removes the limit
+     */
+    @PutMapping("/rate-limits/{name}")
+    public ResponseEntity<Map<String, Object>> setRateLimit(@PathVariable String name,
+                                                            @RequestParam double permitsPerSecond) {
+        try {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("bucket", rateLimiter.setLimit(name, permitsPerSecond));
+            response.put("changedBy", nodeId);
+            response.put("timestamp", LocalDateTime.now());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error setting rate limit {}", name, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
+    /**
+     * Consumer pressure, producer throttling and which consumers throttle which producers
+     */
+    @GetMapping("/backpressure")
+    public ResponseEntity<Map<String, Object>> getBackpressure() {
+        try {
+            return ResponseEntity.ok(clusterMonitor.getBackpressureState());
+        } catch (Exception e) {
+            logger.error("Error getting backpressure state", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     /**
      * Get cluster health report
      */
@@ -124,6 +246,60 @@ public class CoordinatorController {
         }
     }
     
+    /**
+     * Per-metric summary of the cluster metrics, computed on the partitions
+     */
+    @GetMapping("/cluster/metrics")
+    public ResponseEntity<Map<String, Map<String, Object>>> getClusterMetrics() {
+        return ResponseEntity.ok(clusterMetricsQuery.summarize());
+    }
+    
+    /**
+     * Rate, delta and percentiles of one node's metric over a sliding window
+     */
+    @GetMapping("/metrics/series/{nodeId}/{metricName}")
+    public ResponseEntity<Map<String, Object>> getMetricSeries(@PathVariable String nodeId,
+                                                               @PathVariable String metricName,
+                                                               @RequestParam(defaultValue = "60000") long window) {
+        Map<String, Object> series = new HashMap<>();
+        series.put("nodeId", nodeId);
+        series.put("metricName", metricName);
+        series.put("windowMs", window);
+        series.put("rate", metricTimeSeries.rate(nodeId, metricName, window));
+        series.put("delta", metricTimeSeries.delta(nodeId, metricName, window));
+        series.put("percentiles", metricTimeSeries.percentiles(nodeId, metricName, window, 50, 90, 99));
+        series.put("samples", metricTimeSeries.window(nodeId, metricName, window));
+        return ResponseEntity.ok(series);
+    }
+    
+    /**
+     * Cluster-wide totals (orders, files, failures, dead letters)
+     */
+    @GetMapping("/cluster/counters")
+    public ResponseEntity<Map<String, Long>> getClusterCounters() {
+        return ResponseEntity.ok(clusterService.getCounters());
+    }
+    
+    /**
+     * Sum, max, per-node values and top nodes of one cluster metric
+     */
+    @GetMapping("/cluster/metrics/{metricName}")
+    public ResponseEntity<Map<String, Object>> getClusterMetric(@PathVariable String metricName,
+                                                                @RequestParam(defaultValue = "5") int top) {
+        try {
+            Map<String, Object> metric = new HashMap<>();
+            metric.put("metricName", metricName);
+            metric.put("sum", clusterMetricsQuery.sum(metricName));
+            metric.put("max", clusterMetricsQuery.max(metricName));
+            metric.put("byNode", clusterMetricsQuery.latestByNode(metricName));
+            metric.put("top", clusterMetricsQuery.top(metricName, Math.max(1, top)));
+            return ResponseEntity.ok(metric);
+        } catch (Exception e) {
+            logger.error("Error querying cluster metric {}", metricName, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     /**
      * Get coordinator route information
      */
@@ -180,6 +356,28 @@ public class CoordinatorController {
         }
     }
     
+    /**
+     * Live order statistics from the order statistics job: the latest sliding window
+     * and the last tumbling windows, read from the order-stats map
+     */
+    @GetMapping("/analytics/live")
+    public ResponseEntity<Map<String, Object>> getLiveAnalytics(
+            @RequestParam(defaultValue = "15") int windows) {
+        try {
+            Map<String, Object> live = new LinkedHashMap<>();
+            live.put("job", orderStatistics.getJobStatus());
+            OrderWindowStats latest = orderStatistics.getLatest();
+            live.put("latest", latest != null ? latest.toMap() : null);
+            live.put("windows", orderStatistics.getWindows(windows).stream()
+                .map(OrderWindowStats::toMap)
+                .collect(Collectors.toList()));
+            return ResponseEntity.ok(live);
+        } catch (Exception e) {
+            logger.error("Error getting live analytics", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     /**
      * Manual cluster health check trigger
      */
@@ -268,6 +466,24 @@ public class CoordinatorController {
         }
     }
     
+    /**
+     * Consumers' work assignments and the report of the last rebalance
+     */
+    @GetMapping("/cluster/assignments")
+    public ResponseEntity<Map<String, Object>> getWorkAssignments() {
+        try {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("assignments", loadBalancer.getAssignments());
+            response.put("lastRebalance", loadBalancer.getLastReport());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error getting work assignments", e);
+            return ResponseEntity.internalServerError().body(
+                Map.of("error", e.getMessage())
+            );
+        }
+    }
+    
     /**
      * Manual cluster rebalancing trigger
      */
@@ -280,7 +496,7 @@ public class CoordinatorController {
                 );
             }
             
-            String result = producerTemplate.requestBody("direct:manual-rebalance", "", String.class);
+            Map<?, ?> result = producerTemplate.requestBody("direct:manual-rebalance", "", Map.class);
             
             Map<String, Object> response = new HashMap<>();
             response.put("result", result);
@@ -340,7 +556,7 @@ public class CoordinatorController {
      * Get coordinator metrics and statistics
      */
     @GetMapping("/metrics")
-    public ResponseEntity<Map<String, Object>> getMetrics() {
+    public ResponseEntity<Map<String, Object>> getMetrics(@RequestParam(defaultValue = "60000") long window) {
         try {
             Map<String, Object> metrics = new HashMap<>();
             
@@ -367,6 +583,13 @@ public class CoordinatorController {
             Map<String, Object> clusterStatus = clusterService.getClusterStatus();
             metrics.put("cluster", clusterStatus);
             
+            // Throughput over the sliding window, from the per-node time series in Hazelcast
+            Map<String, Object> throughput = new HashMap<>();
+            throughput.put("ordersProcessed", metricTimeSeries.clusterRate(ClusterConstants.SERIES_ORDERS_PROCESSED, window));
+            throughput.put("ordersSent", metricTimeSeries.clusterRate(ClusterConstants.SERIES_ORDERS_SENT, window));
+            throughput.put("filesProcessed", metricTimeSeries.clusterRate(ClusterConstants.SERIES_FILES_PROCESSED, window));
+            metrics.put("throughput", throughput);
+            
             metrics.put("timestamp", LocalDateTime.now());
             
             logger.debug("Coordinator metrics requested");
@@ -404,6 +627,23 @@ public class CoordinatorController {
         }
     }
     
+    /**
+     * Compare Compact-serialized cluster records with the legacy map values
+     */
+    @PostMapping("/benchmark/serialization")
+    public ResponseEntity<Map<String, Object>> runSerializationBenchmark(
+            @RequestParam(defaultValue = "1000") int iterations) {
+        try {
+            if (iterations <= 0) {
+                return ResponseEntity.badRequest().body(Map.of("error", "iterations must be positive"));
+            }
+            return ResponseEntity.ok(serializationBenchmark.run(iterations));
+        } catch (Exception e) {
+            logger.error("Error running serialization benchmark", e);
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+    
     /**
      * Get detailed route information
      */
@@ -430,7 +670,7 @@ public class CoordinatorController {
      * Get leader node ID (helper method)
      */
     private String getLeaderNodeId() {
-        // For simplicity, return coordinator node if it's leader
-        return clusterService.isLeader() ? nodeId : "unknown";
+        String leaderNodeId = clusterService.getLeaderNodeId();
+        return leaderNodeId != null ? leaderNodeId : "unknown";
     }
 } 
\ No newline at end of file
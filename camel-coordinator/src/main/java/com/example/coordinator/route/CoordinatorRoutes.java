@@ -1,8 +1,12 @@
 package com.example.coordinator.route;
 
+import com.example.common.model.ClusterEvent;
+import com.example.common.service.ClusterEventBus;
+import com.example.common.service.ClusterService;
 import com.example.common.util.ClusterConstants;
 import com.example.coordinator.service.ClusterMonitor;
 import com.example.coordinator.service.DatabaseReporter;
+import com.example.coordinator.service.LoadBalancer;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.model.rest.RestBindingMode;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +22,15 @@ public class CoordinatorRoutes extends RouteBuilder {
     @Autowired
     private DatabaseReporter databaseReporter;
     
+    @Autowired
+    private LoadBalancer loadBalancer;
+    
+    @Autowired
+    private ClusterService clusterService;
+    
+    @Autowired
+    private ClusterEventBus eventBus;
+    
     @Value("${cluster.node.id:coordinator-1}")
     private String nodeId;
     
@@ -27,6 +40,9 @@ public class CoordinatorRoutes extends RouteBuilder {
     @Value("${coordinator.metrics.interval:60000}")
     private long metricsInterval;
     
+    @Value("${cluster.monitor.rebalance-interval:600000}")
+    private long rebalanceInterval;
+    
     @Override
     public void configure() throws Exception {
         
@@ -46,6 +62,9 @@ public class CoordinatorRoutes extends RouteBuilder {
             .setHeader("error", simple("${exception.message}"))
             .setBody(simple("ERROR: ${exception.message}"));
         
+        // Timer and master routes need the cluster; they are created stopped and started
+        // by ClusterStartup once the node has joined
+        
         // Master-only routes (leader election)
         configureLeaderRoutes();
         
@@ -67,6 +86,8 @@ public class CoordinatorRoutes extends RouteBuilder {
         // Master cluster health monitoring route
         from("master:cluster-health:timer://healthCheck?period=" + healthCheckInterval)
             .routeId("coordinator-health-master")
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("🏥 [LEADER] Starting cluster health check from coordinator: ${header.CamelTimerName}")
             .bean(clusterMonitor, "monitorClusterHealth")
             .log("✅ [LEADER] Cluster health check completed by coordinator");
@@ -74,6 +95,8 @@ public class CoordinatorRoutes extends RouteBuilder {
         // Master database cleanup route
         from("master:db-cleanup:timer://dbCleanup?period=3600000") // Every hour
             .routeId("coordinator-cleanup-master")
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("🧹 [LEADER] Starting database maintenance from coordinator")
             .bean(databaseReporter, "performDatabaseCleanup")
             .log("✅ [LEADER] Database maintenance completed by coordinator");
@@ -81,30 +104,36 @@ public class CoordinatorRoutes extends RouteBuilder {
         // Master reporting route
         from("master:reporting:timer://reporting?period=1800000") // Every 30 minutes
             .routeId("coordinator-reporting-master")
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("📊 [LEADER] Starting periodic reporting from coordinator")
             .bean(databaseReporter, "generateHourlyReport")
             .log("✅ [LEADER] Periodic reporting completed by coordinator");
         
         // Master cluster rebalancing route
-        from("master:rebalance:timer://rebalance?period=600000") // Every 10 minutes
+        from("master:rebalance:timer://rebalance?period=" + rebalanceInterval)
             .routeId("coordinator-rebalance-timer")
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("⚖️ [LEADER] Checking cluster balance from coordinator")
-            .bean(clusterMonitor, "monitorClusterHealth")
-            .log("✅ [LEADER] Cluster balance check completed");
+            .bean(loadBalancer, "rebalance('scheduled')")
+            .log("✅ [LEADER] Cluster balance check completed: generation ${body[generation]}, changed ${body[changed]}");
         
         // Process cluster events (leader handles events)
-        from("master:events:hazelcast:" + ClusterConstants.CLUSTER_EVENTS_TOPIC)
-            .routeId("coordinator-cluster-events")
-            .log("📢 [LEADER] Processing cluster event: ${body}")
-            .choice()
-                .when(simple("${body[eventType]} == 'NODE_FAILED'"))
-                    .log("💥 [LEADER] Handling node failure: ${body[data][failedNode]}")
-                    .bean(clusterMonitor, "handleFailedNodes")
-                .when(simple("${body[eventType]} == 'REBALANCE_TRIGGERED'"))
-                    .log("⚖️ [LEADER] Handling rebalance trigger")
-                    .bean(clusterMonitor, "triggerRebalancing")
-                .otherwise()
-                    .log("📝 [LEADER] Generic cluster event processed: ${body[eventType]}");
+        eventBus.subscribe(ClusterEvent.NodeFailed.class, event -> {
+            if (clusterService.isLeader()) {
+                log.info("💥 [LEADER] Node failure handled by the failure detector: {} ({}, detected in {} ms)",
+                        event.failedNode(), event.reason(), event.detectionDelayMs());
+            }
+        });
+        eventBus.subscribe(ClusterEvent.RebalanceTriggered.class, event -> {
+            if (clusterService.isLeader()) {
+                log.info("⚖️ [LEADER] Rebalance triggered by {} ({})", event.sourceNode(), event.reason());
+            }
+        });
+        eventBus.subscribe(ClusterEvent.LeaderChanged.class, event ->
+            log.info("👑 Cluster leader changed from {} to {} (fencing token {})",
+                    event.previousLeader(), event.newLeader(), event.fencingToken()));
     }
     
     /**
@@ -115,6 +144,8 @@ public class CoordinatorRoutes extends RouteBuilder {
         // Node status update route
         from("timer://nodeStatus?period=" + metricsInterval)
             .routeId("coordinator-node-status")
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("📊 Publishing coordinator node status: " + nodeId)
             .setBody(simple("coordinator"))
             .bean("clusterService", "updateNodeStatus")
@@ -123,6 +154,8 @@ public class CoordinatorRoutes extends RouteBuilder {
         // Metrics collection route
         from("timer://metricsCollection?period=" + metricsInterval)
             .routeId("coordinator-metrics")
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("📈 Collecting coordinator metrics")
             .bean("clusterService", "updateNodeStatus(RUNNING, null)")
             .log("✅ Coordinator metrics collected");
@@ -130,6 +163,8 @@ public class CoordinatorRoutes extends RouteBuilder {
         // Health heartbeat route
         from("timer://heartbeat?period=15000") // Every 15 seconds
             .routeId("coordinator-heartbeat")
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("💓 Coordinator heartbeat: " + nodeId)
             .bean("clusterService", "markNodeReady")
             .log("✅ Coordinator heartbeat sent");
@@ -158,8 +193,7 @@ public class CoordinatorRoutes extends RouteBuilder {
         from("direct:manual-rebalance")
             .routeId("coordinator-manual-rebalance")
             .log("⚖️ Manual rebalancing requested")
-            .bean(clusterMonitor, "triggerRebalancing")
-            .setBody(simple("Rebalancing triggered"));
+            .bean(clusterMonitor, "triggerRebalancing");
         
         // Emergency cluster reset
         from("direct:emergency-reset")
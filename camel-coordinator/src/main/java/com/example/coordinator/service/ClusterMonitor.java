@@ -1,5 +1,11 @@
 package com.example.coordinator.service;
 
+import com.example.common.model.ClusterEvent;
+import com.example.common.model.ConsumerPressure;
+import com.example.common.model.NodeStatus;
+import com.example.common.model.ProducerThrottle;
+import com.example.common.service.ClusterEventBus;
+import com.example.common.service.ClusterMetricsQuery;
 import com.example.common.service.ClusterService;
 import com.example.common.util.ClusterConstants;
 import com.hazelcast.core.HazelcastInstance;
@@ -22,15 +28,32 @@ public class ClusterMonitor {
     
     private static final Logger logger = LoggerFactory.getLogger(ClusterMonitor.class);
     
+    private static final String LAST_HEALTH_CHECK_METRIC = "cluster_last_health_check";
+    
+    // One sample per failed node, valued with the failure time; they expire with the metrics map TTL
+    private static final String RECENT_FAILURE_METRIC_PREFIX = "cluster_recent_failure:";
+    
     @Autowired
     private ClusterService clusterService;
     
     @Autowired
     private HazelcastInstance hazelcastInstance;
     
+    @Autowired
+    private ClusterMetricsQuery clusterMetricsQuery;
+    
+    @Autowired
+    private FailureDetector failureDetector;
+    
+    @Autowired
+    private ClusterEventBus eventBus;
+    
     @Autowired
     private CamelContext camelContext;
     
+    @Autowired
+    private LoadBalancer loadBalancer;
+    
     @Value("${cluster.node.id:coordinator-1}")
     private String nodeId;
     
@@ -58,7 +81,7 @@ public class ClusterMonitor {
             
             // Check node health
             Set<String> activeNodes = checkNodeHealth();
-            Set<String> failedNodes = detectFailedNodes(activeNodes);
+            Set<String> failedNodes = detectFailedNodes();
             
             // Handle failed nodes
             if (!failedNodes.isEmpty()) {
@@ -92,14 +115,7 @@ public class ClusterMonitor {
             state.put("timestamp", LocalDateTime.now());
             
             // Node status from distributed map
-            IMap<String, Map<String, Object>> nodeStatusMap = 
-                hazelcastInstance.getMap(ClusterConstants.NODE_STATUS_MAP);
-            
-            Map<String, Map<String, Object>> nodeStatuses = new HashMap<>();
-            for (Map.Entry<String, Map<String, Object>> entry : nodeStatusMap.entrySet()) {
-                nodeStatuses.put(entry.getKey(), entry.getValue());
-            }
-            state.put("nodeStatuses", nodeStatuses);
+            state.put("nodeStatuses", clusterService.getNodeStatuses());
             
             // Active routes information
             List<Map<String, Object>> routeInfo = camelContext.getRoutes().stream()
@@ -107,9 +123,11 @@ public class ClusterMonitor {
                 .collect(Collectors.toList());
             state.put("routes", routeInfo);
             
-            // Cluster metrics
-            IMap<String, Object> metricsMap = hazelcastInstance.getMap(ClusterConstants.CLUSTER_METRICS_MAP);
-            state.put("metrics", new HashMap<>(metricsMap));
+            // Cluster metrics, summarized on the partitions
+            state.put("metrics", clusterMetricsQuery.summarize());
+            
+            // Cluster-wide totals
+            state.put("counters", clusterService.getCounters());
             
         } catch (Exception e) {
             logger.error("Error getting cluster state", e);
@@ -124,29 +142,18 @@ public class ClusterMonitor {
      */
     private Set<String> checkNodeHealth() {
         Set<String> activeNodes = new HashSet<>();
-        IMap<String, Object> nodeStatusMap = 
-            hazelcastInstance.getMap(ClusterConstants.NODE_STATUS_MAP);
-        
         long currentTime = System.currentTimeMillis();
         
-        for (Map.Entry<String, Object> entry : nodeStatusMap.entrySet()) {
+        for (Map.Entry<String, NodeStatus> entry : clusterService.getNodeStatuses().entrySet()) {
             String nodeId = entry.getKey();
-            Object statusObj = entry.getValue();
+            long age = currentTime - entry.getValue().lastUpdate();
             
-            if (statusObj instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> status = (Map<String, Object>) statusObj;
-                
-                Object lastUpdateObj = status.get("lastUpdate");
-                if (lastUpdateObj != null) {
-                    try {
-                        // For simplicity, consider node active if it exists in map
-                        activeNodes.add(nodeId);
-                        logger.debug("Node {} is considered healthy", nodeId);
-                    } catch (Exception e) {
-                        logger.warn("Error parsing last update for node {}: {}", nodeId, e.getMessage());
-                    }
-                }
+            // A node is healthy while its status keeps being refreshed
+            if (age <= nodeTimeout) {
+                activeNodes.add(nodeId);
+                logger.debug("Node {} is considered healthy (status age {} ms)", nodeId, age);
+            } else {
+                logger.warn("Node {} has not updated its status for {} ms", nodeId, age);
             }
         }
         
@@ -154,29 +161,18 @@ public class ClusterMonitor {
     }
     
     /**
-     * Detect nodes that have failed (no recent heartbeat)
+     * Statuses left behind by nodes the failure detector no longer considers alive.
+     * Live failures are announced by the FailureDetector as they happen; this sweep
+     * only clears what was missed, e.g. while no coordinator was running.
      */
-    private Set<String> detectFailedNodes(Set<String> activeNodes) {
+    private Set<String> detectFailedNodes() {
         Set<String> failedNodes = new HashSet<>();
+        Set<String> liveNodes = failureDetector.getLiveNodeIds();
         
-        // For this implementation, we'll rely on Hazelcast's member detection
-        Set<String> clusterMembers = clusterService.getClusterMembers();
-        IMap<String, Object> nodeStatusMap = 
-            hazelcastInstance.getMap(ClusterConstants.NODE_STATUS_MAP);
-        
-        // Find nodes that are in status map but not in cluster members
-        for (String statusNodeId : nodeStatusMap.keySet()) {
-            boolean foundInCluster = false;
-            for (String member : clusterMembers) {
-                if (member.contains(statusNodeId) || statusNodeId.contains("coordinator") || 
-                    statusNodeId.contains("producer") || statusNodeId.contains("consumer")) {
-                    foundInCluster = true;
-                    break;
-                }
-            }
-            if (!foundInCluster && !activeNodes.contains(statusNodeId)) {
+        for (String statusNodeId : clusterService.getNodeStatusView().keySet()) {
+            if (!liveNodes.contains(statusNodeId)) {
                 failedNodes.add(statusNodeId);
-                logger.warn("Detected potentially failed node: {}", statusNodeId);
+                logger.warn("Detected failed node with a stale status: {}", statusNodeId);
             }
         }
         
@@ -198,8 +194,8 @@ public class ClusterMonitor {
                 nodeStatusMap.remove(failedNodeId);
                 
                 // Publish cluster event about failed node
-                publishClusterEvent("NODE_FAILED", 
-                    Map.of("failedNode", failedNodeId, "detectedBy", nodeId));
+                publishClusterEvent(new ClusterEvent.NodeFailed(nodeId, System.currentTimeMillis(),
+                    failedNodeId, "health-check", 0, Map.of()));
                 
                 // Log failure for monitoring
                 logger.error("Node {} has been removed from cluster due to failure", failedNodeId);
@@ -214,17 +210,19 @@ public class ClusterMonitor {
      * Update cluster-wide metrics
      */
     private void updateClusterMetrics(Set<String> activeNodes, Set<String> failedNodes) {
-        IMap<String, Object> metricsMap = hazelcastInstance.getMap(ClusterConstants.CLUSTER_METRICS_MAP);
-        
         try {
-            metricsMap.put("activeNodeCount", activeNodes.size());
-            metricsMap.put("failedNodeCount", failedNodes.size());
-            metricsMap.put("lastHealthCheck", System.currentTimeMillis());
-            metricsMap.put("healthCheckBy", nodeId);
+            // Samples are keyed by this node, so the checking coordinator is recorded implicitly
+            clusterService.storeMetric("cluster_active_nodes", activeNodes.size());
+            clusterService.storeMetric("cluster_failed_nodes", failedNodes.size());
+            clusterService.storeMetric(LAST_HEALTH_CHECK_METRIC, System.currentTimeMillis());
             
             if (!failedNodes.isEmpty()) {
-                metricsMap.put("lastFailure", System.currentTimeMillis());
-                metricsMap.put("recentFailures", failedNodes);
+                long failedAt = System.currentTimeMillis();
+                clusterService.storeMetric("cluster_last_failure", failedAt);
+                for (String failedNodeId : failedNodes) {
+                    clusterService.storeMetric(RECENT_FAILURE_METRIC_PREFIX + failedNodeId, failedAt);
+                }
+                logger.warn("Recent node failures: {}", failedNodes);
             }
             
         } catch (Exception e) {
@@ -244,6 +242,54 @@ public class ClusterMonitor {
         return info;
     }
     
+    /**
+     * Consumer pressure scores and which producers they are throttling
+     */
+    public Map<String, Object> getBackpressureState() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        
+        Map<String, Object> consumers = new TreeMap<>();
+        IMap<String, ConsumerPressure> pressureMap = hazelcastInstance.getMap(ClusterConstants.CONSUMER_PRESSURE_MAP);
+        for (ConsumerPressure pressure : pressureMap.values()) {
+            Map<String, Object> consumer = new LinkedHashMap<>();
+            consumer.put("score", pressure.score());
+            consumer.put("latencyMs", pressure.latencyMillis());
+            consumer.put("latencyPressure", pressure.latencyPressure());
+            consumer.put("poolPressure", pressure.poolPressure());
+            consumer.put("inFlight", pressure.inFlight());
+            consumer.put("inFlightPressure", pressure.inFlightPressure());
+            consumer.put("updatedAt", pressure.updatedAt());
+            consumers.put(pressure.nodeId(), consumer);
+        }
+        
+        Map<String, Object> producers = new TreeMap<>();
+        Map<String, Set<String>> throttling = new TreeMap<>();
+        IMap<String, ProducerThrottle> throttleMap = hazelcastInstance.getMap(ClusterConstants.PRODUCER_THROTTLE_MAP);
+        for (ProducerThrottle throttle : throttleMap.values()) {
+            Map<String, Object> producer = new LinkedHashMap<>();
+            producer.put("throttling", throttle.isThrottling());
+            producer.put("factor", throttle.factor());
+            producer.put("consumerPressure", throttle.pressure());
+            producer.put("sendLimit", throttle.sendLimit());
+            producer.put("throttledBy", List.of(throttle.throttledBy()));
+            producer.put("throttlingSince", throttle.throttlingSince());
+            producer.put("updatedAt", throttle.updatedAt());
+            producers.put(throttle.nodeId(), producer);
+            
+            if (throttle.isThrottling()) {
+                for (String consumer : throttle.throttledBy()) {
+                    throttling.computeIfAbsent(consumer, key -> new TreeSet<>()).add(throttle.nodeId());
+                }
+            }
+        }
+        
+        state.put("consumers", consumers);
+        state.put("producers", producers);
+        // Consumer -> producers it is currently holding back
+        state.put("throttling", throttling);
+        return state;
+    }
+    
     /**
      * Generate cluster health report
      */
@@ -265,12 +311,13 @@ public class ClusterMonitor {
             report.put("currentNode", nodeId);
             report.put("isCurrentNodeLeader", clusterService.isLeader());
             
-            // Recent activity
-            IMap<String, Object> metricsMap = hazelcastInstance.getMap(ClusterConstants.CLUSTER_METRICS_MAP);
-            Object lastHealthCheck = metricsMap.get("lastHealthCheck");
-            if (lastHealthCheck instanceof Long) {
-                report.put("lastHealthCheckAge", System.currentTimeMillis() - (Long) lastHealthCheck);
+            // Recent activity - the latest check by any coordinator
+            Double lastHealthCheck = clusterMetricsQuery.max(LAST_HEALTH_CHECK_METRIC);
+            if (lastHealthCheck != null) {
+                report.put("lastHealthCheckAge", System.currentTimeMillis() - lastHealthCheck.longValue());
             }
+            // Nodes found failed within the metrics TTL -> latest failure time
+            report.put("recentFailures", clusterMetricsQuery.maxByNameSuffix(RECENT_FAILURE_METRIC_PREFIX));
             
             // Detailed state
             report.put("clusterState", clusterState);
@@ -286,68 +333,45 @@ public class ClusterMonitor {
     }
     
     /**
-     * Force cluster rebalancing (manual trigger)
+     * Force cluster rebalancing (manual trigger): recompute the consumers' work assignments
      */
-    public void triggerRebalancing() {
+    public Map<String, Object> triggerRebalancing() {
         if (!clusterService.isLeader()) {
             logger.warn("Cannot trigger rebalancing - node {} is not leader", nodeId);
-            return;
+            return Map.of("skipped", "not leader", "nodeId", nodeId);
         }
         
         logger.info("Triggering cluster rebalancing by leader node: {}", nodeId);
         
         try {
             // Publish rebalancing event
-            publishClusterEvent("REBALANCE_TRIGGERED", 
-                Map.of("triggeredBy", nodeId, "timestamp", System.currentTimeMillis()));
+            publishClusterEvent(new ClusterEvent.RebalanceTriggered(nodeId, System.currentTimeMillis(), "manual"));
             
-            // Force health check
-            monitorClusterHealth();
+            return loadBalancer.rebalance("manual");
             
         } catch (Exception e) {
             logger.error("Error triggering cluster rebalancing", e);
+            return Map.of("error", String.valueOf(e.getMessage()));
         }
     }
     
     /**
-     * Get leader node ID (simplified implementation)
+     * Get leader node ID from the leader lease
      */
     private String getLeaderNodeId() {
-        // For now, return the first coordinator node we find
-        IMap<String, Object> nodeStatusMap = 
-            hazelcastInstance.getMap(ClusterConstants.NODE_STATUS_MAP);
-        
-        for (Map.Entry<String, Object> entry : nodeStatusMap.entrySet()) {
-            Object statusObj = entry.getValue();
-            if (statusObj instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> status = (Map<String, Object>) statusObj;
-                Object nodeType = status.get("nodeType");
-                if ("coordinator".equals(nodeType)) {
-                    return entry.getKey();
-                }
-            }
-        }
-        return null;
+        return clusterService.getLeaderNodeId();
     }
     
     /**
      * Publish cluster event
      */
-    private void publishClusterEvent(String eventType, Map<String, Object> data) {
+    private void publishClusterEvent(ClusterEvent event) {
         try {
-            Map<String, Object> event = Map.of(
-                "eventType", eventType,
-                "data", data,
-                "timestamp", System.currentTimeMillis(),
-                "sourceNode", nodeId
-            );
-            
-            clusterService.publishToTopic(ClusterConstants.CLUSTER_EVENTS_TOPIC, event);
-            logger.info("Published cluster event: {} from {}", eventType, nodeId);
+            eventBus.publish(event);
+            logger.info("Published cluster event: {} from {}", event.eventType(), nodeId);
             
         } catch (Exception e) {
-            logger.error("Error publishing cluster event: {}", eventType, e);
+            logger.error("Error publishing cluster event: {}", event.eventType(), e);
         }
     }
 } 
\ No newline at end of file
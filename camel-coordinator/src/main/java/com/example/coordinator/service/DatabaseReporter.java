@@ -1,8 +1,12 @@
 package com.example.coordinator.service;
 
+import com.example.common.model.ClusterEvent;
+import com.example.common.service.ClusterEventBus;
 import com.example.common.service.ClusterService;
+import com.example.common.service.LeaderElection;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,11 +14,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @Service
 public class DatabaseReporter {
@@ -30,6 +38,15 @@ public class DatabaseReporter {
     @Autowired
     private HazelcastInstance hazelcastInstance;
     
+    @Autowired
+    private LeaderElection leaderElection;
+    
+    @Autowired
+    private ClusterEventBus eventBus;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
     @Value("${cluster.node.id:coordinator-1}")
     private String nodeId;
     
@@ -39,6 +56,26 @@ public class DatabaseReporter {
     @Value("${coordinator.reports.batch-size:1000}")
     private int batchSize;
     
+    @PostConstruct
+    public void initialize() {
+        // The fence outlives the lease entry, so a new leader's token starts above it
+        leaderElection.setFencingTokenFloor(() -> jdbcTemplate.queryForObject(
+            "SELECT COALESCE(MAX(fencing_token), 0) FROM leader_fence", Long.class));
+        
+        // A new leader raises the fence straight away, so its predecessor's writes are
+        // refused from the takeover on rather than from the new leader's first write
+        leaderElection.addLeadershipListener(() -> {
+            long fencingToken = leaderElection.getFencingToken();
+            if (fencingToken > 0) {
+                CompletableFuture.runAsync(() -> fenced(fencingToken, () -> 0))
+                    .exceptionally(e -> {
+                        logger.warn("Could not raise the leader fence to {}: {}", fencingToken, e.getMessage());
+                        return null;
+                    });
+            }
+        });
+    }
+    
     /**
      * Generate hourly processing report (leader only)
      */
@@ -50,12 +87,14 @@ public class DatabaseReporter {
         }
         
         logger.info("Generating hourly processing report...");
+        long fencingToken = leaderElection.getFencingToken();
         
         try {
             Map<String, Object> report = createProcessingReport("HOURLY");
+            report.put("fencingToken", fencingToken);
             
-            // Store report in database
-            storeReport(report);
+            // Store report in database; refused once a newer leader has taken over
+            fenced(fencingToken, () -> storeReport(report));
             
             // Share report with cluster
             shareReportWithCluster(report);
@@ -78,19 +117,21 @@ public class DatabaseReporter {
         }
         
         logger.info("Generating daily processing report...");
+        long fencingToken = leaderElection.getFencingToken();
         
         try {
             Map<String, Object> report = createProcessingReport("DAILY");
+            report.put("fencingToken", fencingToken);
             
-            // Store report in database
-            storeReport(report);
+            // Store report in database; refused once a newer leader has taken over
+            fenced(fencingToken, () -> storeReport(report));
             
             // Share report with cluster
             shareReportWithCluster(report);
             
             // Generate detailed analytics
             Map<String, Object> analytics = generateAnalytics();
-            storeAnalytics(analytics);
+            fenced(fencingToken, () -> storeAnalytics(analytics));
             
             logger.info("Daily report and analytics generated successfully");
             
@@ -110,16 +151,18 @@ public class DatabaseReporter {
         }
         
         logger.info("Starting database cleanup...");
+        long fencingToken = leaderElection.getFencingToken();
         
         try {
-            // Clean up old processed orders
-            int deletedOrders = cleanupOldProcessedOrders();
-            
-            // Clean up old reports
-            int deletedReports = cleanupOldReports();
-            
-            // Clean up old analytics
-            int deletedAnalytics = cleanupOldAnalytics();
+            // Deletes run only while the fence still admits this leader
+            int[] deleted = fenced(fencingToken, () -> new int[] {
+                cleanupOldProcessedOrders(),
+                cleanupOldReports(),
+                cleanupOldAnalytics()
+            });
+            int deletedOrders = deleted[0];
+            int deletedReports = deleted[1];
+            int deletedAnalytics = deleted[2];
             
             // Update cluster metrics
             updateCleanupMetrics(deletedOrders, deletedReports, deletedAnalytics);
@@ -277,46 +320,58 @@ public class DatabaseReporter {
     }
     
     /**
-     * Store report in database
+     * Run leader-only database writes in one transaction that first raises the leader
+     * fence to this token. The guarded update keeps the fence row locked until commit,
+     * so once a newer leader has raised the fence these writes are refused, however
+     * stale this node's view of the lease is.
      */
-    private void storeReport(Map<String, Object> report) {
-        try {
-            String reportJson = convertToJson(report);
-            
-            jdbcTemplate.update(
-                "INSERT INTO cluster_reports (report_id, report_type, report_data, generated_at, generated_by) " +
-                "VALUES (?, ?, ?::jsonb, ?, ?)",
-                report.get("reportId"),
-                report.get("period"),
-                reportJson,
-                report.get("generatedAt"),
-                report.get("generatedBy")
+    private <T> T fenced(long fencingToken, Supplier<T> writes) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            int admitted = fencingToken < 0 ? 0 : jdbcTemplate.update(
+                "UPDATE leader_fence SET fencing_token = ?, holder = ?, updated_at = NOW() " +
+                "WHERE id = 1 AND fencing_token <= ?",
+                fencingToken, nodeId, fencingToken
             );
-            
-        } catch (Exception e) {
-            logger.error("Error storing report in database", e);
-        }
+            if (admitted == 0) {
+                throw new IllegalStateException("Fencing token " + fencingToken + " of node " + nodeId +
+                        " is stale, a newer leader has written");
+            }
+            return writes.get();
+        });
     }
     
     /**
-     * Store analytics in database
+     * Store report in database; call within {@link #fenced}
      */
-    private void storeAnalytics(Map<String, Object> analytics) {
-        try {
-            String analyticsJson = convertToJson(analytics);
-            
-            jdbcTemplate.update(
-                "INSERT INTO cluster_analytics (analytics_id, analytics_data, generated_at, generated_by) " +
-                "VALUES (?, ?::jsonb, ?, ?)",
-                analytics.get("analyticsId"),
-                analyticsJson,
-                analytics.get("generatedAt"),
-                analytics.get("generatedBy")
-            );
-            
-        } catch (Exception e) {
-            logger.error("Error storing analytics in database", e);
-        }
+    private int storeReport(Map<String, Object> report) {
+        String reportJson = convertToJson(report);
+        
+        return jdbcTemplate.update(
+            "INSERT INTO cluster_reports (report_id, report_type, report_data, generated_at, generated_by, fencing_token) " +
+            "VALUES (?, ?, ?::jsonb, ?, ?, ?)",
+            report.get("reportId"),
+            report.get("period"),
+            reportJson,
+            report.get("generatedAt"),
+            report.get("generatedBy"),
+            report.get("fencingToken")
+        );
+    }
+    
+    /**
+     * Store analytics in database; call within {@link #fenced}
+     */
+    private int storeAnalytics(Map<String, Object> analytics) {
+        String analyticsJson = convertToJson(analytics);
+        
+        return jdbcTemplate.update(
+            "INSERT INTO cluster_analytics (analytics_id, analytics_data, generated_at, generated_by) " +
+            "VALUES (?, ?::jsonb, ?, ?)",
+            analytics.get("analyticsId"),
+            analyticsJson,
+            analytics.get("generatedAt"),
+            analytics.get("generatedBy")
+        );
     }
     
     /**
@@ -332,15 +387,8 @@ public class DatabaseReporter {
             
             reportsMap.put(reportKey, report, 24, java.util.concurrent.TimeUnit.HOURS);
             
-            // Publish cluster event using publishToTopic
-            Map<String, Object> eventData = Map.of(
-                "eventType", "REPORT_GENERATED",
-                "reportId", report.get("reportId"), 
-                "period", report.get("period"),
-                "timestamp", System.currentTimeMillis(),
-                "sourceNode", nodeId
-            );
-            clusterService.publishToTopic("cluster-events", eventData);
+            eventBus.publish(new ClusterEvent.ReportGenerated(nodeId, System.currentTimeMillis(),
+                String.valueOf(report.get("reportId")), String.valueOf(report.get("period"))));
             
         } catch (Exception e) {
             logger.error("Error sharing report with cluster", e);
@@ -0,0 +1,389 @@
+package com.example.coordinator.service;
+
+import com.example.common.model.ClusterEvent;
+import com.example.common.service.ClusterEventBus;
+import com.example.common.service.ClusterService;
+import com.example.common.service.ClusterStartup;
+import com.example.common.service.NodeHeartbeat;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.cluster.Member;
+import com.hazelcast.cluster.MembershipEvent;
+import com.hazelcast.cluster.MembershipListener;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event-driven node failure detection.
+ * Hazelcast members are mapped to logical node IDs when they join, and a member
+ * leaving the cluster fails its node at once. Independently, every node's heartbeats
+ * feed a phi-accrual detector, which suspects a node whose heartbeats stop arriving
+ * at their usual pace and fails it once the suspicion passes the failure threshold;
+ * this also catches nodes whose JVM is alive but whose application has stalled.
+ * Only the leader publishes NODE_FAILED; other coordinators hold detected failures
+ * briefly so a failure seen just before a leadership change is not lost.
+ */
+@Service
+public class FailureDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(FailureDetector.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private NodeHeartbeat nodeHeartbeat;
+
+    @Autowired
+    private ClusterEventBus eventBus;
+
+    @Autowired
+    private ClusterStartup clusterStartup;
+
+    @Value("${cluster.node.id:coordinator-1}")
+    private String nodeId;
+
+    @Value("${cluster.failure-detector.check-interval:1000}")
+    private long checkInterval;
+
+    @Value("${cluster.failure-detector.suspicion-threshold:5.0}")
+    private double suspicionThreshold;
+
+    @Value("${cluster.failure-detector.failure-threshold:10.0}")
+    private double failureThreshold;
+
+    @Value("${cluster.failure-detector.min-std-dev:200}")
+    private long minStdDeviation;
+
+    @Value("${cluster.failure-detector.acceptable-pause:1000}")
+    private long acceptablePause;
+
+    @Value("${cluster.failure-detector.max-samples:100}")
+    private int maxSamples;
+
+    @Value("${cluster.failure-detector.pending-retention:10000}")
+    private long pendingRetention;
+
+    private final Map<UUID, String> memberNodeIds = new ConcurrentHashMap<>();
+    private final Map<String, HeartbeatHistory> histories = new ConcurrentHashMap<>();
+    private final Set<String> suspectedNodes = ConcurrentHashMap.newKeySet();
+    private final Set<String> failedNodes = ConcurrentHashMap.newKeySet();
+    private final Map<String, PendingFailure> pendingFailures = new ConcurrentHashMap<>();
+    private ScheduledExecutorService detectorScheduler;
+    private UUID membershipListenerId;
+    private UUID heartbeatListenerId;
+
+    @PostConstruct
+    public void initialize() {
+        clusterStartup.onJoined("failure-detector", this::start);
+    }
+
+    private void start() {
+        for (Member member : hazelcastInstance.getCluster().getMembers()) {
+            registerMember(member);
+        }
+
+        membershipListenerId = hazelcastInstance.getCluster().addMembershipListener(new MembershipListener() {
+            @Override
+            public void memberAdded(MembershipEvent membershipEvent) {
+                registerMember(membershipEvent.getMember());
+            }
+
+            @Override
+            public void memberRemoved(MembershipEvent membershipEvent) {
+                Member member = membershipEvent.getMember();
+                String failedNodeId = memberNodeIds.remove(member.getUuid());
+                if (failedNodeId == null) {
+                    failedNodeId = member.getAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_ID);
+                }
+                if (failedNodeId != null) {
+                    nodeFailed(failedNodeId, "member-removed", Map.of("memberUuid", member.getUuid().toString()));
+                }
+            }
+        });
+
+        IMap<String, Long> heartbeats = hazelcastInstance.getMap(ClusterConstants.NODE_HEARTBEATS_MAP);
+        heartbeatListenerId = heartbeats.addEntryListener(new HeartbeatListener(), false);
+
+        detectorScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "failure-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        detectorScheduler.scheduleWithFixedDelay(this::check, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+
+        logger.info("Failure detector started on node {} (suspicion phi {}, failure phi {}, {} members mapped)",
+                   nodeId, suspicionThreshold, failureThreshold, memberNodeIds.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (detectorScheduler == null) {
+            return;
+        }
+        detectorScheduler.shutdownNow();
+        try {
+            hazelcastInstance.getCluster().removeMembershipListener(membershipListenerId);
+            hazelcastInstance.getMap(ClusterConstants.NODE_HEARTBEATS_MAP).removeEntryListener(heartbeatListenerId);
+        } catch (Exception e) {
+            logger.debug("Error removing failure detector listeners: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Logical node IDs currently considered alive: Hazelcast members plus nodes whose
+     * heartbeats have not passed the failure threshold
+     */
+    public Set<String> getLiveNodeIds() {
+        Set<String> live = new TreeSet<>(memberNodeIds.values());
+        histories.keySet().stream()
+            .filter(heartbeatNode -> !failedNodes.contains(heartbeatNode))
+            .forEach(live::add);
+        return live;
+    }
+
+    /**
+     * Detector state of every known node
+     */
+    public Map<String, Object> getStatus() {
+        long now = System.currentTimeMillis();
+        Map<String, UUID> memberUuids = new HashMap<>();
+        memberNodeIds.forEach((uuid, memberNodeId) -> memberUuids.put(memberNodeId, uuid));
+
+        Map<String, Object> nodes = new TreeMap<>();
+        Set<String> known = new TreeSet<>(histories.keySet());
+        known.addAll(memberUuids.keySet());
+        known.addAll(failedNodes);
+        for (String knownNode : known) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("state", stateOf(knownNode));
+            node.put("memberUuid", memberUuids.containsKey(knownNode) ? memberUuids.get(knownNode).toString() : null);
+            HeartbeatHistory history = histories.get(knownNode);
+            if (history != null) {
+                node.put("phi", history.phi(now));
+                node.put("lastHeartbeatAgeMs", now - history.lastArrival());
+                node.put("meanIntervalMs", history.meanInterval());
+            }
+            nodes.put(knownNode, node);
+        }
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("suspicionThreshold", suspicionThreshold);
+        status.put("failureThreshold", failureThreshold);
+        status.put("pendingFailures", new TreeSet<>(pendingFailures.keySet()));
+        status.put("nodes", nodes);
+        return status;
+    }
+
+    private String stateOf(String node) {
+        if (failedNodes.contains(node)) {
+            return "FAILED";
+        }
+        return suspectedNodes.contains(node) ? "SUSPECTED" : "ALIVE";
+    }
+
+    private void registerMember(Member member) {
+        String memberNodeId = member.getAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_ID);
+        if (memberNodeId != null) {
+            memberNodeIds.put(member.getUuid(), memberNodeId);
+            failedNodes.remove(memberNodeId);
+            logger.info("Member {} joined as node {}", member.getUuid(), memberNodeId);
+        }
+    }
+
+    private void heartbeatReceived(String heartbeatNodeId) {
+        long now = System.currentTimeMillis();
+        histories.computeIfAbsent(heartbeatNodeId, id -> new HeartbeatHistory()).heartbeat(now);
+
+        if (failedNodes.remove(heartbeatNodeId) | suspectedNodes.remove(heartbeatNodeId)) {
+            logger.info("Node {} is sending heartbeats again", heartbeatNodeId);
+            publishIfLeader(new ClusterEvent.NodeRecovered(nodeId, System.currentTimeMillis(), heartbeatNodeId));
+        }
+    }
+
+    /**
+     * Periodic phi evaluation and hand-over of pending failures
+     */
+    private void check() {
+        try {
+            long now = System.currentTimeMillis();
+            histories.forEach((heartbeatNodeId, history) -> {
+                if (failedNodes.contains(heartbeatNodeId)) {
+                    return;
+                }
+                double phi = history.phi(now);
+                if (phi >= failureThreshold) {
+                    nodeFailed(heartbeatNodeId, "heartbeat", Map.of("phi", phi, "lastHeartbeatAgeMs", now - history.lastArrival()));
+                } else if (phi >= suspicionThreshold && suspectedNodes.add(heartbeatNodeId)) {
+                    logger.warn("Node {} suspected: phi {} after {} ms without heartbeat",
+                               heartbeatNodeId, String.format("%.1f", phi), now - history.lastArrival());
+                    publishIfLeader(new ClusterEvent.NodeSuspected(nodeId, now, heartbeatNodeId, phi));
+                }
+            });
+
+            pendingFailures.values().removeIf(pending -> now - pending.detectedAt > pendingRetention);
+            if (clusterService.isLeader()) {
+                pendingFailures.values().removeIf(pending -> {
+                    handleFailure(pending);
+                    return true;
+                });
+            }
+        } catch (Exception e) {
+            logger.error("Error during failure detection", e);
+        }
+    }
+
+    private void nodeFailed(String failedNodeId, String reason, Map<String, Object> details) {
+        if (!failedNodes.add(failedNodeId)) {
+            return;
+        }
+        suspectedNodes.remove(failedNodeId);
+        histories.remove(failedNodeId);
+        logger.warn("Node {} failed ({}): {}", failedNodeId, reason, details);
+
+        PendingFailure failure = new PendingFailure(failedNodeId, reason, details, System.currentTimeMillis());
+        if (clusterService.isLeader()) {
+            handleFailure(failure);
+        } else {
+            pendingFailures.put(failedNodeId, failure);
+        }
+    }
+
+    /**
+     * Leader-only: clear the failed node's state and announce the failure
+     */
+    private void handleFailure(PendingFailure failure) {
+        try {
+            hazelcastInstance.getMap(ClusterConstants.NODE_STATUS_MAP).delete(failure.nodeId);
+            hazelcastInstance.getMap(ClusterConstants.NODE_HEARTBEATS_MAP).delete(failure.nodeId);
+
+            long now = System.currentTimeMillis();
+            eventBus.publish(new ClusterEvent.NodeFailed(nodeId, now, failure.nodeId, failure.reason,
+                now - failure.detectedAt, new HashMap<>(failure.details)));
+
+            logger.error("Node {} has been removed from cluster due to failure ({})", failure.nodeId, failure.reason);
+        } catch (Exception e) {
+            logger.error("Error handling failed node: {}", failure.nodeId, e);
+        }
+    }
+
+    private void publishIfLeader(ClusterEvent event) {
+        if (clusterService.isLeader()) {
+            eventBus.publish(event);
+        }
+    }
+
+    private class HeartbeatListener implements EntryAddedListener<String, Long>, EntryUpdatedListener<String, Long> {
+
+        @Override
+        public void entryAdded(EntryEvent<String, Long> event) {
+            heartbeatReceived(event.getKey());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<String, Long> event) {
+            heartbeatReceived(event.getKey());
+        }
+    }
+
+    private static final class PendingFailure {
+        private final String nodeId;
+        private final String reason;
+        private final Map<String, Object> details;
+        private final long detectedAt;
+
+        private PendingFailure(String nodeId, String reason, Map<String, Object> details, long detectedAt) {
+            this.nodeId = nodeId;
+            this.reason = reason;
+            this.details = details;
+            this.detectedAt = detectedAt;
+        }
+    }
+
+    /**
+     * Sliding window of heartbeat inter-arrival times and the phi value derived from it.
+     * phi = -log10(P(a heartbeat arrives later than now)), with the inter-arrival times
+     * modelled as a normal distribution (logistic approximation of its CDF).
+     */
+    private final class HeartbeatHistory {
+        private final long[] intervals = new long[maxSamples];
+        private int count;
+        private int next;
+        private double sum;
+        private double sumOfSquares;
+        private long lastArrival = -1;
+
+        synchronized void heartbeat(long now) {
+            if (lastArrival < 0) {
+                // Seed with the configured interval so the first gap is judged sensibly
+                add(nodeHeartbeat.getHeartbeatInterval());
+            } else {
+                add(now - lastArrival);
+            }
+            lastArrival = now;
+        }
+
+        private void add(long interval) {
+            if (count == intervals.length) {
+                long oldest = intervals[next];
+                sum -= oldest;
+                sumOfSquares -= (double) oldest * oldest;
+            } else {
+                count++;
+            }
+            intervals[next] = interval;
+            next = (next + 1) % intervals.length;
+            sum += interval;
+            sumOfSquares += (double) interval * interval;
+        }
+
+        synchronized long lastArrival() {
+            return lastArrival;
+        }
+
+        synchronized double meanInterval() {
+            return count > 0 ? sum / count : 0.0;
+        }
+
+        synchronized double phi(long now) {
+            if (count == 0) {
+                return 0.0;
+            }
+            double mean = sum / count;
+            double variance = Math.max(0.0, sumOfSquares / count - mean * mean);
+            double stdDeviation = Math.max(Math.sqrt(variance), minStdDeviation);
+
+            double elapsed = now - lastArrival;
+            double y = (elapsed - (mean + acceptablePause)) / stdDeviation;
+            double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+            if (elapsed > mean + acceptablePause) {
+                return -Math.log10(e / (1.0 + e));
+            }
+            return -Math.log10(1.0 - 1.0 / (1.0 + e));
+        }
+    }
+}
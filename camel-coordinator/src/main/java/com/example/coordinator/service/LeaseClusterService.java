@@ -0,0 +1,134 @@
+package com.example.coordinator.service;
+
+import com.example.common.service.LeaderElection;
+import jakarta.annotation.PostConstruct;
+import org.apache.camel.CamelContext;
+import org.apache.camel.cluster.CamelClusterEventListener;
+import org.apache.camel.cluster.CamelClusterMember;
+import org.apache.camel.support.cluster.AbstractCamelClusterService;
+import org.apache.camel.support.cluster.AbstractCamelClusterView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Camel cluster service backed by the cluster leader lease.
+ * master: routes use it instead of a separate lock, so they always run on the same
+ * coordinator that ClusterService.isLeader() reports. Every namespace follows the
+ * single cluster-wide lease.
+ */
+@Component
+public class LeaseClusterService extends AbstractCamelClusterService<LeaseClusterService.LeaseClusterView> {
+
+    @Autowired
+    private LeaderElection leaderElection;
+
+    @Autowired
+    private CamelContext camelContext;
+
+    @Value("${cluster.node.id:coordinator-1}")
+    private String nodeId;
+
+    public LeaseClusterService() {
+        super("lease-cluster-service");
+    }
+
+    @PostConstruct
+    public void register() throws Exception {
+        setCamelContext(camelContext);
+        camelContext.addService(this, true, true);
+    }
+
+    @Override
+    protected LeaseClusterView createView(String namespace) {
+        return new LeaseClusterView(this, namespace);
+    }
+
+    /**
+     * View of one master: namespace; leadership follows the leader lease
+     */
+    final class LeaseClusterView extends AbstractCamelClusterView {
+
+        private final CamelClusterMember localMember = new LeaseMember(nodeId, true);
+        private final Runnable leadershipListener = () -> fireLeadershipChangedEvent(getLeader());
+
+        LeaseClusterView(LeaseClusterService clusterService, String namespace) {
+            super(clusterService, namespace);
+        }
+
+        @Override
+        public Optional<CamelClusterMember> getLeader() {
+            if (leaderElection.isLeader()) {
+                return Optional.of(localMember);
+            }
+            String leaderNodeId = leaderElection.getLeaderNodeId();
+            return leaderNodeId != null ? Optional.of(new LeaseMember(leaderNodeId, false)) : Optional.empty();
+        }
+
+        @Override
+        public CamelClusterMember getLocalMember() {
+            return localMember;
+        }
+
+        @Override
+        public List<CamelClusterMember> getMembers() {
+            List<CamelClusterMember> members = new ArrayList<>();
+            members.add(localMember);
+            getLeader().filter(leader -> !leader.isLocal()).ifPresent(members::add);
+            return members;
+        }
+
+        /**
+         * Listeners registered after the lease was taken are told the current leader at once
+         */
+        @Override
+        public void addEventListener(CamelClusterEventListener listener) {
+            super.addEventListener(listener);
+            if (listener instanceof CamelClusterEventListener.Leadership leadership) {
+                leadership.leadershipChanged(this, getLeader());
+            }
+        }
+
+        @Override
+        protected void doStart() throws Exception {
+            leaderElection.addLeadershipListener(leadershipListener);
+        }
+
+        @Override
+        protected void doStop() throws Exception {
+            leaderElection.removeLeadershipListener(leadershipListener);
+        }
+    }
+
+    /**
+     * Cluster member identified by node ID
+     */
+    private final class LeaseMember implements CamelClusterMember {
+        private final String memberNodeId;
+        private final boolean local;
+
+        private LeaseMember(String memberNodeId, boolean local) {
+            this.memberNodeId = memberNodeId;
+            this.local = local;
+        }
+
+        @Override
+        public String getId() {
+            return memberNodeId;
+        }
+
+        @Override
+        public boolean isLeader() {
+            return local ? leaderElection.isLeader() : memberNodeId.equals(leaderElection.getLeaderNodeId());
+        }
+
+        @Override
+        public boolean isLocal() {
+            return local;
+        }
+    }
+}
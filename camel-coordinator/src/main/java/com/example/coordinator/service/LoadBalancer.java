@@ -0,0 +1,505 @@
+package com.example.coordinator.service;
+
+import com.example.common.model.WorkAssignment;
+import com.example.common.service.ClusterService;
+import com.example.common.service.ClusterStartup;
+import com.example.common.service.MetricTimeSeries;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.cluster.Member;
+import com.hazelcast.cluster.MembershipEvent;
+import com.hazelcast.cluster.MembershipListener;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load-based work assignment of the consumers, computed by the leader coordinator.
+ * Every consumer's throughput, processing latency and queue wait over the last window
+ * come from the metric series; a node's capacity is taken as the orders per second one
+ * listener thread completes at its latency. The total listener concurrency is shared out
+ * in proportion to capacity, queue partitions (any-node routing only) in proportion to
+ * the resulting throughput, moving as few as possible, and file slots to the nodes with
+ * spare capacity, none to a hot node. Each kind of share is left as it is while every
+ * node's current share is within a dead band of its ideal, proportional one, so noise in
+ * the measurements does not move work back and forth. A plan that differs from the current one is
+ * written to the work-assignments map under a new generation; consumers apply it and
+ * mark it applied. Runs on the rebalance timer, on demand and after membership changes.
+ */
+@Service
+public class LoadBalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadBalancer.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private MetricTimeSeries metricTimeSeries;
+
+    @Autowired
+    private ClusterStartup clusterStartup;
+
+    @Value("${cluster.node.id:coordinator-1}")
+    private String nodeId;
+
+    // Metric window the load of each consumer is measured over
+    @Value("${cluster.rebalance.window:60000}")
+    private long window;
+
+    @Value("${cluster.rebalance.min-concurrency:1}")
+    private int minConcurrency;
+
+    @Value("${cluster.rebalance.max-concurrency:10}")
+    private int maxConcurrency;
+
+    // Concurrency assumed for a consumer without an assignment, the consumers' listener default
+    @Value("${cluster.rebalance.default-concurrency:3}")
+    private int defaultConcurrency;
+
+    // Files per poll shared by all consumers
+    @Value("${cluster.rebalance.file-slots:10}")
+    private int fileSlots;
+
+    // Share of its listener threads' time a consumer must be busy to count as hot
+    @Value("${cluster.rebalance.hot-utilization:0.8}")
+    private double hotUtilization;
+
+    // How far (threads, partitions or file slots) a node's current share may be from its
+    // ideal share before work is moved
+    @Value("${cluster.rebalance.dead-band:1.0}")
+    private double deadBand;
+
+    // Wait after a consumer joins or leaves, so a rolling restart causes one rebalance
+    @Value("${cluster.rebalance.membership-delay:10000}")
+    private long membershipDelay;
+
+    @Value("${cluster.orders.partitions:1}")
+    private int partitionCount;
+
+    @Value("${cluster.orders.routing:" + ClusterConstants.ORDER_ROUTING_ANY + "}")
+    private String routingMode;
+
+    private volatile Map<String, Object> lastReport = Map.of();
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> pendingRebalance;
+    private UUID membershipListenerId;
+
+    @PostConstruct
+    public void initialize() {
+        clusterStartup.onJoined("load-balancer", this::start);
+    }
+
+    private void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-balancer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        membershipListenerId = hazelcastInstance.getCluster().addMembershipListener(new MembershipListener() {
+            @Override
+            public void memberAdded(MembershipEvent membershipEvent) {
+                onMembershipChange(membershipEvent.getMember());
+            }
+
+            @Override
+            public void memberRemoved(MembershipEvent membershipEvent) {
+                onMembershipChange(membershipEvent.getMember());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            hazelcastInstance.getCluster().removeMembershipListener(membershipListenerId);
+        } catch (Exception e) {
+            logger.debug("Error removing load balancer membership listener: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Measure the consumers, compute their assignments and publish them if they changed.
+     * Only the leader rebalances; the report of the run is returned and kept.
+     */
+    public synchronized Map<String, Object> rebalance(String reason) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("reason", reason);
+        report.put("coordinator", nodeId);
+        report.put("timestamp", System.currentTimeMillis());
+        if (!clusterService.isLeader()) {
+            report.put("skipped", "not leader");
+            return report;
+        }
+
+        try {
+            IMap<String, WorkAssignment> assignments = hazelcastInstance.getMap(ClusterConstants.WORK_ASSIGNMENTS_MAP);
+            List<NodeLoad> loads = measureConsumers(assignments);
+            // Taken before stale entries go, so generations never repeat
+            long generation = assignments.values().stream().mapToLong(WorkAssignment::generation).max().orElse(0);
+            Set<String> staleNodes = new HashSet<>(assignments.keySet());
+            loads.forEach(load -> staleNodes.remove(load.nodeId));
+            staleNodes.forEach(assignments::delete);
+
+            if (loads.isEmpty()) {
+                report.put("skipped", "no consumers");
+                lastReport = report;
+                return report;
+            }
+
+            assignConcurrency(loads);
+            assignPartitions(loads);
+            assignFileSlots(loads);
+
+            boolean changed = loads.stream().anyMatch(load -> load.differs(assignments.get(load.nodeId)));
+            if (changed) {
+                generation++;
+                long now = System.currentTimeMillis();
+                Map<String, WorkAssignment> plan = new HashMap<>();
+                for (NodeLoad load : loads) {
+                    plan.put(load.nodeId, new WorkAssignment(load.nodeId, generation, load.targetConcurrency,
+                                                             load.targetPartitions, load.targetFileSlots, reason,
+                                                             now, 0, 0));
+                }
+                assignments.putAll(plan);
+            }
+
+            clusterService.storeMetric("rebalance_last_run", System.currentTimeMillis());
+            clusterService.storeMetric("rebalance_generation", generation);
+
+            report.put("generation", generation);
+            report.put("changed", changed);
+            report.put("removedNodes", staleNodes);
+            report.put("nodes", loads.stream().map(NodeLoad::toMap).toList());
+            lastReport = report;
+
+            if (changed) {
+                logger.info("Rebalanced {} consumers ({}), generation {}: {}", loads.size(), reason, generation,
+                           loads.stream().map(NodeLoad::summary).toList());
+            } else {
+                logger.info("Consumer load is balanced ({}), keeping generation {}", reason, generation);
+            }
+
+        } catch (Exception e) {
+            logger.error("Error rebalancing consumer load", e);
+            report.put("error", e.getMessage());
+            lastReport = report;
+        }
+        return report;
+    }
+
+    public Map<String, Object> getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Current assignments and whether each consumer has applied it
+     */
+    public List<Map<String, Object>> getAssignments() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        IMap<String, WorkAssignment> assignments = hazelcastInstance.getMap(ClusterConstants.WORK_ASSIGNMENTS_MAP);
+        for (WorkAssignment assignment : new TreeMap<>(assignments).values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("nodeId", assignment.nodeId());
+            entry.put("generation", assignment.generation());
+            entry.put("concurrency", assignment.concurrency());
+            entry.put("partitions", Arrays.stream(assignment.partitions()).boxed().toList());
+            entry.put("fileSlots", assignment.fileSlots());
+            entry.put("reason", assignment.reason());
+            entry.put("assignedAt", assignment.assignedAt());
+            entry.put("applied", assignment.isApplied());
+            entry.put("appliedAt", assignment.appliedAt());
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private void onMembershipChange(Member member) {
+        if (!ClusterConstants.NODE_TYPE_CONSUMER.equalsIgnoreCase(member.getAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_TYPE))) {
+            return;
+        }
+        synchronized (scheduler) {
+            if (pendingRebalance != null) {
+                pendingRebalance.cancel(false);
+            }
+            pendingRebalance = scheduler.schedule(() -> rebalance("membership"), membershipDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private List<NodeLoad> measureConsumers(IMap<String, WorkAssignment> assignments) {
+        Map<String, List<Integer>> consumedPartitions =
+            hazelcastInstance.getMap(ClusterConstants.ORDER_PARTITION_ASSIGNMENTS_MAP);
+
+        List<NodeLoad> loads = new ArrayList<>();
+        Set<String> seen = new TreeSet<>();
+        for (Member member : hazelcastInstance.getCluster().getMembers()) {
+            String memberNodeId = member.getAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_ID);
+            if (!ClusterConstants.NODE_TYPE_CONSUMER.equalsIgnoreCase(member.getAttribute(ClusterConstants.MEMBER_ATTRIBUTE_NODE_TYPE))
+                || memberNodeId == null || !seen.add(memberNodeId)) {
+                continue;
+            }
+
+            NodeLoad load = new NodeLoad(memberNodeId);
+            WorkAssignment current = assignments.get(memberNodeId);
+            load.assigned = current != null;
+            load.concurrency = current != null ? current.concurrency() : defaultConcurrency;
+            load.fileSlots = current != null ? current.fileSlots() : 0;
+            List<Integer> partitions = consumedPartitions.get(memberNodeId);
+            load.partitions = partitions != null ? new TreeSet<>(partitions) : new TreeSet<>();
+
+            load.ordersPerSecond = metricTimeSeries.rate(memberNodeId, ClusterConstants.SERIES_ORDERS_PROCESSED, window);
+            double busyMillisPerSecond = metricTimeSeries.rate(memberNodeId, ClusterConstants.SERIES_ORDER_PROCESSING_MS, window);
+            double waitMillisPerSecond = metricTimeSeries.rate(memberNodeId, ClusterConstants.SERIES_ORDER_QUEUE_WAIT_MS, window);
+            if (load.ordersPerSecond > 0) {
+                load.latencyMillis = busyMillisPerSecond / load.ordersPerSecond;
+                load.queueWaitMillis = waitMillisPerSecond / load.ordersPerSecond;
+            }
+            load.utilization = busyMillisPerSecond / (1000.0 * Math.max(load.concurrency, 1));
+            loads.add(load);
+        }
+
+        // Orders per second one thread completes; nodes without measurements get the median
+        double[] known = loads.stream().filter(load -> load.latencyMillis > 0)
+            .mapToDouble(load -> 1000.0 / load.latencyMillis).sorted().toArray();
+        double fallback = known.length > 0 ? known[known.length / 2] : 1.0;
+        for (NodeLoad load : loads) {
+            load.capacityPerThread = load.latencyMillis > 0 ? 1000.0 / load.latencyMillis : fallback;
+        }
+        return loads;
+    }
+
+    /**
+     * Share the current total concurrency by per-thread capacity; one more thread per
+     * node when every node is hot
+     */
+    private void assignConcurrency(List<NodeLoad> loads) {
+        int budget = loads.stream().mapToInt(load -> load.concurrency).sum();
+        if (loads.stream().allMatch(NodeLoad::isHot)) {
+            budget += loads.size();
+        }
+        budget = Math.max(minConcurrency * loads.size(), Math.min(maxConcurrency * loads.size(), budget));
+
+        double[] weights = loads.stream().mapToDouble(load -> load.capacityPerThread).toArray();
+        int[] current = loads.stream().mapToInt(load -> load.concurrency).toArray();
+        int[] shares = shares(current, allAssigned(loads), budget, weights, minConcurrency, maxConcurrency, deadBand);
+        for (int i = 0; i < loads.size(); i++) {
+            loads.get(i).targetConcurrency = shares[i];
+        }
+    }
+
+    /**
+     * Share the queue partitions by expected throughput, keeping a node's current
+     * partitions up to its share; with key-owner routing they follow Hazelcast ownership
+     */
+    private void assignPartitions(List<NodeLoad> loads) {
+        if (partitionCount <= 1 || ClusterConstants.ORDER_ROUTING_KEY_OWNER.equalsIgnoreCase(routingMode)) {
+            loads.forEach(load -> load.targetPartitions = new int[0]);
+            return;
+        }
+
+        double[] weights = loads.stream().mapToDouble(load -> load.targetConcurrency * load.capacityPerThread).toArray();
+        Set<Integer> consumed = new HashSet<>();
+        boolean covered = true;
+        for (NodeLoad load : loads) {
+            for (int partition : load.partitions) {
+                covered &= partition < partitionCount && consumed.add(partition);
+            }
+        }
+        int[] current = loads.stream().mapToInt(load -> load.partitions.size()).toArray();
+        int[] shares = shares(current, covered && allAssigned(loads), partitionCount, weights, 0, partitionCount, deadBand);
+        List<Set<Integer>> targets = new ArrayList<>();
+        Set<Integer> taken = new HashSet<>();
+        for (int i = 0; i < loads.size(); i++) {
+            Set<Integer> kept = new TreeSet<>();
+            for (int partition : loads.get(i).partitions) {
+                if (kept.size() < shares[i] && partition < partitionCount && taken.add(partition)) {
+                    kept.add(partition);
+                }
+            }
+            targets.add(kept);
+        }
+        int next = 0;
+        for (int i = 0; i < loads.size(); i++) {
+            Set<Integer> target = targets.get(i);
+            while (target.size() < shares[i]) {
+                while (taken.contains(next)) {
+                    next++;
+                }
+                taken.add(next);
+                target.add(next);
+            }
+            loads.get(i).targetPartitions = target.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Share the file slots by spare capacity; hot nodes get none unless every node is hot
+     */
+    private void assignFileSlots(List<NodeLoad> loads) {
+        boolean allHot = loads.stream().allMatch(NodeLoad::isHot);
+        double[] spare = loads.stream()
+            .mapToDouble(load -> allHot ? 1.0 : load.isHot() ? 0.0
+                : load.targetConcurrency * load.capacityPerThread * (1.0 - Math.min(load.utilization, 1.0)))
+            .toArray();
+        if (Arrays.stream(spare).sum() <= 0) {
+            Arrays.fill(spare, 1.0);
+        }
+        int total = Math.max(fileSlots, 0);
+        int[] current = loads.stream().mapToInt(load -> load.fileSlots).toArray();
+        int[] shares = shares(current, allAssigned(loads), total, spare, 0, total, deadBand);
+        for (int i = 0; i < loads.size(); i++) {
+            loads.get(i).targetFileSlots = shares[i];
+        }
+    }
+
+    private static boolean allAssigned(List<NodeLoad> loads) {
+        return loads.stream().allMatch(load -> load.assigned);
+    }
+
+    /**
+     * The current shares if they can be kept and are within the dead band, otherwise a
+     * new apportionment of the total
+     */
+    static int[] shares(int[] current, boolean keepable, int total, double[] weights, int min, int max,
+                        double deadBand) {
+        return keepable && withinDeadBand(current, total, weights, deadBand)
+            ? current : apportion(total, weights, min, max);
+    }
+
+    /**
+     * Whether the current shares still add up to the total and each is less than the
+     * dead band away from its proportional share
+     */
+    static boolean withinDeadBand(int[] current, int total, double[] weights, double deadBand) {
+        if (Arrays.stream(current).sum() != total) {
+            return false;
+        }
+        double weightSum = Arrays.stream(weights).sum();
+        for (int i = 0; i < current.length; i++) {
+            double ideal = weightSum > 0 ? total * weights[i] / weightSum : (double) total / current.length;
+            if (Math.abs(current[i] - ideal) >= deadBand) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Split total into integer shares proportional to the weights within [min, max],
+     * handing out what rounding leaves to the largest remainders
+     */
+    static int[] apportion(int total, double[] weights, int min, int max) {
+        int[] shares = new int[weights.length];
+        double weightSum = Arrays.stream(weights).sum();
+        double[] ideal = new double[weights.length];
+        int assigned = 0;
+        for (int i = 0; i < weights.length; i++) {
+            ideal[i] = weightSum > 0 ? total * weights[i] / weightSum : (double) total / weights.length;
+            shares[i] = Math.max(min, Math.min(max, (int) Math.floor(ideal[i])));
+            assigned += shares[i];
+        }
+        while (assigned != total) {
+            int best = -1;
+            for (int i = 0; i < shares.length; i++) {
+                boolean eligible = assigned < total ? shares[i] < max : shares[i] > min;
+                if (!eligible) {
+                    continue;
+                }
+                double remainder = ideal[i] - shares[i];
+                if (best < 0 || (assigned < total ? remainder > ideal[best] - shares[best]
+                                                  : remainder < ideal[best] - shares[best])) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            shares[best] += assigned < total ? 1 : -1;
+            assigned += assigned < total ? 1 : -1;
+        }
+        return shares;
+    }
+
+    /**
+     * Measured load and computed target of one consumer
+     */
+    private class NodeLoad {
+
+        private final String nodeId;
+        private boolean assigned;
+        private int concurrency;
+        private int fileSlots;
+        private Set<Integer> partitions;
+        private double ordersPerSecond;
+        private double latencyMillis;
+        private double queueWaitMillis;
+        private double utilization;
+        private double capacityPerThread;
+        private int targetConcurrency;
+        private int[] targetPartitions;
+        private int targetFileSlots;
+
+        NodeLoad(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        boolean isHot() {
+            return utilization > hotUtilization;
+        }
+
+        boolean differs(WorkAssignment current) {
+            return current == null
+                || current.concurrency() != targetConcurrency
+                || current.fileSlots() != targetFileSlots
+                || !Arrays.equals(current.partitions(), targetPartitions);
+        }
+
+        String summary() {
+            return nodeId + " c=" + targetConcurrency + " p=" + Arrays.toString(targetPartitions) + " f=" + targetFileSlots;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("nodeId", nodeId);
+            map.put("ordersPerSecond", ordersPerSecond);
+            map.put("latencyMs", latencyMillis);
+            map.put("queueWaitMs", queueWaitMillis);
+            map.put("utilization", utilization);
+            map.put("hot", isHot());
+            map.put("concurrency", concurrency);
+            map.put("targetConcurrency", targetConcurrency);
+            map.put("partitions", partitions);
+            map.put("targetPartitions", Arrays.stream(targetPartitions).boxed().toList());
+            map.put("targetFileSlots", targetFileSlots);
+            return map;
+        }
+    }
+}
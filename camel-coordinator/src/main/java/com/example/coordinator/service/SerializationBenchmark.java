@@ -0,0 +1,143 @@
+package com.example.coordinator.service;
+
+import com.example.common.model.MetricSample;
+import com.example.common.model.NodeStatus;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Compares the untyped map values used before Compact serialization with the typed
+ * NodeStatus and MetricSample records: stored entry size and put/get latency against
+ * scratch IMaps in the live cluster.
+ */
+@Service
+public class SerializationBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(SerializationBenchmark.class);
+
+    private static final int KEY_SPACE = 64;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Value("${cluster.node.id:coordinator-1}")
+    private String nodeId;
+
+    /**
+     * Run the benchmark
+     *
+     * @param iterations puts and gets per value type
+     */
+    public Map<String, Object> run(int iterations) {
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("iterations", iterations);
+        results.put("nodeId", nodeId);
+        results.put("nodeStatus", compare("node-status", iterations, this::legacyNodeStatus, this::nodeStatus));
+        results.put("metricSample", compare("metric-sample", iterations, this::legacyMetric, this::metricSample));
+        logger.info("Serialization benchmark completed on node {}: {}", nodeId, results);
+        return results;
+    }
+
+    private Map<String, Object> compare(String name, int iterations,
+                                        IntFunction<Object> legacyValue, IntFunction<Object> compactValue) {
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("legacyMap", measure("benchmark-legacy-" + name, iterations, legacyValue));
+        comparison.put("compact", measure("benchmark-compact-" + name, iterations, compactValue));
+        return comparison;
+    }
+
+    private Map<String, Object> measure(String mapName, int iterations, IntFunction<Object> valueFactory) {
+        IMap<String, Object> map = hazelcastInstance.getMap(mapName);
+        try {
+            // Warm up schemas, connections and JIT before timing
+            for (int i = 0; i < Math.min(iterations, 200); i++) {
+                map.put("key-" + (i % KEY_SPACE), valueFactory.apply(i));
+                map.get("key-" + (i % KEY_SPACE));
+            }
+
+            long putNanos = 0;
+            long getNanos = 0;
+            for (int i = 0; i < iterations; i++) {
+                String key = "key-" + (i % KEY_SPACE);
+                Object value = valueFactory.apply(i);
+
+                long start = System.nanoTime();
+                map.put(key, value);
+                putNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                map.get(key);
+                getNanos += System.nanoTime() - start;
+            }
+
+            // Entry cost is the binary key + value footprint held by the owning member
+            long totalCost = 0;
+            int entries = 0;
+            for (int i = 0; i < KEY_SPACE && i < iterations; i++) {
+                var entryView = map.getEntryView("key-" + i);
+                if (entryView != null) {
+                    totalCost += entryView.getCost();
+                    entries++;
+                }
+            }
+
+            Map<String, Object> measurement = new HashMap<>();
+            measurement.put("avgEntryCostBytes", entries > 0 ? totalCost / entries : 0);
+            measurement.put("avgPutMicros", putNanos / 1000.0 / iterations);
+            measurement.put("avgGetMicros", getNanos / 1000.0 / iterations);
+            return measurement;
+
+        } finally {
+            map.destroy();
+        }
+    }
+
+    private Object legacyNodeStatus(int i) {
+        return Map.of(
+            "nodeId", "consumer-" + (i % KEY_SPACE),
+            "nodeType", "consumer",
+            "status", "ACTIVE",
+            "lastUpdate", LocalDateTime.now().toString(),
+            "clusterSize", 5,
+            "additionalInfo", Map.of(
+                "status", "ACTIVE",
+                "description", "Consumer processing orders and files",
+                "ordersProcessed", (long) i,
+                "filesProcessed", (long) i / 10)
+        );
+    }
+
+    private Object nodeStatus(int i) {
+        Map<String, String> details = new LinkedHashMap<>();
+        details.put("status", "ACTIVE");
+        details.put("description", "Consumer processing orders and files");
+        details.put("ordersProcessed", String.valueOf((long) i));
+        details.put("filesProcessed", String.valueOf((long) i / 10));
+        return new NodeStatus("consumer-" + (i % KEY_SPACE), "consumer", "ACTIVE",
+                              System.currentTimeMillis(), 5, details);
+    }
+
+    private Object legacyMetric(int i) {
+        return Map.of(
+            "nodeId", "consumer-" + (i % KEY_SPACE),
+            "metricName", "orders_processed",
+            "value", (long) i,
+            "timestamp", LocalDateTime.now().toString()
+        );
+    }
+
+    private Object metricSample(int i) {
+        return new MetricSample("consumer-" + (i % KEY_SPACE), "orders_processed", i, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.coordinator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Apportioning consumer work and the dead band that keeps current shares
+ */
+class LoadBalancerTest {
+
+    private static final double DEAD_BAND = 1.0;
+
+    @Test
+    void apportionHandsOutRoundingLeftoversToTheLargestRemainders() {
+        // Ideal shares 3.5, 2.1 and 1.4
+        assertThat(LoadBalancer.apportion(7, new double[] {5, 3, 2}, 0, 7)).containsExactly(4, 2, 1);
+        // Equal remainders go to the first node
+        assertThat(LoadBalancer.apportion(10, new double[] {1, 1, 1}, 0, 10)).containsExactly(4, 3, 3);
+        // No weight at all splits evenly
+        assertThat(LoadBalancer.apportion(6, new double[] {0, 0, 0}, 0, 6)).containsExactly(2, 2, 2);
+    }
+
+    @Test
+    void apportionStaysWithinTheClampAndStillMeetsTheTotal() {
+        // Ideal shares 10, 0.83 and 0.83, clamped to [2, 6]
+        int[] shares = LoadBalancer.apportion(12, new double[] {10, 1, 1}, 2, 6);
+        assertThat(shares).containsExactly(6, 3, 3);
+        assertThat(Arrays.stream(shares).sum()).isEqualTo(12);
+    }
+
+    @Test
+    void apportionStopsAtTheClampWhenTheTotalCannotBeMet() {
+        // Every node is at its minimum and the shares still exceed the total
+        assertThat(LoadBalancer.apportion(4, new double[] {1, 1, 1, 1, 1, 1}, 1, 3)).containsExactly(1, 1, 1, 1, 1, 1);
+        // Every node is at its maximum and the shares still fall short of the total
+        assertThat(LoadBalancer.apportion(20, new double[] {3, 1}, 1, 6)).containsExactly(6, 6);
+    }
+
+    @Test
+    void currentSharesAreKeptWhileEveryNodeIsWithinTheDeadBand() {
+        int[] current = {4, 3, 3};
+        // Ideal shares 3.33 each
+        assertThat(LoadBalancer.withinDeadBand(current, 10, new double[] {1, 1, 1}, DEAD_BAND)).isTrue();
+        assertThat(LoadBalancer.shares(current, true, 10, new double[] {1, 1, 1}, 0, 10, DEAD_BAND)).isSameAs(current);
+        // Ideal shares 3.8, 2.9 and 3.3: still close enough
+        assertThat(LoadBalancer.shares(current, true, 10, new double[] {1.3, 1.0, 1.15}, 0, 10, DEAD_BAND)).isSameAs(current);
+    }
+
+    @Test
+    void sharesAreReapportionedOnceAnyNodeLeavesTheDeadBand() {
+        int[] current = {4, 3, 3};
+        // Ideal shares 2.5, 2.5 and 5: the first and last nodes are off by more than the dead band
+        double[] weights = {1, 1, 2};
+        assertThat(LoadBalancer.withinDeadBand(current, 10, weights, DEAD_BAND)).isFalse();
+        assertThat(LoadBalancer.shares(current, true, 10, weights, 0, 10, DEAD_BAND)).containsExactly(3, 2, 5);
+
+        // Ideal shares 3, 3 and 4: the first and last nodes are off by exactly the dead band
+        assertThat(LoadBalancer.shares(current, true, 10, new double[] {3, 3, 4}, 0, 10, DEAD_BAND))
+            .containsExactly(3, 3, 4);
+    }
+
+    @Test
+    void sharesThatCannotBeKeptAreReapportionedEvenWithinTheDeadBand() {
+        int[] current = {4, 3, 3};
+        double[] weights = {1, 1, 1};
+        // A node without an assignment yet, or partitions not covered exactly once
+        assertThat(LoadBalancer.shares(current, false, 10, weights, 0, 10, DEAD_BAND)).isNotSameAs(current)
+            .containsExactly(4, 3, 3);
+        // The total changed, e.g. a concurrency budget grown by hot nodes
+        assertThat(LoadBalancer.withinDeadBand(current, 11, weights, DEAD_BAND)).isFalse();
+        assertThat(LoadBalancer.shares(current, true, 11, weights, 0, 11, DEAD_BAND)).containsExactly(4, 4, 3);
+    }
+}
@@ -1,14 +1,24 @@
 package com.example.producer.controller;
 
+import com.example.common.service.ClusterRateLimiter;
 import com.example.common.service.ClusterService;
+import com.example.common.service.HazelcastFootprint;
+import com.example.producer.service.AsyncOrderSender;
+import com.example.producer.service.BackpressureController;
+import com.example.producer.service.BulkGenerationService;
+import com.example.producer.service.ProducerMetrics;
 import org.apache.camel.CamelContext;
 import org.apache.camel.ProducerTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -24,11 +34,27 @@ public class ProducerController {
     @Autowired
     private ClusterService clusterService;
     
+    @Autowired
+    private HazelcastFootprint hazelcastFootprint;
+    
+    @Autowired
+    private ProducerMetrics producerMetrics;
+    
+    @Autowired
+    private AsyncOrderSender asyncOrderSender;
+    
+    @Autowired
+    private BulkGenerationService bulkGenerationService;
+    
+    @Autowired
+    private ClusterRateLimiter rateLimiter;
+    
+    @Autowired
+    private BackpressureController backpressure;
+    
     @Value("${cluster.node.id:producer-1}")
     private String nodeId;
     
-    private long orderCount = 0;
-    private long fileCount = 0;
     private LocalDateTime startTime = LocalDateTime.now();
     
     @GetMapping("/status")
@@ -42,6 +68,8 @@ public class ProducerController {
         status.put("camelContext", camelContext.getName());
         status.put("camelStatus", camelContext.getStatus().toString());
         status.put("activeRoutes", camelContext.getRoutes().size());
+        status.put("rateLimits", rateLimiter.getStatus());
+        status.put("backpressure", backpressure.getStatus());
         
         return status;
     }
@@ -55,6 +83,7 @@ public class ProducerController {
         clusterInfo.put("clusterSize", clusterService.getClusterSize());
         clusterInfo.put("clusterMembers", clusterService.getClusterMembers());
         clusterInfo.put("isLeader", clusterService.isLeader());
+        clusterInfo.put("hazelcast", hazelcastFootprint.getStatus());
         
         return clusterInfo;
     }
@@ -63,15 +92,23 @@ public class ProducerController {
     public Map<String, Object> getMetrics() {
         Map<String, Object> metrics = new HashMap<>();
         metrics.put("nodeId", nodeId);
-        metrics.put("ordersGenerated", orderCount);
-        metrics.put("filesGenerated", fileCount);
+        metrics.put("ordersGenerated", producerMetrics.getOrdersGenerated());
+        metrics.put("ordersSent", producerMetrics.getOrdersSent());
+        metrics.put("ordersFailed", producerMetrics.getOrdersFailed());
+        metrics.put("filesGenerated", producerMetrics.getFilesWritten());
+        metrics.put("bytesWritten", producerMetrics.getBytesWritten());
+        metrics.put("backpressureEvents", producerMetrics.getBackpressureEvents());
+        metrics.put("sendsInFlight", asyncOrderSender.getInFlight());
+        metrics.put("maxSendsInFlight", asyncOrderSender.getMaxInFlight());
         metrics.put("startTime", startTime.toString());
         
         // Get route statistics
         Map<String, Object> routeStats = new HashMap<>();
         camelContext.getRoutes().forEach(route -> {
             String routeId = route.getId();
-            routeStats.put(routeId + "_status", "ACTIVE");
+            Map<String, Object> stats = new HashMap<>(producerMetrics.getRouteStatistics(routeId));
+            stats.put("status", route.getRouteController().getRouteStatus(routeId).toString());
+            routeStats.put(routeId, stats);
         });
         metrics.put("routeStatistics", routeStats);
         
@@ -82,14 +119,13 @@ public class ProducerController {
     public Map<String, Object> generateOrder() {
         try {
             producerTemplate.sendBody("direct:generate-order", null);
-            orderCount++;
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Order generated successfully");
             response.put("nodeId", nodeId);
             response.put("timestamp", LocalDateTime.now().toString());
-            response.put("totalOrders", orderCount);
+            response.put("totalOrders", producerMetrics.getOrdersGenerated());
             
             return response;
         } catch (Exception e) {
@@ -103,6 +139,54 @@ public class ProducerController {
         }
     }
     
+    @PostMapping("/generate/bulk")
+    public Map<String, Object> startBulkGeneration(
+            @RequestParam long count,
+            @RequestParam(defaultValue = "0") double rate,
+            @RequestParam(defaultValue = "random") String profile) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("nodeId", nodeId);
+        response.put("timestamp", LocalDateTime.now().toString());
+        
+        try {
+            BulkGenerationService.BulkJob job = bulkGenerationService.startJob(count, rate, profile);
+            response.put("success", true);
+            response.put("jobId", job.getJobId());
+            response.put("events", "/api/producer/generate/bulk/" + job.getJobId() + "/events");
+            response.put("job", job.toProgress());
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Failed to start bulk generation: " + e.getMessage());
+        }
+        
+        return response;
+    }
+    
+    @GetMapping("/generate/bulk")
+    public List<Map<String, Object>> getBulkJobs() {
+        return bulkGenerationService.getJobs();
+    }
+    
+    @GetMapping("/generate/bulk/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBulkJob(@PathVariable String jobId) {
+        BulkGenerationService.BulkJob job = bulkGenerationService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job.toProgress()) : ResponseEntity.notFound().build();
+    }
+    
+    @GetMapping(path = "/generate/bulk/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamBulkJob(@PathVariable String jobId) {
+        if (bulkGenerationService.getJob(jobId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(bulkGenerationService.subscribe(jobId));
+    }
+    
+    @DeleteMapping("/generate/bulk/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelBulkJob(@PathVariable String jobId) {
+        BulkGenerationService.BulkJob job = bulkGenerationService.cancelJob(jobId);
+        return job != null ? ResponseEntity.ok(job.toProgress()) : ResponseEntity.notFound().build();
+    }
+    
     @GetMapping("/health")
     public Map<String, Object> healthCheck() {
         try {
@@ -1,11 +1,19 @@
 package com.example.producer.route;
 
+import com.example.common.service.ClusterRateLimiter;
+import com.example.common.util.ClusterConstants;
+import com.example.producer.service.BackpressureController;
+import com.example.producer.service.OrderBatchAggregation;
+import jakarta.jms.JMSException;
 import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.model.RouteDefinition;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeoutException;
+
 @Component
 public class ProducerRoutes extends RouteBuilder {
     
@@ -21,33 +29,102 @@ public class ProducerRoutes extends RouteBuilder {
     @Value("${shared.file.path:/shared/input}")
     private String sharedFilePath;
     
+    @Value("${producer.send.async.enabled:false}")
+    private boolean asyncSendEnabled;
+    
+    @Value("${producer.send.max-retries:3}")
+    private int sendMaxRetries;
+    
+    @Value("${producer.batch.enabled:false}")
+    private boolean batchEnabled;
+    
+    @Value("${producer.batch.size:50}")
+    private int batchSize;
+    
+    @Value("${producer.batch.timeout:1000}")
+    private long batchTimeout;
+    
     @Autowired
     private Environment environment;
     
+    @Autowired
+    private ClusterRateLimiter rateLimiter;
+    
+    @Autowired
+    private BackpressureController backpressure;
+    
     @Override
     public void configure() throws Exception {
         
         // Determine target endpoint based on active profile
         String orderEndpoint = "mock:orders";
         if (!java.util.Arrays.asList(environment.getActiveProfiles()).contains("test")) {
-            orderEndpoint = "activemq:queue:orders?exchangePattern=InOnly";
+            // Pipelined sends keep a bounded window of unacknowledged orders instead of
+            // waiting a broker round-trip per order
+            orderEndpoint = asyncSendEnabled
+                ? "bean:asyncOrderSender"
+                : "activemq:queue:orders?exchangePattern=InOnly";
         }
         
-        // Order generation route - generates orders every 2 seconds
-        from("timer:order-generator?period=" + orderInterval)
+        // Order generation route - generates orders every 2 seconds. Like the file
+        // generator it is in the cluster group, started by ClusterStartup once Hazelcast has joined
+        RouteDefinition orderGenerator = from("timer:order-generator?period=" + orderInterval)
             .routeId("order-generator")
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
+            // Under consumer pressure only a share of the ticks generate an order
+            .process(backpressure.admitGeneration())
             .log("PRODUCER ${exchangeProperty.CamelTimerName}: Starting order generation on node " + nodeId)
             .bean("orderGenerator", "createOrder")
+            .bean("producerMetrics", "orderGenerated")
             .setHeader("nodeId", constant(nodeId))
-            .setHeader("CamelJmsDestinationName", constant("orders"))
-            .log("PRODUCER " + nodeId + ": Generated order ${body.orderId} for customer ${body.customerName}")
-            .convertBodyTo(String.class)
-            .to(orderEndpoint)
-            .log("PRODUCER " + nodeId + ": Order sent to queue/mock");
+            .setHeader("CamelJmsDestinationName", method("orderPartitioner", "destinationFor"))
+            .log("PRODUCER " + nodeId + ": Generated order ${body.orderId} for customer ${body.customerName}");
+        
+        if (batchEnabled) {
+            orderGenerator.to("direct:batch-orders");
+        } else {
+            orderGenerator
+                .convertBodyTo(String.class)
+                // Paced while consumers report pressure, then a permit from the cluster-wide
+                // order-sends limit
+                .process(backpressure.pace())
+                .process(rateLimiter.throttle(ClusterConstants.RATE_LIMIT_ORDER_SENDS))
+                .to("direct:send-order")
+                .log("PRODUCER " + nodeId + ": Order sent to queue/mock");
+        }
+        
+        // Batch publishing route - packs generated orders into one envelope message so the
+        // broker persists (and fsyncs) once per batch instead of once per order
+        from("direct:batch-orders")
+            .routeId("order-batcher")
+            // Bulk jobs learn the outcome of their batched orders from the envelope
+            .onException(Exception.class)
+                .bean("bulkGenerationService", "batchFailed")
+            .end()
+            // One open batch per destination queue so an envelope never mixes partitions
+            .aggregate(header("CamelJmsDestinationName"), new OrderBatchAggregation())
+                .completionSize(batchSize)
+                .completionTimeout(batchTimeout)
+                // Send what is buffered when the route or context stops instead of dropping it
+                .forceCompletionOnStop()
+                .completeAllOnStop()
+                .setHeader(ClusterConstants.ORDER_BATCH_SIZE_HEADER, simple("${body.size}"))
+                .bean("orderBatcher", "toEnvelope")
+                // Permits are taken per order, so envelopes count their size
+                .process(backpressure.pace())
+                .process(rateLimiter.throttle(ClusterConstants.RATE_LIMIT_ORDER_SENDS))
+                .to("direct:send-order")
+                .bean("bulkGenerationService", "batchSent")
+                .log("PRODUCER " + nodeId + ": Batch of ${header." + ClusterConstants.ORDER_BATCH_SIZE_HEADER +
+                     "} orders sent to queue/mock")
+            .end();
         
         // File generation route - creates CSV files every 10 seconds
         from("timer:file-generator?period=" + fileInterval)
             .routeId("file-generator")
+            .group(ClusterConstants.CLUSTER_ROUTE_GROUP)
+            .autoStartup(false)
             .log("PRODUCER ${exchangeProperty.CamelTimerName}: Starting file generation on node " + nodeId)
             .bean("fileGenerator", "createOrderFile")
             .setHeader("timestamp", simple("${body.timestamp}"))
@@ -56,6 +133,7 @@ public class ProducerRoutes extends RouteBuilder {
             .log("PRODUCER " + nodeId + ": Generated file ${header.CamelFileName} with ${header.orderCount} orders")
             .transform(simple("${body.content}"))
             .to("file:" + sharedFilePath + "?fileName=${header.CamelFileName}")
+            .bean("producerMetrics", "fileWritten")
             .log("PRODUCER " + nodeId + ": File ${header.CamelFileName} written to shared directory");
         
         // Manual order generation endpoint
@@ -63,13 +141,56 @@ public class ProducerRoutes extends RouteBuilder {
             .routeId("manual-order-generator")
             .log("PRODUCER " + nodeId + ": Manual order generation triggered")
             .bean("orderGenerator", "createOrder")
+            .bean("producerMetrics", "orderGenerated")
             .setHeader("nodeId", constant(nodeId))
             .setHeader("manual", constant(true))
+            .setHeader("CamelJmsDestinationName", method("orderPartitioner", "destinationFor"))
             .log("PRODUCER " + nodeId + ": Manual order ${body.orderId} generated")
             .convertBodyTo(String.class)
-            .to(orderEndpoint)
+            // Manual test orders bypass pacing and the order-sends limit
+            .to("direct:send-order")
             .log("PRODUCER " + nodeId + ": Manual order sent to queue/mock");
         
+        // Bulk order generation - fed by BulkGenerationService jobs
+        RouteDefinition bulkGenerator = from("direct:generate-bulk-order")
+            .routeId("bulk-order-generator")
+            .bean("orderGenerator", "createOrderForProfile(${header.orderProfile})")
+            .bean("producerMetrics", "orderGenerated")
+            .setHeader("nodeId", constant(nodeId))
+            .setHeader("CamelJmsDestinationName", method("orderPartitioner", "destinationFor"));
+        
+        if (batchEnabled) {
+            bulkGenerator.to("direct:batch-orders");
+        } else {
+            bulkGenerator
+                .convertBodyTo(String.class)
+                .process(backpressure.pace())
+                .process(rateLimiter.throttle(ClusterConstants.RATE_LIMIT_ORDER_SENDS))
+                .to("direct:send-order");
+        }
+        
+        // Broker send of single orders and batch envelopes. Failures are counted as failed
+        // sends here only, so an error elsewhere in a route is not reported as one
+        from("direct:send-order")
+            .routeId("order-sender")
+            // Failed or backpressure-timed-out async sends are redelivered
+            .onException(JMSException.class, TimeoutException.class)
+                .maximumRedeliveries(sendMaxRetries)
+                .redeliveryDelay(500)
+                .backOffMultiplier(2)
+                .useExponentialBackOff()
+                .logRetryAttempted(true)
+                .bean("producerMetrics", "sendFailed")
+                .bean("bulkGenerationService", "batchFailed")
+            .end()
+            .onException(Exception.class)
+                .bean("producerMetrics", "sendFailed")
+                .bean("bulkGenerationService", "batchFailed")
+            .end()
+            .bean("producerMetrics", "sendStarted")
+            .to(orderEndpoint)
+            .bean("producerMetrics", "sendCompleted");
+        
         // Health check route
         from("direct:health-check")
             .routeId("producer-health")
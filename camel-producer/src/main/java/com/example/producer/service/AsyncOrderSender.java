@@ -0,0 +1,215 @@
+package com.example.producer.service;
+
+import com.example.common.util.ClusterConstants;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.jms.CompletionListener;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.DeliveryMode;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageProducer;
+import jakarta.jms.Queue;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.AsyncProcessorSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pipelined JMS sender for generated orders.
+ * Uses JMS 2.0 CompletionListener sends so the route does not wait a full broker
+ * round-trip per order. A bounded window of unacknowledged sends applies backpressure
+ * to the calling route, and failed sends are set on the exchange so the route's
+ * error handler can redeliver them.
+ */
+@Service
+public class AsyncOrderSender extends AsyncProcessorSupport {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncOrderSender.class);
+
+    private static final String JMS_DESTINATION_NAME_HEADER = "CamelJmsDestinationName";
+
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private ProducerMetrics producerMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cluster.node.id:producer-1}")
+    private String nodeId;
+
+    @Value("${producer.send.async.max-in-flight:256}")
+    private int maxInFlight;
+
+    @Value("${producer.send.async.window-timeout:5000}")
+    private long windowTimeout;
+
+    private Semaphore window;
+    private Connection connection;
+    private Session session;
+    private MessageProducer messageProducer;
+    private final Map<String, Queue> queues = new HashMap<>();
+
+    @PostConstruct
+    public void initialize() {
+        window = new Semaphore(maxInFlight);
+        Gauge.builder("producer.send.in_flight", this, AsyncOrderSender::getInFlight)
+            .description("Async sends waiting for a broker acknowledgement")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        Semaphore sendWindow = window;
+        try {
+            // Backpressure: block the caller while the window of unacknowledged sends is full
+            if (!sendWindow.tryAcquire()) {
+                producerMetrics.backpressureEvent();
+                if (!sendWindow.tryAcquire(windowTimeout, TimeUnit.MILLISECONDS)) {
+                    throw new TimeoutException("Send window of " + maxInFlight +
+                            " in-flight orders still full after " + windowTimeout + " ms");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        } catch (Exception e) {
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+
+        try {
+            sendAsync(exchange, new CompletionListener() {
+                @Override
+                public void onCompletion(Message message) {
+                    sendWindow.release();
+                    callback.done(false);
+                }
+
+                @Override
+                public void onException(Message message, Exception exception) {
+                    sendWindow.release();
+                    logger.warn("Async send of order failed on node {}: {}", nodeId, exception.getMessage());
+                    exchange.setException(exception);
+                    callback.done(false);
+                }
+            });
+            return false;
+
+        } catch (Exception e) {
+            sendWindow.release();
+            resetConnection();
+            exchange.setException(e);
+            callback.done(true);
+            return true;
+        }
+    }
+
+    /**
+     * Hand the order to the broker without waiting for its acknowledgement.
+     * JMS sessions are single-threaded, so only the send call itself is serialized.
+     */
+    private synchronized void sendAsync(Exchange exchange, CompletionListener listener) throws JMSException {
+        ensureConnected();
+
+        TextMessage message = session.createTextMessage(exchange.getIn().getBody(String.class));
+        for (Map.Entry<String, Object> header : exchange.getIn().getHeaders().entrySet()) {
+            Object value = header.getValue();
+            if (!header.getKey().startsWith("Camel") &&
+                (value instanceof String || value instanceof Number || value instanceof Boolean)) {
+                message.setObjectProperty(header.getKey(), value);
+            }
+        }
+
+        // Partitioned routes name their queue in the same header the activemq endpoint honours
+        String destinationName = exchange.getIn().getHeader(JMS_DESTINATION_NAME_HEADER,
+            ClusterConstants.ORDERS_QUEUE, String.class);
+        messageProducer.send(queueFor(destinationName), message, listener);
+    }
+
+    private Queue queueFor(String destinationName) throws JMSException {
+        Queue queue = queues.get(destinationName);
+        if (queue == null) {
+            queue = session.createQueue(destinationName);
+            queues.put(destinationName, queue);
+        }
+        return queue;
+    }
+
+    private void ensureConnected() throws JMSException {
+        if (messageProducer != null) {
+            return;
+        }
+        connection = connectionFactory.createConnection();
+        session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        messageProducer = session.createProducer(null);
+        messageProducer.setDeliveryMode(DeliveryMode.PERSISTENT);
+        connection.start();
+        logger.info("Async order sender connected on node {} with window of {} in-flight sends",
+                   nodeId, maxInFlight);
+    }
+
+    /**
+     * Drop the current connection so the next send reconnects
+     */
+    private synchronized void resetConnection() {
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (JMSException e) {
+            logger.debug("Error closing JMS connection: {}", e.getMessage());
+        } finally {
+            connection = null;
+            session = null;
+            messageProducer = null;
+            queues.clear();
+        }
+    }
+
+    /**
+     * Wait briefly for in-flight sends to be acknowledged before closing
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            if (window.tryAcquire(maxInFlight, windowTimeout, TimeUnit.MILLISECONDS)) {
+                window.release(maxInFlight);
+            } else {
+                logger.warn("Closing async order sender with {} sends still in flight", getInFlight());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        resetConnection();
+    }
+
+    public int getInFlight() {
+        return maxInFlight - window.availablePermits();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.producer.service;
+
+import com.example.common.model.ConsumerPressure;
+import com.example.common.model.ProducerThrottle;
+import com.example.common.service.ClusterStartup;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.core.HazelcastInstance;
+import jakarta.annotation.PreDestroy;
+import org.apache.camel.Processor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slows this producer down while the consumers report pressure.
+ * Every interval the mean score of the consumers in the consumer-pressure map is
+ * compared with two watermarks: at or above the high one the producer's factor is
+ * halved, at or below the low one it grows back by a fixed step, and in between it is
+ * held, so the producer does not flap around a single threshold. Below 1.0 the factor
+ * scales order generation (timer ticks are skipped) and paces sends at that share of
+ * the send rate measured before throttling began. The state is published to the
+ * producer-throttle map with the consumers that caused it.
+ */
+@Service
+public class BackpressureController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackpressureController.class);
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private ProducerMetrics producerMetrics;
+
+    @Value("${cluster.node.id:producer-1}")
+    private String nodeId;
+
+    @Value("${cluster.backpressure.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cluster.backpressure.interval:1000}")
+    private long interval;
+
+    // Consumer pressure at which throttling tightens
+    @Value("${cluster.backpressure.high-watermark:1.0}")
+    private double highWatermark;
+
+    // Consumer pressure at which throttling eases
+    @Value("${cluster.backpressure.low-watermark:0.6}")
+    private double lowWatermark;
+
+    @Value("${cluster.backpressure.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    @Value("${cluster.backpressure.increase-step:0.1}")
+    private double increaseStep;
+
+    @Value("${cluster.backpressure.min-factor:0.05}")
+    private double minFactor;
+
+    // Pressure older than this is ignored, e.g. from a consumer that stopped
+    @Value("${cluster.backpressure.stale-after:5000}")
+    private long staleAfter;
+
+    private ScheduledExecutorService scheduler;
+    private volatile double factor = 1.0;
+    private volatile double pressure;
+    private volatile double baselineRate;
+    private volatile String[] throttledBy = new String[0];
+    private volatile long throttlingSince;
+    private long lastSent;
+    private long lastCheckAt;
+    private long nextSendNanos;
+    private double generationCredit;
+
+    @EventListener(ClusterStartup.ClusterReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        lastSent = producerMetrics.getOrdersSent();
+        lastCheckAt = System.currentTimeMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "backpressure");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("Producer {} follows consumer pressure (high {}, low {})", nodeId, highWatermark, lowWatermark);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            hazelcastInstance.getMap(ClusterConstants.PRODUCER_THROTTLE_MAP).delete(nodeId);
+        } catch (Exception e) {
+            logger.debug("Error removing producer throttle: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Camel step that lets a generator tick through at the current factor's share and
+     * stops the route for the others
+     */
+    public Processor admitGeneration() {
+        return exchange -> {
+            if (factor >= 1.0) {
+                return;
+            }
+            synchronized (this) {
+                generationCredit += factor;
+                if (generationCredit >= 1.0) {
+                    generationCredit -= 1.0;
+                    return;
+                }
+            }
+            exchange.setRouteStop(true);
+        };
+    }
+
+    /**
+     * Camel step that spaces sends out to the throttled send rate, one permit per
+     * order of a batched envelope
+     */
+    public Processor pace() {
+        return exchange -> {
+            double limit = getSendLimit();
+            if (limit <= 0) {
+                return;
+            }
+            Integer batchSize = exchange.getIn().getHeader(ClusterConstants.ORDER_BATCH_SIZE_HEADER, Integer.class);
+            int orders = batchSize != null && batchSize > 0 ? batchSize : 1;
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long start = Math.max(nextSendNanos, now);
+                nextSendNanos = start + (long) (orders * 1_000_000_000L / limit);
+                waitNanos = start - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        };
+    }
+
+    /**
+     * Orders per second this producer may send, 0 while it is not throttling or before
+     * any send rate was measured. The factor never drops below the minimum factor, so
+     * neither does the limit's share of the baseline
+     */
+    public double getSendLimit() {
+        double current = factor;
+        return current < 1.0 ? baselineRate * Math.max(minFactor, current) : 0.0;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("factor", factor);
+        status.put("consumerPressure", pressure);
+        status.put("baselineRate", baselineRate);
+        status.put("sendLimit", getSendLimit());
+        status.put("throttledBy", List.of(throttledBy));
+        status.put("throttlingSince", throttlingSince);
+        return status;
+    }
+
+    private void check() {
+        try {
+            long now = System.currentTimeMillis();
+            List<ConsumerPressure> consumers = hazelcastInstance
+                .<String, ConsumerPressure>getMap(ClusterConstants.CONSUMER_PRESSURE_MAP)
+                .values().stream()
+                .filter(consumer -> now - consumer.updatedAt() <= staleAfter)
+                .toList();
+            pressure = consumers.stream().mapToDouble(ConsumerPressure::score).average().orElse(0.0);
+
+            // The rate to come back to is learnt only while sends are not held back
+            long sent = producerMetrics.getOrdersSent();
+            double observedRate = now > lastCheckAt ? (sent - lastSent) * 1000.0 / (now - lastCheckAt) : 0.0;
+            lastSent = sent;
+            lastCheckAt = now;
+            if (factor >= 1.0 && observedRate > 0) {
+                baselineRate = baselineRate > 0 ? 0.7 * baselineRate + 0.3 * observedRate : observedRate;
+            }
+
+            if (pressure >= highWatermark) {
+                if (factor >= 1.0) {
+                    throttlingSince = now;
+                }
+                factor = Math.max(minFactor, factor * decreaseFactor);
+                throttledBy = consumers.stream()
+                    .filter(consumer -> consumer.score() >= highWatermark)
+                    .map(ConsumerPressure::nodeId)
+                    .sorted()
+                    .toArray(String[]::new);
+                logger.warn("Producer {} throttled to {}% (consumer pressure {}, from {})", nodeId,
+                           Math.round(factor * 100), String.format("%.2f", pressure), Arrays.toString(throttledBy));
+            } else if (pressure <= lowWatermark && factor < 1.0) {
+                factor = Math.min(1.0, factor + increaseStep);
+                if (factor >= 1.0) {
+                    throttledBy = new String[0];
+                    throttlingSince = 0;
+                    logger.info("Producer {} no longer throttled (consumer pressure {})", nodeId,
+                               String.format("%.2f", pressure));
+                }
+            }
+
+            hazelcastInstance.getMap(ClusterConstants.PRODUCER_THROTTLE_MAP).set(nodeId,
+                new ProducerThrottle(nodeId, factor, pressure, getSendLimit(), throttledBy, throttlingSince, now));
+
+        } catch (Exception e) {
+            logger.warn("Backpressure check failed on producer {}: {}", nodeId, e.getMessage());
+        }
+    }
+}
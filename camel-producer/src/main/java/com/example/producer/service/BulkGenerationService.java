@@ -0,0 +1,356 @@
+package com.example.producer.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.camel.AsyncProducer;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.service.ServiceHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs bulk order-generation jobs in the background.
+ * Each job feeds direct:generate-bulk-order at a target rate without waiting for
+ * individual sends, and its progress is pushed to subscribers as Server-Sent Events.
+ */
+@Service
+public class BulkGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkGenerationService.class);
+
+    private static final String BULK_ROUTE_ENDPOINT = "direct:generate-bulk-order";
+    public static final String BULK_JOB_HEADER = "bulkJobId";
+    // Orders per bulk job carried by a batch envelope, set by OrderBatchAggregation
+    public static final String BULK_JOB_ORDERS_PROPERTY = "bulkJobOrders";
+    private static final long FINISHED_JOB_RETENTION_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    @Autowired
+    private CamelContext camelContext;
+
+    @Value("${cluster.node.id:producer-1}")
+    private String nodeId;
+
+    @Value("${producer.bulk.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+
+    @Value("${producer.bulk.progress-interval:1000}")
+    private long progressInterval;
+
+    @Value("${producer.bulk.drain-timeout:60000}")
+    private long drainTimeout;
+
+    @Value("${producer.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, List<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private ExecutorService jobExecutor;
+    private ScheduledExecutorService progressPublisher;
+    private Semaphore jobSlots;
+
+    @PostConstruct
+    public void initialize() {
+        jobSlots = new Semaphore(maxConcurrentJobs);
+        jobExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "bulk-order-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progressPublisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bulk-order-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progressPublisher.scheduleAtFixedRate(this::publishProgress,
+            progressInterval, progressInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start a bulk generation job
+     *
+     * @param count         number of orders to generate
+     * @param ratePerSecond target orders per second, 0 for as fast as the send path allows
+     * @param profile       order profile passed to OrderGenerator.createOrderForProfile
+     */
+    public BulkJob startJob(long count, double ratePerSecond, String profile) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        long now = System.nanoTime();
+        jobs.values().removeIf(job -> !job.isRunning() && now - job.finishedNanos > FINISHED_JOB_RETENTION_NANOS);
+
+        // A slot is held from here until the job finishes, so concurrent starts cannot both pass the limit
+        if (!jobSlots.tryAcquire()) {
+            throw new IllegalStateException("Already running " + maxConcurrentJobs + " bulk jobs (max " + maxConcurrentJobs + ")");
+        }
+
+        BulkJob job = new BulkJob(UUID.randomUUID().toString(), count, ratePerSecond, profile);
+        jobs.put(job.getJobId(), job);
+        try {
+            jobExecutor.submit(() -> runJob(job));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getJobId());
+            jobSlots.release();
+            throw e;
+        }
+
+        logger.info("Bulk generation job {} started on node {}: {} orders at {} orders/s, profile {}",
+                   job.getJobId(), nodeId, count, ratePerSecond > 0 ? ratePerSecond : "max", profile);
+        return job;
+    }
+
+    /**
+     * Request cancellation; orders already submitted still complete
+     */
+    public BulkJob cancelJob(String jobId) {
+        BulkJob job = jobs.get(jobId);
+        if (job != null && job.isRunning()) {
+            job.cancelled = true;
+            logger.info("Bulk generation job {} cancellation requested", jobId);
+        }
+        return job;
+    }
+
+    public BulkJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public List<Map<String, Object>> getJobs() {
+        return jobs.values().stream().map(BulkJob::toProgress).toList();
+    }
+
+    /**
+     * Subscribe to the progress events of a job
+     */
+    public SseEmitter subscribe(String jobId) {
+        BulkJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown bulk job: " + jobId);
+        }
+
+        SseEmitter emitter = new SseEmitter(0L);
+        List<SseEmitter> jobSubscribers = subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>());
+        jobSubscribers.add(emitter);
+        emitter.onCompletion(() -> jobSubscribers.remove(emitter));
+        emitter.onTimeout(() -> jobSubscribers.remove(emitter));
+        emitter.onError(error -> jobSubscribers.remove(emitter));
+
+        // Send the current state straight away rather than after the first interval
+        send(emitter, job);
+        return emitter;
+    }
+
+    private void runJob(BulkJob job) {
+        AsyncProducer producer = null;
+        try {
+            producer = camelContext.getEndpoint(BULK_ROUTE_ENDPOINT).createAsyncProducer();
+            ServiceHelper.startService(producer);
+
+            long intervalNanos = job.ratePerSecond > 0 ? (long) (1_000_000_000L / job.ratePerSecond) : 0L;
+            long startNanos = System.nanoTime();
+
+            for (long i = 0; i < job.requested && !job.cancelled; i++) {
+                // Pace against the job start so a slow send is caught up instead of lowering the rate
+                if (intervalNanos > 0) {
+                    long waitNanos = startNanos + i * intervalNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        LockSupport.parkNanos(waitNanos);
+                    }
+                }
+
+                Exchange exchange = producer.getEndpoint().createExchange();
+                exchange.getIn().setHeader("orderProfile", job.profile);
+                exchange.getIn().setHeader(BULK_JOB_HEADER, job.jobId);
+                job.submitted.incrementAndGet();
+
+                producer.process(exchange, doneSync -> {
+                    if (exchange.getException() != null) {
+                        job.failed.increment();
+                        job.lastError = exchange.getException().getMessage();
+                    } else if (!batchEnabled) {
+                        job.sent.increment();
+                    }
+                    // Batched orders are credited by batchSent or batchFailed once their envelope goes out
+                });
+            }
+
+            awaitOutstanding(job);
+            job.finish(job.cancelled ? "CANCELLED" : "COMPLETED");
+
+        } catch (Exception e) {
+            logger.error("Bulk generation job {} failed", job.jobId, e);
+            job.lastError = e.getMessage();
+            job.finish("FAILED");
+        } finally {
+            jobSlots.release();
+            ServiceHelper.stopService(producer);
+            logger.info("Bulk generation job {} finished: {}", job.jobId, job.toProgress());
+            publishProgress();
+        }
+    }
+
+    /**
+     * Credit the bulk jobs whose orders a batch envelope carried with a successful send
+     */
+    public void batchSent(Exchange exchange) {
+        creditBatch(exchange, null);
+    }
+
+    /**
+     * Credit the bulk jobs whose orders a batch envelope carried with a failure.
+     * Safe to call more than once for the same envelope.
+     */
+    public void batchFailed(Exchange exchange) {
+        Exception exception = exchange.getException() != null ? exchange.getException()
+            : exchange.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
+        creditBatch(exchange, exception != null ? exception.getMessage() : "batch send failed");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void creditBatch(Exchange exchange, String error) {
+        Map<String, Long> jobOrders = (Map<String, Long>) exchange.removeProperty(BULK_JOB_ORDERS_PROPERTY);
+        if (jobOrders == null) {
+            return;
+        }
+        jobOrders.forEach((jobId, orders) -> {
+            BulkJob job = jobs.get(jobId);
+            if (job == null) {
+                return;
+            }
+            if (error == null) {
+                job.sent.add(orders);
+            } else {
+                job.failed.add(orders);
+                job.lastError = error;
+            }
+        });
+    }
+
+    private void awaitOutstanding(BulkJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + drainTimeout;
+        while (job.completed() < job.submitted.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private void publishProgress() {
+        subscribers.forEach((jobId, jobSubscribers) -> {
+            BulkJob job = jobs.get(jobId);
+            for (SseEmitter emitter : jobSubscribers) {
+                send(emitter, job);
+                if (job == null || !job.isRunning()) {
+                    emitter.complete();
+                }
+            }
+            if (job == null || !job.isRunning()) {
+                subscribers.remove(jobId);
+            }
+        });
+    }
+
+    private void send(SseEmitter emitter, BulkJob job) {
+        if (job == null) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event()
+                .name(job.isRunning() ? "progress" : "complete")
+                .id(job.jobId + "-" + job.completed())
+                .data(job.toProgress()));
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping progress subscriber of bulk job {}: {}", job.jobId, e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.cancelled = true);
+        progressPublisher.shutdownNow();
+        jobExecutor.shutdown();
+    }
+
+    /**
+     * State of one bulk generation job
+     */
+    public static class BulkJob {
+        private final String jobId;
+        private final long requested;
+        private final double ratePerSecond;
+        private final String profile;
+        private final LocalDateTime startTime = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong submitted = new AtomicLong(0);
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private volatile boolean cancelled;
+        private volatile String state = "RUNNING";
+        private volatile String lastError;
+        private volatile long finishedNanos;
+
+        BulkJob(String jobId, long requested, double ratePerSecond, String profile) {
+            this.jobId = jobId;
+            this.requested = requested;
+            this.ratePerSecond = ratePerSecond;
+            this.profile = profile;
+        }
+
+        public String getJobId() { return jobId; }
+        public String getState() { return state; }
+        public boolean isRunning() { return "RUNNING".equals(state); }
+
+        long completed() {
+            return sent.sum() + failed.sum();
+        }
+
+        void finish(String finalState) {
+            finishedNanos = System.nanoTime();
+            state = finalState;
+        }
+
+        public Map<String, Object> toProgress() {
+            long endNanos = finishedNanos > 0 ? finishedNanos : System.nanoTime();
+            double elapsedSeconds = (endNanos - startNanos) / 1_000_000_000.0;
+            long sentCount = sent.sum();
+
+            Map<String, Object> progress = new HashMap<>();
+            progress.put("jobId", jobId);
+            progress.put("state", cancelled && isRunning() ? "CANCELLING" : state);
+            progress.put("profile", profile);
+            progress.put("requested", requested);
+            progress.put("submitted", submitted.get());
+            progress.put("sent", sentCount);
+            progress.put("errors", failed.sum());
+            progress.put("targetRate", ratePerSecond);
+            progress.put("rate", elapsedSeconds > 0 ? sentCount / elapsedSeconds : 0.0);
+            progress.put("elapsedMs", (long) (elapsedSeconds * 1000));
+            progress.put("startTime", startTime.toString());
+            if (lastError != null) {
+                progress.put("lastError", lastError);
+            }
+            return progress;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.producer.service;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.processor.aggregate.GroupedBodyAggregationStrategy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Groups order bodies into a batch and remembers how many orders of each bulk
+ * generation job the batch carries, so the jobs are credited when the envelope is
+ * sent or fails rather than when their orders are handed to the aggregator.
+ */
+public class OrderBatchAggregation extends GroupedBodyAggregationStrategy {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Exchange aggregate(Exchange oldExchange, Exchange newExchange) {
+        Exchange batch = super.aggregate(oldExchange, newExchange);
+        String jobId = newExchange.getIn().getHeader(BulkGenerationService.BULK_JOB_HEADER, String.class);
+        if (jobId != null) {
+            Map<String, Long> jobOrders = batch.getProperty(BulkGenerationService.BULK_JOB_ORDERS_PROPERTY, Map.class);
+            if (jobOrders == null) {
+                jobOrders = new HashMap<>();
+                batch.setProperty(BulkGenerationService.BULK_JOB_ORDERS_PROPERTY, jobOrders);
+            }
+            jobOrders.merge(jobId, 1L, Long::sum);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.producer.service;
+
+import com.example.common.model.Order;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Packs aggregated orders into a single multi-order envelope message.
+ * The envelope is a JSON array of orders, unpacked again by the consumer.
+ */
+@Service
+public class OrderBatcher {
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    public String toEnvelope(List<Order> orders) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(orders);
+    }
+}
@@ -34,4 +34,21 @@ public class OrderGenerator {
         
         return order;
     }
+    
+    /**
+     * Create an order shaped by a bulk-generation profile:
+     * random (default), high-value (large orders) or hot-customer (every order for one customer)
+     */
+    public Order createOrderForProfile(String profile) {
+        Order order = createOrder();
+        
+        if ("high-value".equalsIgnoreCase(profile)) {
+            order.setQuantity(random.nextInt(5) + 6);     // 6-10 items
+            order.setPrice(random.nextDouble() * 500 + 800); // $800-$1300
+        } else if ("hot-customer".equalsIgnoreCase(profile)) {
+            order.setCustomerName(CUSTOMERS.get(0));
+        }
+        
+        return order;
+    }
 } 
\ No newline at end of file
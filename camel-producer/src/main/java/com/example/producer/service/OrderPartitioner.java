@@ -0,0 +1,44 @@
+package com.example.producer.service;
+
+import com.example.common.model.Order;
+import com.example.common.util.ClusterConstants;
+import com.example.common.util.OrderPartitions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Chooses the order queue partition for a generated order.
+ * With cluster.orders.partitions above 1, orders are hashed by order id or customer
+ * onto orders.0..K-1 so each consumer owns a stable slice of the key space;
+ * otherwise everything goes to the single orders queue. Key-owner routing always
+ * hashes by customer, since consumers keep per-customer state next to their queues.
+ */
+@Service
+public class OrderPartitioner {
+
+    @Value("${cluster.orders.partitions:1}")
+    private int partitionCount;
+
+    @Value("${producer.partitions.key:orderId}")
+    private String partitionKey;
+
+    @Value("${cluster.orders.routing:" + ClusterConstants.ORDER_ROUTING_ANY + "}")
+    private String routingMode;
+
+    /**
+     * JMS destination name for the order
+     */
+    public String destinationFor(Order order) {
+        if (partitionCount <= 1) {
+            return ClusterConstants.ORDERS_QUEUE;
+        }
+        boolean byCustomer = "customer".equalsIgnoreCase(partitionKey)
+            || ClusterConstants.ORDER_ROUTING_KEY_OWNER.equalsIgnoreCase(routingMode);
+        String key = byCustomer ? order.getCustomerName() : order.getOrderId();
+        return OrderPartitions.queueName(OrderPartitions.partitionFor(key, partitionCount));
+    }
+
+    public int getPartitionCount() {
+        return Math.max(partitionCount, 1);
+    }
+}
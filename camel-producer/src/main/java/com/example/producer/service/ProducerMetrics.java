@@ -0,0 +1,198 @@
+package com.example.producer.service;
+
+import com.example.common.service.MetricTimeSeries;
+import com.example.common.util.ClusterConstants;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.apache.camel.Exchange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe per-route producer instrumentation.
+ * Counters are LongAdders so the generating routes never contend on a shared field,
+ * and send latency is recorded in a Micrometer timer with p50/p99/p999 percentiles.
+ * Everything is registered with the MeterRegistry and also exposed as a map for
+ * the producer REST API.
+ */
+@Service
+public class ProducerMetrics {
+
+    private static final String SEND_START_PROPERTY = "producerSendStartNanos";
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MetricTimeSeries metricTimeSeries;
+
+    private final Map<String, RouteMetrics> routeMetrics = new ConcurrentHashMap<>();
+    private final LongAdder filesWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder backpressureEvents = new LongAdder();
+
+    @PostConstruct
+    public void registerNodeMeters() {
+        FunctionCounter.builder("producer.files.written", filesWritten, LongAdder::sum)
+            .register(meterRegistry);
+        FunctionCounter.builder("producer.files.bytes", bytesWritten, LongAdder::sum)
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        FunctionCounter.builder("producer.send.backpressure", backpressureEvents, LongAdder::sum)
+            .description("Sends that waited for a free slot in the async send window")
+            .register(meterRegistry);
+        metricTimeSeries.register(ClusterConstants.SERIES_ORDERS_SENT, this::getOrdersSent);
+    }
+
+    /**
+     * Count an order created by the exchange's route
+     */
+    public void orderGenerated(Exchange exchange) {
+        forRoute(exchange.getFromRouteId()).generated.increment();
+    }
+
+    /**
+     * Mark the start of a broker send; paired with {@link #sendCompleted(Exchange)}
+     */
+    public void sendStarted(Exchange exchange) {
+        exchange.setProperty(SEND_START_PROPERTY, System.nanoTime());
+    }
+
+    /**
+     * Record a successful send and its latency. Batched envelopes count every order they carry.
+     */
+    public void sendCompleted(Exchange exchange) {
+        RouteMetrics metrics = forRoute(exchange.getFromRouteId());
+        Long start = exchange.getProperty(SEND_START_PROPERTY, Long.class);
+        if (start != null) {
+            metrics.sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        metrics.sent.add(ordersCarried(exchange));
+    }
+
+    /**
+     * Record a send that failed after all redeliveries
+     */
+    public void sendFailed(Exchange exchange) {
+        forRoute(exchange.getFromRouteId()).failed.add(ordersCarried(exchange));
+    }
+
+    /**
+     * Record a generated file and the bytes written for it
+     */
+    public void fileWritten(Exchange exchange) {
+        String content = exchange.getIn().getBody(String.class);
+        filesWritten.increment();
+        if (content != null) {
+            bytesWritten.add(content.getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    /**
+     * Record a send that had to wait for a free slot in the async send window
+     */
+    public void backpressureEvent() {
+        backpressureEvents.increment();
+    }
+
+    public long getOrdersGenerated() {
+        return routeMetrics.values().stream().mapToLong(metrics -> metrics.generated.sum()).sum();
+    }
+
+    public long getOrdersSent() {
+        return routeMetrics.values().stream().mapToLong(metrics -> metrics.sent.sum()).sum();
+    }
+
+    public long getOrdersFailed() {
+        return routeMetrics.values().stream().mapToLong(metrics -> metrics.failed.sum()).sum();
+    }
+
+    public long getFilesWritten() {
+        return filesWritten.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    public long getBackpressureEvents() {
+        return backpressureEvents.sum();
+    }
+
+    /**
+     * Snapshot of the counters and latency percentiles of one route
+     */
+    public Map<String, Object> getRouteStatistics(String routeId) {
+        RouteMetrics metrics = routeMetrics.get(routeId);
+        if (metrics == null) {
+            return Map.of();
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("ordersGenerated", metrics.generated.sum());
+        stats.put("ordersSent", metrics.sent.sum());
+        stats.put("ordersFailed", metrics.failed.sum());
+        stats.put("sendLatencyMs", latencySnapshot(metrics.sendLatency));
+        return stats;
+    }
+
+    private Map<String, Object> latencySnapshot(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> latency = new HashMap<>();
+        latency.put("count", snapshot.count());
+        latency.put("mean", snapshot.mean(TimeUnit.MILLISECONDS));
+        latency.put("max", snapshot.max(TimeUnit.MILLISECONDS));
+        ValueAtPercentile[] percentiles = snapshot.percentileValues();
+        for (int i = 0; i < percentiles.length && i < PERCENTILE_NAMES.length; i++) {
+            latency.put(PERCENTILE_NAMES[i], percentiles[i].value(TimeUnit.MILLISECONDS));
+        }
+        return latency;
+    }
+
+    private long ordersCarried(Exchange exchange) {
+        Integer batchSize = exchange.getIn().getHeader(ClusterConstants.ORDER_BATCH_SIZE_HEADER, Integer.class);
+        return batchSize != null ? batchSize : 1;
+    }
+
+    private RouteMetrics forRoute(String routeId) {
+        return routeMetrics.computeIfAbsent(routeId != null ? routeId : "unknown", RouteMetrics::new);
+    }
+
+    private final class RouteMetrics {
+        private final LongAdder generated = new LongAdder();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final Timer sendLatency;
+
+        private RouteMetrics(String routeId) {
+            FunctionCounter.builder("producer.orders.generated", generated, LongAdder::sum)
+                .tag("route", routeId)
+                .register(meterRegistry);
+            FunctionCounter.builder("producer.orders.sent", sent, LongAdder::sum)
+                .tag("route", routeId)
+                .register(meterRegistry);
+            FunctionCounter.builder("producer.orders.failed", failed, LongAdder::sum)
+                .tag("route", routeId)
+                .register(meterRegistry);
+            sendLatency = Timer.builder("producer.send.latency")
+                .description("Time from handing an order to the broker until it is acknowledged")
+                .tag("route", routeId)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        }
+    }
+}
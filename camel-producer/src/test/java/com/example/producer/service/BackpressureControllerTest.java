@@ -0,0 +1,136 @@
+package com.example.producer.service;
+
+import com.example.common.model.ConsumerPressure;
+import com.example.common.util.ClusterConstants;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Send pacing of a producer under consumer pressure
+ */
+class BackpressureControllerTest {
+
+    private final CamelContext camelContext = new DefaultCamelContext();
+    private final HazelcastInstance hazelcastInstance = mock(HazelcastInstance.class);
+    private final IMap<String, ConsumerPressure> pressureMap = mock(IMap.class);
+    private final ProducerMetrics producerMetrics = mock(ProducerMetrics.class);
+    private BackpressureController controller;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(pressureMap).when(hazelcastInstance).getMap(ClusterConstants.CONSUMER_PRESSURE_MAP);
+        doReturn(mock(IMap.class)).when(hazelcastInstance).getMap(ClusterConstants.PRODUCER_THROTTLE_MAP);
+
+        controller = new BackpressureController();
+        ReflectionTestUtils.setField(controller, "hazelcastInstance", hazelcastInstance);
+        ReflectionTestUtils.setField(controller, "producerMetrics", producerMetrics);
+        ReflectionTestUtils.setField(controller, "nodeId", "producer-1");
+        ReflectionTestUtils.setField(controller, "enabled", true);
+        ReflectionTestUtils.setField(controller, "highWatermark", 1.0);
+        ReflectionTestUtils.setField(controller, "lowWatermark", 0.6);
+        ReflectionTestUtils.setField(controller, "decreaseFactor", 0.5);
+        ReflectionTestUtils.setField(controller, "increaseStep", 0.1);
+        ReflectionTestUtils.setField(controller, "minFactor", 0.05);
+        ReflectionTestUtils.setField(controller, "staleAfter", 5000L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        camelContext.close();
+    }
+
+    @Test
+    void sendsGoOutUnpacedWhileConsumersKeepUp() throws Exception {
+        reportPressure(0.2);
+        check(40, 1000);
+        assertThat(controller.getSendLimit()).isZero();
+
+        assertThat(sendMillis(controller.pace(), 11, 1)).isLessThan(100);
+    }
+
+    @Test
+    void pacingSpacesSendsToTheThrottledShareOfTheBaseline() throws Exception {
+        // 40 orders/s were sent when the consumers reported pressure, so the factor halves
+        reportPressure(1.5);
+        check(40, 1000);
+        double baseline = (double) controller.getStatus().get("baselineRate");
+        assertThat(baseline).isCloseTo(40.0, within(2.0));
+        double limit = controller.getSendLimit();
+        assertThat(limit).isCloseTo(baseline * 0.5, within(0.0001));
+
+        // Ten gaps of 1/limit between eleven sends
+        long expected = Math.round(10 * 1000 / limit);
+        long elapsed = sendMillis(controller.pace(), 11, 1);
+        assertThat(elapsed).isBetween(expected - 20, expected + 400);
+    }
+
+    @Test
+    void batchEnvelopesWaitOnePermitPerOrder() throws Exception {
+        reportPressure(1.5);
+        check(40, 1000);
+
+        // Two envelopes of 5 orders: the second waits 5/limit behind the first
+        long expected = Math.round(5 * 1000 / controller.getSendLimit());
+        long elapsed = sendMillis(controller.pace(), 2, 5);
+        assertThat(elapsed).isBetween(expected - 20, expected + 400);
+    }
+
+    @Test
+    void sendLimitFloorIsAShareOfTheBaselineNotAFixedRate() {
+        // One order every 2 s, the default generator period
+        reportPressure(1.5);
+        check(1, 2000);
+        for (int i = 0; i < 10; i++) {
+            check(1, 2000);
+        }
+
+        assertThat((double) controller.getStatus().get("factor")).isCloseTo(0.05, within(0.0001));
+        double baseline = (double) controller.getStatus().get("baselineRate");
+        assertThat(baseline).isCloseTo(0.5, within(0.05));
+        assertThat(controller.getSendLimit()).isCloseTo(baseline * 0.05, within(0.0001)).isLessThan(baseline);
+    }
+
+    private void reportPressure(double score) {
+        when(pressureMap.values()).thenAnswer(invocation -> List.of(
+            new ConsumerPressure("consumer-1", score, 0, score, 0, 0, 0, System.currentTimeMillis())));
+    }
+
+    /**
+     * Runs one check after the given number of sends over the given period
+     */
+    private void check(long sends, long periodMillis) {
+        ReflectionTestUtils.setField(controller, "lastSent", 0L);
+        ReflectionTestUtils.setField(controller, "lastCheckAt", System.currentTimeMillis() - periodMillis);
+        when(producerMetrics.getOrdersSent()).thenReturn(sends);
+        ReflectionTestUtils.invokeMethod(controller, "check");
+    }
+
+    private long sendMillis(Processor pace, int sends, int ordersPerSend) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < sends; i++) {
+            Exchange exchange = new DefaultExchange(camelContext);
+            if (ordersPerSend > 1) {
+                exchange.getIn().setHeader(ClusterConstants.ORDER_BATCH_SIZE_HEADER, ordersPerSend);
+            }
+            pace.process(exchange);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
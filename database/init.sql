@@ -22,10 +22,16 @@ CREATE TABLE IF NOT EXISTS cluster_state (
     node_id VARCHAR(100) NOT NULL,
     node_type VARCHAR(50) NOT NULL,
     is_master BOOLEAN DEFAULT FALSE,
+    host VARCHAR(255),
+    port INTEGER,
     last_heartbeat TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Databases created before database service discovery lack the Hazelcast address columns
+ALTER TABLE cluster_state ADD COLUMN IF NOT EXISTS host VARCHAR(255);
+ALTER TABLE cluster_state ADD COLUMN IF NOT EXISTS port INTEGER;
+
 -- File processing log
 CREATE TABLE IF NOT EXISTS processed_files (
     id BIGSERIAL PRIMARY KEY,
@@ -64,13 +70,35 @@ CREATE TABLE IF NOT EXISTS cluster_analytics (
     generated_by VARCHAR(100) NOT NULL
 );
 
+-- Highest fencing token a coordinator leader has written with. Leader-only writes first
+-- raise it in their own transaction, so a deposed leader's writes are refused. A new
+-- leader takes its token above this value, as the lease entry does not survive restarts
+CREATE TABLE IF NOT EXISTS leader_fence (
+    id INTEGER PRIMARY KEY DEFAULT 1 CHECK (id = 1),
+    fencing_token BIGINT NOT NULL DEFAULT 0,
+    holder VARCHAR(100),
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+INSERT INTO leader_fence (id, fencing_token) VALUES (1, 0) ON CONFLICT DO NOTHING;
+
+-- Token of the leader that wrote each report
+ALTER TABLE cluster_reports ADD COLUMN IF NOT EXISTS fencing_token BIGINT;
+
 -- Create indexes for better performance
 CREATE INDEX IF NOT EXISTS idx_processed_orders_order_id ON processed_orders(order_id);
 CREATE INDEX IF NOT EXISTS idx_processed_orders_processed_at ON processed_orders(processed_at);
 CREATE INDEX IF NOT EXISTS idx_processed_orders_customer ON processed_orders(customer_name);
 CREATE INDEX IF NOT EXISTS idx_processed_orders_product ON processed_orders(product_name);
 CREATE INDEX IF NOT EXISTS idx_processed_orders_processed_by ON processed_orders(processed_by);
-CREATE INDEX IF NOT EXISTS idx_cluster_state_node_id ON cluster_state(node_id);
+-- One row per node, target of the heartbeat upsert. Databases from before the upsert can
+-- hold several rows per node; keep the newest heartbeat of each before indexing
+DELETE FROM cluster_state stale
+USING cluster_state newer
+WHERE stale.node_id = newer.node_id
+  AND (COALESCE(stale.last_heartbeat, '-infinity'), stale.id) < (COALESCE(newer.last_heartbeat, '-infinity'), newer.id);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_cluster_state_node_id_unique ON cluster_state(node_id);
+-- Live member lookup by heartbeat age, answered from the index alone
+CREATE INDEX IF NOT EXISTS idx_cluster_state_heartbeat ON cluster_state(last_heartbeat) INCLUDE (node_id, node_type, host, port);
 CREATE INDEX IF NOT EXISTS idx_cluster_state_is_master ON cluster_state(is_master);
 CREATE INDEX IF NOT EXISTS idx_processed_files_processed_at ON processed_files(processed_at);
 CREATE INDEX IF NOT EXISTS idx_processing_metrics_node_id ON processing_metrics(node_id);
@@ -0,0 +1,99 @@
+#!/bin/bash
+
+# Hazelcast Role Comparison
+# Recreates the producer as a full member, a lite member and a smart client and
+# records, for each role, the application startup time, the time to create the
+# Hazelcast instance, the producer's heap in use and the partition migrations the
+# coordinator saw while the producer joined the cluster.
+
+set -e
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m'
+
+print_status() {
+    echo -e "${BLUE}[INFO]${NC} $(date '+%H:%M:%S') $1"
+}
+
+print_success() {
+    echo -e "${GREEN}[PASS]${NC} $(date '+%H:%M:%S') $1"
+}
+
+print_error() {
+    echo -e "${RED}[FAIL]${NC} $(date '+%H:%M:%S') $1"
+}
+
+print_test() {
+    echo -e "${CYAN}[TEST]${NC} $(date '+%H:%M:%S') $1"
+}
+
+# Configuration
+ROLES=${ROLES:-"member lite-member client"}
+PRODUCER_URL=${PRODUCER_URL:-http://localhost:8081}
+COORDINATOR_URL=${COORDINATOR_URL:-http://localhost:8083}
+STARTUP_TIMEOUT=${STARTUP_TIMEOUT:-180}
+SETTLE_SECONDS=${SETTLE_SECONDS:-20}
+
+coordinator_migrations() {
+    curl -s "$COORDINATOR_URL/api/coordinator/metrics" 2>/dev/null \
+        | jq -r '.cluster.hazelcast.migrations.replicaMigrations // 0' 2>/dev/null || echo 0
+}
+
+wait_for_producer() {
+    local attempts=$STARTUP_TIMEOUT
+    while [ $attempts -gt 0 ]; do
+        if curl -sf "$PRODUCER_URL/api/producer/cluster" > /dev/null 2>&1; then
+            return 0
+        fi
+        sleep 1
+        attempts=$((attempts - 1))
+    done
+    return 1
+}
+
+measure_role() {
+    local role=$1
+
+    print_test "Recreating producer as Hazelcast $role"
+    local migrations_before=$(coordinator_migrations)
+    PRODUCER_HAZELCAST_ROLE=$role docker compose up -d --no-deps --force-recreate producer > /dev/null 2>&1
+
+    if ! wait_for_producer; then
+        print_error "Producer did not come up as $role within ${STARTUP_TIMEOUT}s"
+        return 1
+    fi
+    # Let migrations triggered by the join finish before reading the counters
+    sleep $SETTLE_SECONDS
+
+    local app_startup=$(docker logs producer 2>&1 | grep -o "Started ProducerApplication in [0-9.]* seconds" | tail -1 | grep -o "[0-9.]*")
+    local footprint=$(curl -s "$PRODUCER_URL/api/producer/cluster" | jq -c '.hazelcast')
+    local hz_startup=$(echo "$footprint" | jq -r '.startupMs')
+    local heap=$(echo "$footprint" | jq -r '.heapUsedMb')
+    local partitions=$(echo "$footprint" | jq -r '.ownedPartitions // 0')
+    local migrations_after=$(coordinator_migrations)
+    local migrations=$((migrations_after - migrations_before))
+
+    print_success "$role: app ${app_startup}s, hazelcast ${hz_startup} ms, heap ${heap} MB, ${partitions} partitions, ${migrations} replica migrations"
+    echo "$role,$app_startup,$hz_startup,$heap,$partitions,$migrations" >> "$RESULTS_FILE"
+}
+
+RESULTS_FILE="./logs/hazelcast-roles-$(date +%Y%m%d-%H%M%S).csv"
+mkdir -p "$(dirname "$RESULTS_FILE")"
+echo "role,appStartupSeconds,hazelcastStartupMs,heapUsedMb,ownedPartitions,replicaMigrations" > "$RESULTS_FILE"
+
+echo "🧪 Hazelcast role comparison: $ROLES"
+echo "========================================"
+
+for role in $ROLES; do
+    measure_role $role
+done
+
+print_status "Restoring the default producer role"
+docker compose up -d --no-deps --force-recreate producer > /dev/null 2>&1
+
+print_status "Results written to $RESULTS_FILE"
+column -s, -t < "$RESULTS_FILE"
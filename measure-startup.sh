@@ -0,0 +1,160 @@
+#!/bin/bash
+
+# Startup Benchmark
+# Starts each service from its local build in every startup mode and records the time
+# from launch until Spring reports the application started and until the node does its
+# first work: the producer's first generated order, the consumer's first processed
+# order and the coordinator's cluster-ready line.
+#
+# Modes:
+#   default  - the executable jar
+#   aot      - the executable jar with the Spring AOT-processed context
+#   cds      - the AppCDS layout in target/cds with its training archive
+#   aot-cds  - both
+#
+# Needs the fast-startup build and ActiveMQ and PostgreSQL on localhost:
+#   (cd camel-cluster-parent && mvn -Pfast-startup package -DskipTests)
+#   docker compose up -d activemq postgres
+
+set -e
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m'
+
+print_status() {
+    echo -e "${BLUE}[INFO]${NC} $(date '+%H:%M:%S') $1"
+}
+
+print_success() {
+    echo -e "${GREEN}[PASS]${NC} $(date '+%H:%M:%S') $1"
+}
+
+print_error() {
+    echo -e "${RED}[FAIL]${NC} $(date '+%H:%M:%S') $1"
+}
+
+print_test() {
+    echo -e "${CYAN}[TEST]${NC} $(date '+%H:%M:%S') $1"
+}
+
+# Configuration
+MODES=${MODES:-"default aot cds aot-cds"}
+SERVICES=${SERVICES:-"producer consumer coordinator"}
+RUNS=${RUNS:-3}
+STARTUP_TIMEOUT=${STARTUP_TIMEOUT:-180}
+LOG_DIR=./logs/startup
+LOAD_PRODUCER_PID=
+
+first_work_pattern() {
+    case $1 in
+        producer) echo "Generated order" ;;
+        consumer) echo "Processing order:" ;;
+        coordinator) echo "cluster ready" ;;
+    esac
+}
+
+java_command() {
+    local service=$1
+    local mode=$2
+    local target="camel-$service/target"
+    local jar=$(ls "$target"/camel-$service-*.jar 2>/dev/null | grep -v original | head -1)
+
+    case $mode in
+        default) echo "java -jar $jar" ;;
+        aot) echo "java -Dspring.aot.enabled=true -jar $jar" ;;
+        cds) echo "java -XX:SharedArchiveFile=$target/cds/app.jsa -jar $target/cds/camel-$service.jar" ;;
+        aot-cds) echo "java -XX:SharedArchiveFile=$target/cds/app.jsa -Dspring.aot.enabled=true -jar $target/cds/camel-$service.jar" ;;
+    esac
+}
+
+millis() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+stop_process() {
+    kill "$1" 2>/dev/null || true
+    wait "$1" 2>/dev/null || true
+}
+
+# Orders for the consumer runs come from a producer started once in default mode
+start_load_producer() {
+    print_status "Starting a producer to supply orders for the consumer runs"
+    $(java_command producer default) > "$LOG_DIR/load-producer.log" 2>&1 &
+    LOAD_PRODUCER_PID=$!
+}
+
+measure_run() {
+    local service=$1
+    local mode=$2
+    local run=$3
+    local log="$LOG_DIR/$service-$mode-$run.log"
+    local pattern=$(first_work_pattern $service)
+
+    local launched=$(millis)
+    $(java_command $service $mode) > "$log" 2>&1 &
+    local pid=$!
+
+    local started=""
+    local first_work=""
+    while [ -z "$first_work" ]; do
+        local elapsed=$(( $(millis) - launched ))
+        if [ $elapsed -gt $((STARTUP_TIMEOUT * 1000)) ] || ! kill -0 $pid 2>/dev/null; then
+            break
+        fi
+        if [ -z "$started" ] && grep -q "Started .*Application in" "$log"; then
+            started=$elapsed
+        fi
+        if grep -q "$pattern" "$log"; then
+            first_work=$elapsed
+        fi
+        sleep 0.1
+    done
+    stop_process $pid
+
+    if [ -z "$first_work" ]; then
+        print_error "$service ($mode) run $run: no '$pattern' within ${STARTUP_TIMEOUT}s, see $log"
+        return 1
+    fi
+    print_success "$service ($mode) run $run: started in ${started:-?} ms, first work after ${first_work} ms"
+    echo "$service,$mode,$run,${started:-},$first_work" >> "$RESULTS_FILE"
+}
+
+mkdir -p "$LOG_DIR"
+RESULTS_FILE="./logs/startup-$(date +%Y%m%d-%H%M%S).csv"
+echo "service,mode,run,startedMs,firstWorkMs" > "$RESULTS_FILE"
+trap '[ -n "$LOAD_PRODUCER_PID" ] && stop_process $LOAD_PRODUCER_PID' EXIT
+
+for service in $SERVICES; do
+    if [ ! -f "camel-$service/target/cds/app.jsa" ]; then
+        print_error "camel-$service has no AppCDS archive; build with mvn -Pfast-startup package first"
+        exit 1
+    fi
+done
+
+echo "🧪 Startup benchmark: $SERVICES x $MODES, $RUNS runs each"
+echo "========================================"
+
+for service in $SERVICES; do
+    if [ "$service" != "producer" ] && [ -z "$LOAD_PRODUCER_PID" ]; then
+        start_load_producer
+    fi
+    for mode in $MODES; do
+        print_test "Measuring $service in $mode mode"
+        for run in $(seq 1 $RUNS); do
+            measure_run $service $mode $run || true
+        done
+    done
+done
+
+print_status "Results written to $RESULTS_FILE"
+echo
+echo "Average per service and mode (ms):"
+awk -F, 'NR > 1 { key = $1 "," $2; started[key] += $4; work[key] += $5; runs[key]++ }
+    END {
+        print "service,mode,runs,startedMs,firstWorkMs"
+        for (key in runs) printf "%s,%d,%d,%d\n", key, runs[key], started[key] / runs[key], work[key] / runs[key]
+    }' "$RESULTS_FILE" | column -s, -t
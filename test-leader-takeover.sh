@@ -0,0 +1,125 @@
+#!/bin/bash
+
+# Leader Takeover Timing Test
+# Kills the coordinator holding the leader lease and measures how long it takes
+# the other coordinator to take over. Repeats for a number of rounds.
+
+set -e
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+BLUE='\033[0;34m'
+CYAN='\033[0;36m'
+NC='\033[0m'
+
+print_status() {
+    echo -e "${BLUE}[INFO]${NC} $(date '+%H:%M:%S') $1"
+}
+
+print_success() {
+    echo -e "${GREEN}[PASS]${NC} $(date '+%H:%M:%S') $1"
+}
+
+print_warning() {
+    echo -e "${YELLOW}[WARN]${NC} $(date '+%H:%M:%S') $1"
+}
+
+print_error() {
+    echo -e "${RED}[FAIL]${NC} $(date '+%H:%M:%S') $1"
+}
+
+print_test() {
+    echo -e "${CYAN}[TEST]${NC} $(date '+%H:%M:%S') $1"
+}
+
+# Configuration
+ROUNDS=${ROUNDS:-3}
+TAKEOVER_TIMEOUT_MS=${TAKEOVER_TIMEOUT_MS:-30000}
+declare -A COORDINATOR_URLS=(
+    [coordinator1]="http://localhost:8083"
+    [coordinator2]="http://localhost:8086"
+)
+
+now_ms() {
+    date +%s%3N
+}
+
+# Print the container whose coordinator holds the lease
+find_leader() {
+    for container in "${!COORDINATOR_URLS[@]}"; do
+        local leader=$(curl -s "${COORDINATOR_URLS[$container]}/api/coordinator/leader" 2>/dev/null | jq -r '.isLeader' 2>/dev/null)
+        if [ "$leader" = "true" ]; then
+            echo "$container"
+            return 0
+        fi
+    done
+    return 1
+}
+
+wait_for_leader() {
+    local attempts=60
+    while [ $attempts -gt 0 ]; do
+        if find_leader > /dev/null; then
+            return 0
+        fi
+        sleep 1
+        attempts=$((attempts - 1))
+    done
+    return 1
+}
+
+run_round() {
+    local round=$1
+
+    if ! wait_for_leader; then
+        print_error "No coordinator holds the leader lease"
+        return 1
+    fi
+    local old_leader=$(find_leader)
+    local successor=""
+    for container in "${!COORDINATOR_URLS[@]}"; do
+        [ "$container" != "$old_leader" ] && successor="$container"
+    done
+
+    print_test "Round $round: killing leader $old_leader, expecting $successor to take over"
+    local killed_at=$(now_ms)
+    docker kill "$old_leader" > /dev/null
+
+    local deadline=$((killed_at + TAKEOVER_TIMEOUT_MS))
+    while [ $(now_ms) -lt $deadline ]; do
+        local response=$(curl -s "${COORDINATOR_URLS[$successor]}/api/coordinator/leader" 2>/dev/null || echo "{}")
+        if [ "$(echo "$response" | jq -r '.isLeader' 2>/dev/null)" = "true" ]; then
+            local observed=$(( $(now_ms) - killed_at ))
+            local measured=$(echo "$response" | jq -r '.currentLeaseTakeoverMs')
+            local token=$(echo "$response" | jq -r '.fencingToken')
+            print_success "Round $round: $successor leader after ${observed} ms (lease gap ${measured} ms, fencing token $token)"
+            echo "$round,$old_leader,$successor,$observed,$measured,$token" >> "$RESULTS_FILE"
+            break
+        fi
+        sleep 0.1
+    done
+
+    if [ $(now_ms) -ge $deadline ]; then
+        print_error "Round $round: no takeover within ${TAKEOVER_TIMEOUT_MS} ms"
+    fi
+
+    print_status "Restarting $old_leader"
+    docker start "$old_leader" > /dev/null
+    sleep 30
+}
+
+RESULTS_FILE="./logs/leader-takeover-$(date +%Y%m%d-%H%M%S).csv"
+mkdir -p "$(dirname "$RESULTS_FILE")"
+echo "round,killedLeader,newLeader,observedMs,leaseGapMs,fencingToken" > "$RESULTS_FILE"
+
+echo "🧪 Leader takeover test: $ROUNDS rounds"
+echo "========================================"
+
+for round in $(seq 1 $ROUNDS); do
+    run_round $round
+done
+
+print_status "Results written to $RESULTS_FILE"
+column -s, -t < "$RESULTS_FILE"